@@ -1,6 +1,7 @@
 package com.scmp.framework.context;
 
 import lombok.Getter;
+import lombok.Setter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ConfigurableApplicationContext;
@@ -69,6 +70,135 @@ public class FrameworkConfigs {
 	@Value("${REMOVE_FAILED_TEST_B4_RETRY:#{false}}")
 	private boolean removeFailedTestB4Retry;
 
+	@Value("${DURATION_AWARE_SCHEDULING:#{true}}")
+	private boolean durationAwareScheduling;
+
+	@Value("${TEST_DURATION_HISTORY_PATH:#{''}}")
+	private String testDurationHistoryPath;
+
+	@Value("${FAIL_FAST_ON_SETUP_FAILURE:#{false}}")
+	private boolean failFastOnSetupFailure;
+
+	@Value("${SHARD_INDEX:0}")
+	private int shardIndex;
+
+	@Value("${SHARD_TOTAL:1}")
+	private int shardTotal;
+
+	@Value("${SHARD_STRATEGY:hash}")
+	private String shardStrategy;
+
+	@Value("${UNIFIED_RUN_MODE:#{false}}")
+	private boolean unifiedRunMode;
+
+	@Value("${BROWSER_THREAD_LIMITS:#{''}}")
+	private String browserThreadLimits;
+
+	@Value("${ADAPTIVE_CONCURRENCY:#{false}}")
+	private boolean adaptiveConcurrency;
+
+	@Value("${GRID_STATUS_POLL_INTERVAL_MS:2000}")
+	private long gridStatusPollIntervalMs;
+
+	@Value("${SESSION_BACKOFF:#{false}}")
+	private boolean sessionBackoff;
+
+	@Value("${SESSION_RETRY_COUNT:3}")
+	private int sessionRetryCount;
+
+	@Value("${SESSION_RETRY_BASE_DELAY_MS:1000}")
+	private long sessionRetryBaseDelayMs;
+
+	@Value("${SESSION_RETRY_MAX_DELAY_MS:30000}")
+	private long sessionRetryMaxDelayMs;
+
+	@Value("${CIRCUIT_BREAKER_FAILURE_THRESHOLD:5}")
+	private int circuitBreakerFailureThreshold;
+
+	@Value("${CIRCUIT_BREAKER_OPEN_SECONDS:30}")
+	private long circuitBreakerOpenSeconds;
+
+	@Value("${SESSION_MAX_WAITERS:0}")
+	private int sessionMaxWaiters;
+
+	@Value("${GRID_CAPACITY_WAIT_TIMEOUT_SECONDS:600}")
+	private long gridCapacityWaitTimeoutSeconds;
+
+	@Value("${BROWSERLESS_TEST_LANE:#{false}}")
+	private boolean browserlessTestLane;
+
+	@Value("${BROWSERLESS_THREAD_COUNT:50}")
+	private int browserlessThreadCount;
+
+	@Value("${ASYNC_DRIVER_TEARDOWN:#{false}}")
+	private boolean asyncDriverTeardown;
+
+	@Value("${DRIVER_QUIT_TIMEOUT_SECONDS:30}")
+	private long driverQuitTimeoutSeconds;
+
+	@Value("${HANG_WATCHDOG:#{false}}")
+	private boolean hangWatchdog;
+
+	@Value("${TEST_HANG_TIMEOUT_SECONDS:1800}")
+	private long testHangTimeoutSeconds;
+
+	@Value("${COMMAND_HANG_TIMEOUT_SECONDS:360}")
+	private long commandHangTimeoutSeconds;
+
+	@Value("${COMMAND_LATENCY_METRICS:#{false}}")
+	private boolean commandLatencyMetrics;
+
+	@Value("${TEST_PHASE_METRICS:#{false}}")
+	private boolean testPhaseMetrics;
+
+	@Value("${SMART_WAIT:#{false}}")
+	private boolean smartWait;
+
+	@Value("${SMART_WAIT_BUDGET_SECONDS:300}")
+	private long smartWaitBudgetSeconds;
+
+	@Value("${SMART_WAIT_MIN_POLL_MS:50}")
+	private long smartWaitMinPollMs;
+
+	@Value("${SMART_WAIT_MAX_POLL_MS:1000}")
+	private long smartWaitMaxPollMs;
+
+	@Value("${EVENT_DRIVEN_WAIT:#{false}}")
+	private boolean eventDrivenWait;
+
+	@Value("${SESSION_POOLING:#{false}}")
+	private boolean sessionPooling;
+
+	@Value("${SESSION_MAX_REUSE:20}")
+	private int sessionMaxReuse;
+
+	@Value("${SESSION_PREWARM_COUNT:0}")
+	private int sessionPrewarmCount;
+
+	@Value("${BROWSER_CONTEXT_MULTIPLEXING:#{false}}")
+	private boolean browserContextMultiplexing;
+
+	@Value("${BROWSER_CONTEXTS_PER_HOST:4}")
+	private int browserContextsPerHost;
+
+	@Value("${DAEMON_MODE:#{false}}")
+	private boolean daemonMode;
+
+	@Value("${DAEMON_PORT:7911}")
+	private int daemonPort;
+
+	@Value("${EXECUTION_JOURNAL_PATH:#{''}}")
+	private String executionJournalPath;
+
+	@Value("${RESUME_FROM:#{''}}")
+	private String resumeFrom;
+
+	@Value("${TEST_DISCOVERY_INDEX:#{false}}")
+	private boolean testDiscoveryIndex;
+
+	@Value("${TEST_DISCOVERY_INDEX_PATH:#{''}}")
+	private String testDiscoveryIndexPath;
+
 	@Value("${TESTRAIL_SERVER:#{''}}")
 	private String testRailServer;
 
@@ -99,9 +229,11 @@ public class FrameworkConfigs {
 	@Value("${TESTRAIL_UPLOAD_FLAG:#{false}}")
 	private boolean testRailUploadTestResult;
 
+	@Setter
 	@Value("${EXCLUDE_GROUPS:#{''}}")
 	private String excludeGroups;
 
+	@Setter
 	@Value("${INCLUDE_GROUPS}")
 	private String includeGroups;
 
@@ -114,9 +246,24 @@ public class FrameworkConfigs {
 	@Value("${DRIVER_HOME}")
 	private String driverHome;
 
+	@Value("${DRIVER_OFFLINE:#{false}}")
+	private boolean driverOffline;
+
+	@Value("${DRIVER_CACHE_TTL_HOURS:24}")
+	private long driverCacheTtlHours;
+
 	@Value("${LOCAL_EXECUTION:OFF}")
 	private String localExecutionMode;
 
+	@Value("${LOCAL_GRID:#{false}}")
+	private boolean localGrid;
+
+	@Value("${LOCAL_GRID_MAX_SESSIONS:0}")
+	private int localGridMaxSessions;
+
+	@Value("${LOCAL_GRID_WAIT_TIMEOUT_SECONDS:600}")
+	private int localGridWaitTimeoutSeconds;
+
 	@Value("${EXTENT_XML_PATH:#{null}}")
 	private String extentXMLPath;
 
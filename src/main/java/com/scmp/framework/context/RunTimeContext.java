@@ -59,6 +59,15 @@ public class RunTimeContext {
 		this.globalVariables.put(name, data);
 	}
 
+	/**
+	 * Remove a global variable
+	 *
+	 * @param name variable name
+	 */
+	public void removeGlobalVariables(String name) {
+		this.globalVariables.remove(name);
+	}
+
 	/**
 	 * Get a global variable
 	 *
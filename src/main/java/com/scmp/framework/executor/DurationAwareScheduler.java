@@ -0,0 +1,86 @@
+package com.scmp.framework.executor;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.ToLongFunction;
+
+/**
+ * DurationAwareScheduler - Orders tests longest-first (LPT) base on the duration history,
+ * so that the long running tests are not left running alone at the end of the execution.
+ */
+@Component
+public class DurationAwareScheduler {
+	private static final Logger frameworkLogger = LoggerFactory.getLogger(DurationAwareScheduler.class);
+
+	private final TestDurationHistory durationHistory;
+
+	@Autowired
+	public DurationAwareScheduler(TestDurationHistory durationHistory) {
+		this.durationHistory = durationHistory;
+	}
+
+	/**
+	 * Estimate the execution time of a test method
+	 *
+	 * @param className  full class name
+	 * @param methodName method name
+	 * @return estimated execution time in milliseconds
+	 */
+	public long estimate(String className, String methodName) {
+		return durationHistory.estimate(className, methodName);
+	}
+
+	/**
+	 * Sort the items by the estimated duration, longest first.
+	 * Items without history are ranked by the average duration of their class, or the global average if the class has none.
+	 * The sorting is stable, only items with the same estimate keep their original order.
+	 *
+	 * @param items     items to be sorted
+	 * @param estimator function to estimate the duration of an item
+	 * @param <T>       item type
+	 * @return sorted items
+	 */
+	public <T> List<T> sortLongestFirst(@NotNull List<T> items, ToLongFunction<T> estimator) {
+		if (!durationHistory.hasHistory()) {
+			return items;
+		}
+
+		List<T> sortedItems = new ArrayList<>(items);
+		sortedItems.sort(Comparator.comparingLong(estimator).reversed());
+		return sortedItems;
+	}
+
+	/**
+	 * Bin-pack the ordered items to the workers, each item is assigned to the least loaded worker.
+	 * It is how the TestNG thread pool picks up the methods, so the result is the expected makespan.
+	 *
+	 * @param orderedItems items in execution order
+	 * @param estimator    function to estimate the duration of an item
+	 * @param workers      number of workers, i.e. THREAD_COUNT
+	 * @param <T>          item type
+	 * @return estimated wall-clock time in milliseconds
+	 */
+	public <T> long estimateMakespan(@NotNull List<T> orderedItems, ToLongFunction<T> estimator, int workers) {
+		PriorityQueue<Long> workerLoads = new PriorityQueue<>();
+		for (int i = 0; i < Math.max(workers, 1); i++) {
+			workerLoads.add(0L);
+		}
+
+		for (T item : orderedItems) {
+			workerLoads.add(workerLoads.poll() + estimator.applyAsLong(item));
+		}
+
+		long makespan = workerLoads.stream().mapToLong(Long::longValue).max().orElse(0);
+		frameworkLogger.info("Scheduled {} tests on {} workers, estimated makespan: {} seconds",
+				orderedItems.size(), workers, makespan / 1000);
+		return makespan;
+	}
+}
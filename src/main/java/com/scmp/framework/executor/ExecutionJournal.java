@@ -0,0 +1,343 @@
+package com.scmp.framework.executor;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.scmp.framework.context.RunTimeContext;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.testng.ITestResult;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static com.scmp.framework.utils.Constants.TARGET_PATH;
+
+/**
+ * ExecutionJournal - Appends the result of every finished test method to a JSON lines file,
+ * so that an interrupted execution can be resumed with RESUME_FROM.
+ * Every line is flushed when it is written, the file is complete up to the last finished test.
+ * The number of rows of a data provider is recorded once the rows are read, a method with a data provider
+ * is only completed when every row passed.
+ */
+@Component
+public class ExecutionJournal {
+	private static final Logger frameworkLogger = LoggerFactory.getLogger(ExecutionJournal.class);
+	private static final String DEFAULT_FILE_NAME = "execution-journal.jsonl";
+	private static final String TYPE_RESULT = "result";
+	private static final String TYPE_TEST_RUN = "testRun";
+	private static final String TYPE_INVOCATIONS = "invocations";
+
+	private final Gson gson = new Gson();
+	private final RunTimeContext context;
+	private BufferedWriter writer = null;
+	// Journal entries of the resumed execution, key: class#method#browser
+	private final Map<String, List<JournalEntry>> resumedResults = new HashMap<>();
+	// Number of the data provider rows of the resumed execution, key: class#method#browser
+	private final Map<String, Integer> resumedInvocationCounts = new HashMap<>();
+	private Integer resumedTestRunId = null;
+
+	@Autowired
+	public ExecutionJournal(RunTimeContext context) {
+		this.context = context;
+	}
+
+	/**
+	 * Check if the execution resumes from a journal
+	 *
+	 * @return true if RESUME_FROM is set
+	 */
+	public boolean isResuming() {
+		String resumeFrom = context.getFrameworkConfigs().getResumeFrom();
+		return resumeFrom != null && !resumeFrom.isEmpty();
+	}
+
+	/**
+	 * Open the journal for the execution.
+	 * When resuming, the journal of RESUME_FROM is loaded and the new results are appended to it,
+	 * otherwise a new journal is created at EXECUTION_JOURNAL_PATH.
+	 *
+	 * @throws IOException exception when opening the journal
+	 */
+	public synchronized void open() throws IOException {
+		close();
+		resumedResults.clear();
+		resumedInvocationCounts.clear();
+		resumedTestRunId = null;
+
+		Path journalPath;
+		if (isResuming()) {
+			journalPath = Paths.get(context.getFrameworkConfigs().getResumeFrom());
+			load(journalPath);
+			writer = Files.newBufferedWriter(journalPath, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+			if (Files.size(journalPath) > 0) {
+				// Terminate the last line in case it was cut off
+				writer.newLine();
+				writer.flush();
+			}
+		} else {
+			String path = context.getFrameworkConfigs().getExecutionJournalPath();
+			journalPath = Paths.get(path == null || path.isEmpty() ? TARGET_PATH + File.separator + DEFAULT_FILE_NAME : path);
+			if (journalPath.getParent() != null) {
+				Files.createDirectories(journalPath.getParent());
+			}
+			writer = Files.newBufferedWriter(journalPath, StandardCharsets.UTF_8,
+					StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		}
+
+		frameworkLogger.info("Execution journal: {}", journalPath.toAbsolutePath());
+	}
+
+	/**
+	 * Close the journal
+	 */
+	public synchronized void close() {
+		if (writer == null) {
+			return;
+		}
+
+		try {
+			writer.close();
+		} catch (IOException e) {
+			frameworkLogger.error("Failed to close execution journal.", e);
+		}
+		writer = null;
+	}
+
+	/**
+	 * Get the TestRail test run id recorded in the resumed journal
+	 *
+	 * @return test run id, empty if not resuming or no test run recorded
+	 */
+	public Optional<Integer> getResumedTestRunId() {
+		return Optional.ofNullable(resumedTestRunId);
+	}
+
+	/**
+	 * Record the TestRail test run of the execution
+	 *
+	 * @param testRunId TestRail test run id
+	 */
+	public void recordTestRun(int testRunId) {
+		JournalEntry entry = new JournalEntry();
+		entry.type = TYPE_TEST_RUN;
+		entry.testRunId = testRunId;
+		write(entry);
+	}
+
+	/**
+	 * Record the result of a test method invocation
+	 *
+	 * @param className      test class name
+	 * @param methodName     test method name
+	 * @param browser        browser parameter of the suite
+	 * @param parameterIndex index of the data provider parameters
+	 * @param status         TestNG result status
+	 * @param durationMillis duration in milliseconds
+	 */
+	public void recordResult(String className, String methodName, String browser, int parameterIndex, int status, long durationMillis) {
+		JournalEntry entry = new JournalEntry();
+		entry.type = TYPE_RESULT;
+		entry.className = className;
+		entry.methodName = methodName;
+		entry.browser = browser;
+		entry.parameterIndex = parameterIndex;
+		entry.status = status;
+		entry.durationMillis = durationMillis;
+		entry.timestamp = System.currentTimeMillis();
+		write(entry);
+	}
+
+	/**
+	 * Record the number of the data provider rows of a test method
+	 *
+	 * @param className       test class name
+	 * @param methodName      test method name
+	 * @param browser         browser parameter of the suite
+	 * @param invocationCount number of the data provider rows
+	 */
+	public void recordInvocations(String className, String methodName, String browser, int invocationCount) {
+		JournalEntry entry = new JournalEntry();
+		entry.type = TYPE_INVOCATIONS;
+		entry.className = className;
+		entry.methodName = methodName;
+		entry.browser = browser;
+		entry.invocationCount = invocationCount;
+		entry.timestamp = System.currentTimeMillis();
+		write(entry);
+	}
+
+	/**
+	 * Remove the methods which passed in the resumed execution.
+	 * Methods depended on by the remaining methods are kept, TestNG cannot resolve the excluded dependencies.
+	 *
+	 * @param methods test class, test method map
+	 * @param browser browser parameter of the suite
+	 * @return test class, unfinished or failed test method map
+	 */
+	public Map<String, List<Method>> excludeCompleted(@NotNull Map<String, List<Method>> methods, String browser) {
+		if (resumedResults.isEmpty()) {
+			return methods;
+		}
+
+		Map<String, Method> allMethods = new HashMap<>();
+		Set<String> remaining = new HashSet<>();
+		methods.forEach((className, classMethods) -> classMethods.forEach(method -> {
+			String key = className + "#" + method.getName();
+			allMethods.put(key, method);
+			if (!isCompleted(key + "#" + browser, method)) {
+				remaining.add(key);
+			}
+		}));
+
+		// Add the dependencies of the remaining methods until nothing changes
+		Deque<String> pending = new ArrayDeque<>(remaining);
+		while (!pending.isEmpty()) {
+			String key = pending.pop();
+			Test test = allMethods.get(key).getAnnotation(Test.class);
+			if (test == null) {
+				continue;
+			}
+
+			String className = key.substring(0, key.indexOf('#'));
+			for (String dependency : test.dependsOnMethods()) {
+				String dependencyKey = TestSharder.resolveDependency(className, dependency);
+				if (allMethods.containsKey(dependencyKey) && remaining.add(dependencyKey)) {
+					pending.push(dependencyKey);
+				}
+			}
+		}
+
+		Map<String, List<Method>> remainingTests = new HashMap<>();
+		methods.forEach((className, classMethods) -> classMethods.stream()
+				.filter(method -> remaining.contains(className + "#" + method.getName()))
+				.forEach(method -> remainingTests.computeIfAbsent(className, k -> new ArrayList<>()).add(method)));
+
+		frameworkLogger.info("Resume [{}]: {} of {} test methods to run", browser,
+				remainingTests.values().stream().mapToInt(List::size).sum(), allMethods.size());
+		return remainingTests;
+	}
+
+	/**
+	 * Check if all the invocations of the method passed, the latest result of an invocation wins, e.g. retried tests.
+	 * A method with a data provider needs the recorded number of rows and a passed result of every row,
+	 * the execution can be interrupted in the middle of the rows.
+	 *
+	 * @param key    class#method#browser
+	 * @param method test method
+	 * @return true if completed
+	 */
+	private boolean isCompleted(String key, @NotNull Method method) {
+		List<JournalEntry> entries = resumedResults.get(key);
+		if (entries == null || entries.isEmpty()) {
+			return false;
+		}
+
+		Map<Integer, Integer> latestStatus = new HashMap<>();
+		entries.forEach(entry -> latestStatus.put(entry.parameterIndex, entry.status));
+		if (!latestStatus.values().stream().allMatch(status -> status == ITestResult.SUCCESS)) {
+			return false;
+		}
+
+		Test test = method.getAnnotation(Test.class);
+		if (test == null || test.dataProvider().isEmpty()) {
+			return true;
+		}
+
+		Integer invocationCount = resumedInvocationCounts.get(key);
+		return invocationCount != null
+				&& IntStream.range(0, invocationCount).allMatch(latestStatus::containsKey);
+	}
+
+	/**
+	 * Load the journal entries of the resumed execution
+	 *
+	 * @param journalPath journal file
+	 * @throws IOException exception when reading the journal
+	 */
+	private void load(Path journalPath) throws IOException {
+		if (!Files.exists(journalPath)) {
+			frameworkLogger.warn("Journal to resume from does not exist: {}", journalPath);
+			return;
+		}
+
+		int lineNumber = 0;
+		try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				if (line.isBlank()) {
+					continue;
+				}
+
+				JournalEntry entry;
+				try {
+					entry = gson.fromJson(line, JournalEntry.class);
+				} catch (JsonParseException e) {
+					// The last line can be incomplete if the execution was killed while writing
+					frameworkLogger.warn("Ignore invalid journal entry at line {}", lineNumber);
+					continue;
+				}
+
+				if (TYPE_TEST_RUN.equals(entry.type)) {
+					resumedTestRunId = entry.testRunId;
+				} else if (TYPE_RESULT.equals(entry.type)) {
+					String key = entry.className + "#" + entry.methodName + "#" + entry.browser;
+					resumedResults.computeIfAbsent(key, k -> new ArrayList<>()).add(entry);
+				} else if (TYPE_INVOCATIONS.equals(entry.type)) {
+					resumedInvocationCounts.put(entry.className + "#" + entry.methodName + "#" + entry.browser, entry.invocationCount);
+				}
+			}
+		}
+
+		frameworkLogger.info("Loaded {} test methods from journal {}", resumedResults.size(), journalPath);
+	}
+
+	/**
+	 * Write an entry to the journal, one line per entry
+	 *
+	 * @param entry journal entry
+	 */
+	private synchronized void write(JournalEntry entry) {
+		if (writer == null) {
+			return;
+		}
+
+		try {
+			writer.write(gson.toJson(entry));
+			writer.newLine();
+			writer.flush();
+		} catch (IOException e) {
+			frameworkLogger.error("Failed to write execution journal.", e);
+		}
+	}
+
+	/**
+	 * JournalEntry - A line of the journal
+	 */
+	private static class JournalEntry {
+		private String type;
+		private String className;
+		private String methodName;
+		private String browser;
+		private int parameterIndex;
+		private int status;
+		private long durationMillis;
+		private long timestamp;
+		private Integer testRunId;
+		private Integer invocationCount;
+	}
+}
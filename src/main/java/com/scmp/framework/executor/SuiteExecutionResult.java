@@ -0,0 +1,48 @@
+package com.scmp.framework.executor;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * SuiteExecutionResult - Execution result of a TestNG suite, e.g. the suite of one browser.
+ */
+@Getter
+public class SuiteExecutionResult {
+	private final String suiteName;
+	private final String suiteFile;
+	private final LocalDateTime startTime;
+	private final LocalDateTime completionTime;
+	private final boolean hasFailure;
+	// Exception which aborts the whole suite, e.g. fails to setup the test run in TestRail
+	private final Throwable fatalError;
+
+	public SuiteExecutionResult(String suiteName, String suiteFile, LocalDateTime startTime, LocalDateTime completionTime,
+								boolean hasFailure, Throwable fatalError) {
+		this.suiteName = suiteName;
+		this.suiteFile = suiteFile;
+		this.startTime = startTime;
+		this.completionTime = completionTime;
+		this.hasFailure = hasFailure;
+		this.fatalError = fatalError;
+	}
+
+	/**
+	 * Check if the suite is aborted by a fatal error
+	 *
+	 * @return true if the suite is aborted
+	 */
+	public boolean isFatal() {
+		return this.fatalError != null;
+	}
+
+	/**
+	 * Get the execution time of the suite
+	 *
+	 * @return execution time
+	 */
+	public Duration getDuration() {
+		return Duration.between(this.startTime, this.completionTime);
+	}
+}
@@ -0,0 +1,39 @@
+package com.scmp.framework.executor;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/**
+ * TestClassLoader - Loads the test classes from the compiled test classes directory before the parent class loader,
+ * so that a long-running daemon picks up the recompiled tests on every run.
+ * Framework and library classes are still loaded by the parent class loader.
+ */
+public class TestClassLoader extends URLClassLoader {
+	static {
+		ClassLoader.registerAsParallelCapable();
+	}
+
+	public TestClassLoader(File testClassesDirectory, ClassLoader parent) throws MalformedURLException {
+		super(new URL[]{testClassesDirectory.toURI().toURL()}, parent);
+	}
+
+	@Override
+	protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+		synchronized (getClassLoadingLock(name)) {
+			Class<?> loadedClass = findLoadedClass(name);
+			if (loadedClass == null && findResource(name.replace('.', '/') + ".class") != null) {
+				loadedClass = findClass(name);
+			}
+			if (loadedClass == null) {
+				return super.loadClass(name, resolve);
+			}
+
+			if (resolve) {
+				resolveClass(loadedClass);
+			}
+			return loadedClass;
+		}
+	}
+}
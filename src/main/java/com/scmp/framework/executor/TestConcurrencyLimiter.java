@@ -0,0 +1,130 @@
+package com.scmp.framework.executor;
+
+import com.scmp.framework.context.RunTimeContext;
+import com.scmp.framework.model.Browser;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * TestConcurrencyLimiter - Shared thread budget of the browser tests in unified run mode.
+ * Every browser test holds one permit of THREAD_COUNT and one permit of its browser cap,
+ * the permits are fair so that the waiting tests are served in arrival order.
+ * It is a permit gate in front of the TestNG workers, not a shared queue: each suite still runs THREAD_COUNT workers,
+ * the workers without a permit are blocked, and the wait is not counted in the test duration.
+ */
+@Component
+public class TestConcurrencyLimiter {
+	private static final Logger frameworkLogger = LoggerFactory.getLogger(TestConcurrencyLimiter.class);
+
+	private final RunTimeContext context;
+	private final ThreadLocal<Browser> acquiredBrowser = new ThreadLocal<>();
+	private volatile Semaphore globalPermits = null;
+	private volatile Map<Browser, Semaphore> browserPermits = new EnumMap<>(Browser.class);
+
+	@Autowired
+	public TestConcurrencyLimiter(RunTimeContext context) {
+		this.context = context;
+	}
+
+	/**
+	 * Enable the limiter with THREAD_COUNT and BROWSER_THREAD_LIMITS
+	 */
+	public void enable() {
+		int threadCount = context.getFrameworkConfigs().getThreadCount();
+		Map<Browser, Semaphore> permits = new EnumMap<>(Browser.class);
+		parseBrowserLimits(context.getFrameworkConfigs().getBrowserThreadLimits())
+				.forEach((browser, limit) -> permits.put(browser, new Semaphore(Math.min(limit, threadCount), true)));
+
+		this.browserPermits = permits;
+		this.globalPermits = new Semaphore(threadCount, true);
+		frameworkLogger.info("Unified run mode, global thread limit: {}, browser limits: {}", threadCount, permits.keySet());
+	}
+
+	/**
+	 * Disable the limiter, the tests are no longer limited after the run
+	 */
+	public void disable() {
+		this.globalPermits = null;
+		this.browserPermits = new EnumMap<>(Browser.class);
+	}
+
+	/**
+	 * Wait for the permits to run a browser test on current thread
+	 *
+	 * @param browser browser of the test
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void acquire(Browser browser) throws InterruptedException {
+		Semaphore global = this.globalPermits;
+		if (global == null || acquiredBrowser.get() != null) {
+			return;
+		}
+
+		// Browser permit first, so that a test waiting for its browser does not hold a global permit
+		Semaphore browserSemaphore = this.browserPermits.get(browser);
+		if (browserSemaphore != null) {
+			browserSemaphore.acquire();
+		}
+		try {
+			global.acquire();
+		} catch (InterruptedException e) {
+			if (browserSemaphore != null) {
+				browserSemaphore.release();
+			}
+			throw e;
+		}
+
+		acquiredBrowser.set(browser);
+	}
+
+	/**
+	 * Release the permits held by current thread
+	 */
+	public void release() {
+		Browser browser = acquiredBrowser.get();
+		if (browser == null) {
+			return;
+		}
+
+		acquiredBrowser.remove();
+		Semaphore global = this.globalPermits;
+		if (global != null) {
+			global.release();
+		}
+		Semaphore browserSemaphore = this.browserPermits.get(browser);
+		if (browserSemaphore != null) {
+			browserSemaphore.release();
+		}
+	}
+
+	/**
+	 * Parse the browser limits, e.g. chrome:4,firefox:2
+	 *
+	 * @param browserLimits browser limits config
+	 * @return browser, limit map
+	 */
+	@NotNull
+	private Map<Browser, Integer> parseBrowserLimits(String browserLimits) {
+		Map<Browser, Integer> limits = new EnumMap<>(Browser.class);
+		if (browserLimits == null || browserLimits.isBlank()) {
+			return limits;
+		}
+
+		for (String browserLimit : browserLimits.split("\\s*,\\s*")) {
+			String[] values = browserLimit.trim().split("\\s*:\\s*");
+			if (values.length != 2) {
+				throw new IllegalArgumentException("Invalid browser thread limit: " + browserLimit);
+			}
+			limits.put(Browser.valueOf(values[0].toUpperCase()), Integer.parseInt(values[1]));
+		}
+
+		return limits;
+	}
+}
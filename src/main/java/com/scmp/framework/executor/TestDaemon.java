@@ -0,0 +1,190 @@
+package com.scmp.framework.executor;
+
+import com.scmp.framework.context.FrameworkConfigs;
+import com.scmp.framework.context.RunTimeContext;
+import com.scmp.framework.report.ExtentTestService;
+import org.jetbrains.annotations.NotNull;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.scmp.framework.utils.Constants.TARGET_PATH;
+
+/**
+ * TestDaemon - Keeps the Spring context and the prepared web drivers alive between test runs.
+ * With DAEMON_MODE enabled, the framework listens on the loopback address at DAEMON_PORT,
+ * each connection sends one JSON request per line, e.g.
+ * {"packages": "com.github.test.demo", "includeGroups": "SMOKE", "excludeGroups": "INVALID"}
+ * and receives the run status as JSON lines. {"command": "shutdown"} stops the daemon.
+ * Runs are executed one at a time, the test classes are reloaded from target/test-classes for every run.
+ */
+@Component
+public class TestDaemon implements ApplicationRunner {
+	private static final Logger frameworkLogger = LoggerFactory.getLogger(TestDaemon.class);
+	private static final String TEST_PACKAGES_PROPERTY = "project.test.packages";
+
+	private final RunTimeContext context;
+	private final TestExecutor testExecutor;
+	private final ExtentTestService extentTestService;
+	private volatile boolean running = false;
+
+	@Autowired
+	public TestDaemon(RunTimeContext context, TestExecutor testExecutor, ExtentTestService extentTestService) {
+		this.context = context;
+		this.testExecutor = testExecutor;
+		this.extentTestService = extentTestService;
+	}
+
+	/**
+	 * Serve the run requests on the loopback address if DAEMON_MODE is enabled
+	 *
+	 * @param args application arguments
+	 * @throws IOException exception when the port cannot be bound
+	 */
+	@Override
+	public void run(ApplicationArguments args) throws IOException {
+		if (!context.getFrameworkConfigs().isDaemonMode()) {
+			return;
+		}
+
+		int port = context.getFrameworkConfigs().getDaemonPort();
+		try (ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+			frameworkLogger.info("Test daemon listening on {}:{}", serverSocket.getInetAddress().getHostAddress(), serverSocket.getLocalPort());
+			running = true;
+			while (running) {
+				try (Socket socket = serverSocket.accept()) {
+					handleConnection(socket);
+				} catch (IOException e) {
+					frameworkLogger.error("Failed to handle daemon connection.", e);
+				}
+			}
+		}
+
+		frameworkLogger.info("Test daemon stopped.");
+	}
+
+	/**
+	 * Handle the requests of a connection, one JSON request per line
+	 *
+	 * @param socket client socket
+	 * @throws IOException exception when reading or writing the socket
+	 */
+	private void handleConnection(@NotNull Socket socket) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+		PrintWriter writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true);
+
+		String line;
+		while (running && (line = reader.readLine()) != null) {
+			if (line.isBlank()) {
+				continue;
+			}
+
+			JSONObject request;
+			try {
+				request = new JSONObject(line);
+			} catch (JSONException e) {
+				writer.println(new JSONObject().put("status", "ERROR").put("message", "Invalid request: " + e.getMessage()));
+				continue;
+			}
+
+			if ("shutdown".equalsIgnoreCase(request.optString("command"))) {
+				running = false;
+				writer.println(new JSONObject().put("status", "STOPPED"));
+				return;
+			}
+
+			writer.println(runTests(request, writer));
+		}
+	}
+
+	/**
+	 * Run the tests of a request, the group overrides are restored after the run
+	 *
+	 * @param request run request
+	 * @param writer  writer to report the run status
+	 * @return run result
+	 */
+	@NotNull
+	private JSONObject runTests(@NotNull JSONObject request, PrintWriter writer) {
+		FrameworkConfigs configs = context.getFrameworkConfigs();
+		String includeGroups = configs.getIncludeGroups();
+		String excludeGroups = configs.getExcludeGroups();
+		ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+		Instant startTime = Instant.now();
+
+		try (TestClassLoader testClassLoader = new TestClassLoader(new File(TARGET_PATH, "test-classes"), contextClassLoader)) {
+			List<String> packages = getPackages(request);
+			configs.setIncludeGroups(request.optString("includeGroups", includeGroups));
+			configs.setExcludeGroups(request.optString("excludeGroups", excludeGroups));
+			writer.println(new JSONObject().put("status", "RUNNING").put("packages", packages));
+
+			// A new report for every run
+			extentTestService.reset();
+			Thread.currentThread().setContextClassLoader(testClassLoader);
+			boolean hasFailure = testExecutor.runTests(packages);
+
+			JSONArray suites = new JSONArray();
+			testExecutor.getSuiteResults().forEach(result -> suites.put(new JSONObject()
+					.put("name", result.getSuiteName())
+					.put("hasFailure", result.isHasFailure())
+					.put("fatal", result.isFatal())
+					.put("durationSeconds", result.getDuration().getSeconds())));
+
+			return new JSONObject()
+					.put("status", "COMPLETED")
+					.put("hasFailure", hasFailure)
+					.put("durationSeconds", Duration.between(startTime, Instant.now()).getSeconds())
+					.put("suites", suites);
+		} catch (Exception e) {
+			frameworkLogger.error("Failed to run tests in daemon.", e);
+			return new JSONObject().put("status", "ERROR").put("message", String.valueOf(e.getMessage()));
+		} finally {
+			Thread.currentThread().setContextClassLoader(contextClassLoader);
+			configs.setIncludeGroups(includeGroups);
+			configs.setExcludeGroups(excludeGroups);
+		}
+	}
+
+	/**
+	 * Get the test packages of the request, default to project.test.packages
+	 *
+	 * @param request run request
+	 * @return test packages
+	 */
+	@NotNull
+	private List<String> getPackages(@NotNull JSONObject request) {
+		List<String> packages = new ArrayList<>();
+		JSONArray packageArray = request.optJSONArray("packages");
+		if (packageArray != null) {
+			packageArray.forEach(packageName -> packages.add(packageName.toString().trim()));
+		} else {
+			String packageList = request.optString("packages", context.getProperty(TEST_PACKAGES_PROPERTY));
+			for (String packageName : packageList.split("\\s*,\\s*")) {
+				if (!packageName.isBlank()) {
+					packages.add(packageName.trim());
+				}
+			}
+		}
+
+		if (packages.isEmpty()) {
+			throw new IllegalArgumentException("No test packages in the request or " + TEST_PACKAGES_PROPERTY);
+		}
+		return packages;
+	}
+}
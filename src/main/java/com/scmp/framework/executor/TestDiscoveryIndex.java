@@ -0,0 +1,392 @@
+package com.scmp.framework.executor;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.scmp.framework.context.RunTimeContext;
+import com.scmp.framework.testng.model.TestMetadataIndex;
+import com.scmp.framework.testng.model.TestMethodMetadata;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.scmp.framework.utils.Constants.TARGET_PATH;
+import static com.scmp.framework.utils.Constants.TEST_METADATA_OBJECT;
+
+/**
+ * TestDiscoveryIndex - On-disk index of the test methods under target/test-classes.
+ * Each class file is keyed by its path, size and last modified time, only the changed class files are scanned for
+ * @Test methods. The methods of the unchanged classes are looked up by their indexed signatures, without reading
+ * their annotations again. Their classes are still loaded, as the scheduling and TestNG work on the Method objects.
+ * The index generated at compile time by TestMetadataIndexProcessor is preferred if available and complete.
+ */
+@Component
+public class TestDiscoveryIndex {
+	private static final Logger frameworkLogger = LoggerFactory.getLogger(TestDiscoveryIndex.class);
+	private static final String DEFAULT_FILE_NAME = "test-discovery-index.json";
+	private static final String CLASS_FILE_EXTENSION = ".class";
+
+	private final Gson gson = new GsonBuilder().create();
+	private final RunTimeContext context;
+
+	@Autowired
+	public TestDiscoveryIndex(RunTimeContext context) {
+		this.context = context;
+	}
+
+	/**
+	 * Get the index file path, default to target/test-discovery-index.json
+	 *
+	 * @return index file
+	 */
+	public File getIndexFile() {
+		String path = context.getFrameworkConfigs().getTestDiscoveryIndexPath();
+		if (path == null || path.isEmpty()) {
+			path = TARGET_PATH + File.separator + DEFAULT_FILE_NAME;
+		}
+
+		return new File(path);
+	}
+
+	/**
+	 * Find test methods from the index generated at compile time
+	 *
+	 * @param packages test packages
+	 * @return Set of Methods, empty if there is no generated index or it is incomplete
+	 */
+	public Optional<Set<Method>> findIndexedTestMethods(@NotNull List<String> packages) {
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		Map<String, List<TestMethodMetadata>> testClasses = new HashMap<>();
+		Set<String> compiledClasses = new HashSet<>();
+		boolean indexFound = false;
+
+		try {
+			for (TestMetadataIndex index : ServiceLoader.load(TestMetadataIndex.class, classLoader)) {
+				indexFound = true;
+				compiledClasses.addAll(index.getCompiledClasses());
+				index.getTestMethods().stream()
+						.filter(metadata -> packages.stream().anyMatch(packageName -> metadata.getClassName().startsWith(packageName + ".")))
+						.forEach(metadata -> testClasses.computeIfAbsent(metadata.getClassName(), k -> new ArrayList<>()).add(metadata));
+			}
+		} catch (ServiceConfigurationError e) {
+			frameworkLogger.warn("Failed to load the generated test metadata index.", e);
+			return Optional.empty();
+		}
+
+		if (!indexFound || !isComplete(compiledClasses, packages)) {
+			return Optional.empty();
+		}
+
+		frameworkLogger.info("Test discovery: {} classes loaded from generated index", testClasses.size());
+		return Optional.of(resolveTestMethods(classLoader, testClasses));
+	}
+
+	/**
+	 * Check that every class under target/test-classes was compiled together with the generated index.
+	 * An incremental or IDE compilation of a few files generates an index of those files only.
+	 *
+	 * @param compiledClasses top-level classes compiled with the index
+	 * @param packages        test packages
+	 * @return true if the index covers all the test classes
+	 */
+	private boolean isComplete(Set<String> compiledClasses, @NotNull List<String> packages) {
+		Path testClassesPath = Paths.get(TARGET_PATH, "test-classes");
+		try {
+			for (Path classFile : listClassFiles(testClassesPath, packages)) {
+				String className = toClassName(testClassesPath.relativize(classFile).toString());
+				// Nested classes are compiled with their top-level class
+				int nestedIndex = className.indexOf('$');
+				String topLevelClassName = nestedIndex < 0 ? className : className.substring(0, nestedIndex);
+				if (!topLevelClassName.endsWith("package-info") && !compiledClasses.contains(topLevelClassName)) {
+					frameworkLogger.warn("Generated test index is incomplete, [{}] was not compiled with it. "
+							+ "Rebuild the tests to regenerate it, falling back to scanning.", topLevelClassName);
+					return false;
+				}
+			}
+		} catch (IOException e) {
+			frameworkLogger.warn("Failed to verify the generated test index, falling back to scanning.", e);
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Find test methods annotated with @Test under the packages
+	 *
+	 * @param packages test packages
+	 * @return Set of Methods
+	 * @throws IOException exception when scanning test classes folder
+	 */
+	public Set<Method> findTestMethods(@NotNull List<String> packages) throws IOException {
+		Path testClassesPath = Paths.get(TARGET_PATH, "test-classes");
+		Map<String, ClassEntry> index = loadIndex();
+		Map<String, ClassEntry> updatedIndex = new HashMap<>(index);
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+
+		int scannedClasses = 0;
+		int cachedClasses = 0;
+		Set<Method> testMethods = new HashSet<>();
+		Map<String, TestMethodMetadata> metadataMap = new HashMap<>();
+		for (Path classFile : listClassFiles(testClassesPath, packages)) {
+			String indexKey = testClassesPath.relativize(classFile).toString();
+			long size = Files.size(classFile);
+			long lastModified = Files.getLastModifiedTime(classFile).toMillis();
+
+			ClassEntry entry = index.get(indexKey);
+			if (entry != null && entry.size == size && entry.lastModified == lastModified && entry.signatures != null) {
+				if (entry.methods.isEmpty()) {
+					cachedClasses++;
+					continue;
+				}
+
+				List<Method> methods = lookUpMethods(classLoader, entry);
+				if (methods != null) {
+					cachedClasses++;
+					testMethods.addAll(methods);
+					entry.methods.forEach(metadata -> metadataMap.put(metadata.getKey(), metadata));
+					continue;
+				}
+			}
+
+			entry = scanClass(classLoader, toClassName(indexKey), size, lastModified);
+			scannedClasses++;
+			if (entry == null) {
+				updatedIndex.remove(indexKey);
+				continue;
+			}
+			updatedIndex.put(indexKey, entry);
+			testMethods.addAll(entry.scannedMethods);
+			entry.methods.forEach(metadata -> metadataMap.put(metadata.getKey(), metadata));
+		}
+
+		// Remove the deleted class files
+		updatedIndex.keySet().removeIf(key -> !Files.exists(testClassesPath.resolve(key)));
+		frameworkLogger.info("Test discovery: {} classes loaded from index, {} classes scanned", cachedClasses, scannedClasses);
+		if (scannedClasses > 0 || updatedIndex.size() != index.size()) {
+			saveIndex(updatedIndex);
+		}
+
+		context.setGlobalVariables(TEST_METADATA_OBJECT, metadataMap);
+		return testMethods;
+	}
+
+	/**
+	 * Look up the test methods of an unchanged class by their indexed signatures
+	 *
+	 * @param classLoader class loader of the test classes
+	 * @param entry       index entry of the class
+	 * @return test methods, null if the class or a method is not found and the class needs to be scanned again
+	 */
+	private List<Method> lookUpMethods(ClassLoader classLoader, ClassEntry entry) {
+		try {
+			Class<?> testClass = Class.forName(entry.className, false, classLoader);
+			Set<String> signatures = new HashSet<>(entry.signatures);
+			List<Method> methods = Arrays.stream(testClass.getDeclaredMethods())
+					.filter(method -> signatures.contains(getSignature(method)))
+					.collect(Collectors.toList());
+
+			return methods.size() == signatures.size() ? methods : null;
+		} catch (ClassNotFoundException | LinkageError e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Get the signature of a method, its name and parameter type names, without loading the annotations
+	 *
+	 * @param method method
+	 * @return signature, e.g. testLogin(java.lang.String,int)
+	 */
+	@NotNull
+	private static String getSignature(@NotNull Method method) {
+		return Arrays.stream(method.getParameterTypes())
+				.map(Class::getName)
+				.collect(Collectors.joining(",", method.getName() + "(", ")"));
+	}
+
+	/**
+	 * Resolve the test methods from the index entries, and save the metadata to runtime context
+	 *
+	 * @param classLoader class loader of the test classes
+	 * @param testClasses class name, test method metadata map
+	 * @return Set of Methods
+	 */
+	private Set<Method> resolveTestMethods(ClassLoader classLoader, @NotNull Map<String, List<TestMethodMetadata>> testClasses) {
+		Set<Method> testMethods = new HashSet<>();
+		Map<String, TestMethodMetadata> metadataMap = new HashMap<>();
+
+		for (Map.Entry<String, List<TestMethodMetadata>> entry : testClasses.entrySet()) {
+			try {
+				Class<?> testClass = Class.forName(entry.getKey(), false, classLoader);
+				Set<String> methodNames = entry.getValue().stream()
+						.map(TestMethodMetadata::getMethodName)
+						.collect(Collectors.toSet());
+
+				for (Method method : testClass.getDeclaredMethods()) {
+					if (methodNames.contains(method.getName()) && method.isAnnotationPresent(Test.class)) {
+						testMethods.add(method);
+					}
+				}
+				entry.getValue().forEach(metadata -> metadataMap.put(metadata.getKey(), metadata));
+			} catch (ClassNotFoundException | LinkageError e) {
+				frameworkLogger.error("Failed to load test class [{}]", entry.getKey(), e);
+			}
+		}
+
+		context.setGlobalVariables(TEST_METADATA_OBJECT, metadataMap);
+		return testMethods;
+	}
+
+	/**
+	 * Scan the @Test methods of a class
+	 *
+	 * @param classLoader  class loader of the test classes
+	 * @param className    class name
+	 * @param size         size of the class file
+	 * @param lastModified last modified time of the class file
+	 * @return index entry of the class, null if the class cannot be loaded
+	 */
+	private ClassEntry scanClass(ClassLoader classLoader, String className, long size, long lastModified) {
+		try {
+			Class<?> testClass = Class.forName(className, false, classLoader);
+			List<Method> testMethods = Arrays.stream(testClass.getDeclaredMethods())
+					.filter(method -> method.isAnnotationPresent(Test.class))
+					.sorted(Comparator.comparing(TestDiscoveryIndex::getSignature))
+					.collect(Collectors.toList());
+			// Overloaded methods share the same metadata key
+			Map<String, TestMethodMetadata> methods = new TreeMap<>();
+			testMethods.forEach(method -> methods.putIfAbsent(method.getName(), TestMethodMetadata.from(method)));
+
+			ClassEntry entry = new ClassEntry(className, size, lastModified, new ArrayList<>(methods.values()),
+					testMethods.stream().map(TestDiscoveryIndex::getSignature).collect(Collectors.toList()));
+			entry.scannedMethods = testMethods;
+			return entry;
+		} catch (ClassNotFoundException | LinkageError e) {
+			frameworkLogger.warn("Skip scanning class [{}]: {}", className, e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * List the class files under the package folders
+	 *
+	 * @param testClassesPath test classes folder
+	 * @param packages        test packages
+	 * @return class files
+	 * @throws IOException exception when walking the folders
+	 */
+	@NotNull
+	private List<Path> listClassFiles(Path testClassesPath, @NotNull List<String> packages) throws IOException {
+		Set<Path> classFiles = new TreeSet<>();
+		for (String packageName : packages) {
+			Path packagePath = testClassesPath.resolve(packageName.replace('.', File.separatorChar));
+			if (!Files.isDirectory(packagePath)) {
+				frameworkLogger.warn("Test package folder [{}] does not exist", packagePath);
+				continue;
+			}
+
+			try (Stream<Path> paths = Files.walk(packagePath)) {
+				paths.filter(path -> path.toString().endsWith(CLASS_FILE_EXTENSION))
+						.filter(Files::isRegularFile)
+						.forEach(classFiles::add);
+			}
+		}
+
+		return new ArrayList<>(classFiles);
+	}
+
+	/**
+	 * Convert the class file path to class name
+	 *
+	 * @param relativePath class file path relative to the test classes folder
+	 * @return class name
+	 */
+	@NotNull
+	private String toClassName(@NotNull String relativePath) {
+		return relativePath
+				.substring(0, relativePath.length() - CLASS_FILE_EXTENSION.length())
+				.replace(File.separatorChar, '.');
+	}
+
+	/**
+	 * Load the index file
+	 *
+	 * @return class file path, index entry map
+	 */
+	@NotNull
+	private Map<String, ClassEntry> loadIndex() {
+		File indexFile = getIndexFile();
+		if (!indexFile.exists()) {
+			return new HashMap<>();
+		}
+
+		try (Reader reader = Files.newBufferedReader(indexFile.toPath(), StandardCharsets.UTF_8)) {
+			Map<String, ClassEntry> index = gson.fromJson(reader, new TypeToken<Map<String, ClassEntry>>() {
+			}.getType());
+			return index == null ? new HashMap<>() : index;
+		} catch (IOException | JsonParseException e) {
+			frameworkLogger.warn("Failed to load test discovery index from {}, rebuilding it.", indexFile, e);
+			return new HashMap<>();
+		}
+	}
+
+	/**
+	 * Save the index file
+	 *
+	 * @param index class file path, index entry map
+	 */
+	private void saveIndex(Map<String, ClassEntry> index) {
+		File indexFile = getIndexFile();
+		File parent = indexFile.getAbsoluteFile().getParentFile();
+		if (parent != null && !parent.exists() && !parent.mkdirs()) {
+			frameworkLogger.error("Failed to create directory [{}]!", parent);
+			return;
+		}
+
+		try (Writer writer = Files.newBufferedWriter(indexFile.toPath(), StandardCharsets.UTF_8)) {
+			gson.toJson(new TreeMap<>(index), writer);
+		} catch (IOException e) {
+			frameworkLogger.error("Failed to save test discovery index to {}", indexFile, e);
+		}
+	}
+
+	/**
+	 * ClassEntry - Index entry of a class file
+	 */
+	private static class ClassEntry {
+		private final String className;
+		private final long size;
+		private final long lastModified;
+		private final List<TestMethodMetadata> methods;
+		// Signatures of the test methods, null in the index files written before they were added
+		private final List<String> signatures;
+		// Methods found by the scan of this run, not saved
+		private transient List<Method> scannedMethods;
+
+		ClassEntry(String className, long size, long lastModified, List<TestMethodMetadata> methods, List<String> signatures) {
+			this.className = className;
+			this.size = size;
+			this.lastModified = lastModified;
+			this.methods = methods;
+			this.signatures = signatures;
+		}
+	}
+}
@@ -0,0 +1,213 @@
+package com.scmp.framework.executor;
+
+import com.scmp.framework.context.FrameworkConfigs;
+import com.scmp.framework.context.RunTimeContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.scmp.framework.utils.Constants.TARGET_PATH;
+
+/**
+ * TestDurationHistory - Keeps the execution time of each test method across runs,
+ * the history is stored as a properties file with key [class name]#[method name].
+ * While the tests are sharded by duration, the history file is read-only so that every node keeps the same split,
+ * the updated history of each node is written to target/test-durations-shard-[SHARD_INDEX].properties.
+ */
+@Component
+public class TestDurationHistory {
+	private static final Logger frameworkLogger = LoggerFactory.getLogger(TestDurationHistory.class);
+	private static final String DEFAULT_FILE_NAME = "test-durations.properties";
+	private static final String SHARD_FILE_NAME_FORMAT = "test-durations-shard-%d.properties";
+	// Weight of the latest execution when merging with the previous estimate
+	private static final double LATEST_RUN_WEIGHT = 0.5;
+
+	private final ConcurrentHashMap<String, Long> durations = new ConcurrentHashMap<>();
+	private final RunTimeContext context;
+	private volatile boolean isLoaded = false;
+
+	@Autowired
+	public TestDurationHistory(RunTimeContext context) {
+		this.context = context;
+	}
+
+	/**
+	 * Build the history key of a test method
+	 *
+	 * @param className  full class name
+	 * @param methodName method name
+	 * @return history key
+	 */
+	public static String getKey(String className, String methodName) {
+		return className + "#" + methodName;
+	}
+
+	/**
+	 * Get the history file path, default to target/test-durations.properties
+	 *
+	 * @return history file
+	 */
+	public File getHistoryFile() {
+		String path = context.getFrameworkConfigs().getTestDurationHistoryPath();
+		if (path == null || path.isEmpty()) {
+			path = TARGET_PATH + File.separator + DEFAULT_FILE_NAME;
+		}
+
+		return new File(path);
+	}
+
+	/**
+	 * Check if the history file is read-only, i.e. the tests are sharded by duration
+	 *
+	 * @return true if SHARD_STRATEGY is duration with more than one shard
+	 */
+	public boolean isReadOnly() {
+		FrameworkConfigs configs = context.getFrameworkConfigs();
+		return configs.getShardTotal() > 1 && TestSharder.STRATEGY_DURATION.equalsIgnoreCase(configs.getShardStrategy());
+	}
+
+	/**
+	 * Get the digest of the history, nodes with the same digest compute the same duration split
+	 *
+	 * @return first 12 hex digits of the SHA-256 of the sorted records
+	 */
+	public String getDigest() {
+		load();
+		StringBuilder records = new StringBuilder();
+		new TreeMap<>(durations).forEach((key, value) -> records.append(key).append('=').append(value).append('\n'));
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(records.toString().getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(hash).substring(0, 12);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Load the history file if it is not loaded yet
+	 */
+	public synchronized void load() {
+		if (isLoaded) {
+			return;
+		}
+
+		File historyFile = getHistoryFile();
+		if (historyFile.exists()) {
+			Properties properties = new Properties();
+			try (InputStream inputStream = new FileInputStream(historyFile)) {
+				properties.load(inputStream);
+				for (String key : properties.stringPropertyNames()) {
+					try {
+						durations.put(key, Long.parseLong(properties.getProperty(key).trim()));
+					} catch (NumberFormatException e) {
+						frameworkLogger.warn("Ignore invalid duration record [{}]", key);
+					}
+				}
+				frameworkLogger.info("Loaded {} test duration records from {}", durations.size(), historyFile);
+			} catch (IOException e) {
+				frameworkLogger.error("Failed to load test duration history from {}", historyFile, e);
+			}
+		}
+
+		isLoaded = true;
+	}
+
+	/**
+	 * Record the execution time of a test method
+	 *
+	 * @param className      full class name
+	 * @param methodName     method name
+	 * @param durationMillis execution time in milliseconds
+	 */
+	public void record(String className, String methodName, long durationMillis) {
+		load();
+		durations.merge(getKey(className, methodName), durationMillis,
+				(previous, latest) -> Math.round(previous * (1 - LATEST_RUN_WEIGHT) + latest * LATEST_RUN_WEIGHT));
+	}
+
+	/**
+	 * Estimate the execution time of a test method
+	 * 1. Use the history of the method if any
+	 * 2. Otherwise, use the average of the known methods in the same class
+	 * 3. Otherwise, use the average of all known methods
+	 *
+	 * @param className  full class name
+	 * @param methodName method name
+	 * @return estimated execution time in milliseconds, 0 if there is no history at all
+	 */
+	public long estimate(String className, String methodName) {
+		load();
+
+		Long duration = durations.get(getKey(className, methodName));
+		if (duration != null) {
+			return duration;
+		}
+
+		String classPrefix = className + "#";
+		OptionalDouble classAverage = durations.entrySet().stream()
+				.filter(entry -> entry.getKey().startsWith(classPrefix))
+				.mapToLong(Map.Entry::getValue)
+				.average();
+		if (classAverage.isPresent()) {
+			return Math.round(classAverage.getAsDouble());
+		}
+
+		return Math.round(durations.values().stream().mapToLong(Long::longValue).average().orElse(0));
+	}
+
+	/**
+	 * Check if there is any duration history
+	 *
+	 * @return true if there is any history
+	 */
+	public boolean hasHistory() {
+		load();
+		return !durations.isEmpty();
+	}
+
+	/**
+	 * Persist the history to file, to the shard file if the history file is read-only
+	 */
+	public synchronized void save() {
+		if (!isLoaded) {
+			// Nothing recorded in this run
+			return;
+		}
+
+		File historyFile = isReadOnly()
+				? new File(TARGET_PATH, String.format(SHARD_FILE_NAME_FORMAT, context.getFrameworkConfigs().getShardIndex()))
+				: getHistoryFile();
+		File parent = historyFile.getAbsoluteFile().getParentFile();
+		if (parent != null && !parent.exists() && !parent.mkdirs()) {
+			frameworkLogger.error("Failed to create directory [{}]!", parent);
+			return;
+		}
+
+		Properties properties = new Properties();
+		durations.forEach((key, value) -> properties.setProperty(key, String.valueOf(value)));
+
+		try (OutputStream outputStream = new FileOutputStream(historyFile)) {
+			properties.store(outputStream, "Test execution time in milliseconds");
+			frameworkLogger.info("Saved {} test duration records to {}", durations.size(), historyFile);
+		} catch (IOException e) {
+			frameworkLogger.error("Failed to save test duration history to {}", historyFile, e);
+		}
+	}
+}
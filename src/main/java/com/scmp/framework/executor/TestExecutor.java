@@ -1,11 +1,23 @@
 package com.scmp.framework.executor;
 
+import com.scmp.framework.annotations.LaunchBrowser;
+import com.scmp.framework.annotations.testrail.TestRailTestCase;
 import com.scmp.framework.context.RunTimeContext;
+import com.scmp.framework.services.BrowserCapabilityCache;
+import com.scmp.framework.services.CommandLatencyRecorder;
+import com.scmp.framework.services.DriverProvisioningService;
+import com.scmp.framework.services.SessionPrewarmer;
+import com.scmp.framework.services.TestPhaseProfiler;
+import com.scmp.framework.services.WebDriverService;
 import com.scmp.framework.testng.listeners.AnnotationTransformerListener;
+import com.scmp.framework.testng.listeners.DataProviderJournalInterceptor;
+import com.scmp.framework.testng.listeners.DurationAwareMethodInterceptor;
 import com.scmp.framework.testng.listeners.InvokedMethodListener;
+import com.scmp.framework.testng.listeners.SessionPrewarmInterceptor;
 import com.scmp.framework.testng.listeners.SuiteListener;
+import com.scmp.framework.testng.model.TestMethodMetadata;
+import com.scmp.framework.testrail.TestRailRunResolver;
 import com.scmp.framework.utils.Figlet;
-import io.github.bonigarcia.wdm.WebDriverManager;
 import org.jetbrains.annotations.NotNull;
 import org.reflections.Reflections;
 import org.reflections.scanners.MethodAnnotationsScanner;
@@ -14,8 +26,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.testng.IExecutorServiceFactory;
 import org.testng.TestNG;
+import org.testng.annotations.Test;
 import org.testng.xml.XmlClass;
+import org.testng.xml.XmlInclude;
 import org.testng.xml.XmlSuite;
 import org.testng.xml.XmlSuite.ParallelMode;
 import org.testng.xml.XmlTest;
@@ -28,6 +43,8 @@ import java.net.URI;
 import java.net.URL;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.stream.Collectors;
@@ -36,53 +53,53 @@ import static com.scmp.framework.utils.Constants.*;
 
 @Component
 public class TestExecutor {
+	private static final String BROWSERLESS_SUITE_NAME = "browserless";
 	private final RunTimeContext context;
+	private final DurationAwareScheduler scheduler;
+	private final TestDurationHistory durationHistory;
+	private final TestSharder testSharder;
+	private final TestDiscoveryIndex discoveryIndex;
+	private final TestConcurrencyLimiter concurrencyLimiter;
+	private final TestRailRunResolver testRailRunResolver;
+	private final ExecutionJournal executionJournal;
+	private final DriverProvisioningService driverProvisioningService;
+	private final WebDriverService webDriverService;
+	private final SessionPrewarmer sessionPrewarmer;
+	private final BrowserCapabilityCache capabilityCache;
+	private final CommandLatencyRecorder latencyRecorder;
+	private final TestPhaseProfiler phaseProfiler;
+	private final Map<String, List<Method>> discoveredTests = new HashMap<>();
 	private final List<String> packageList = new ArrayList<>();
+	private final List<SuiteExecutionResult> suiteResults = new CopyOnWriteArrayList<>();
 	private static final Logger frameworkLogger = LoggerFactory.getLogger(TestExecutor.class);
 
 	@Autowired
-	public TestExecutor(RunTimeContext context) {
+	public TestExecutor(RunTimeContext context, DurationAwareScheduler scheduler, TestDurationHistory durationHistory,
+						TestSharder testSharder, TestDiscoveryIndex discoveryIndex, TestConcurrencyLimiter concurrencyLimiter,
+						TestRailRunResolver testRailRunResolver, ExecutionJournal executionJournal,
+						DriverProvisioningService driverProvisioningService, WebDriverService webDriverService,
+						SessionPrewarmer sessionPrewarmer, BrowserCapabilityCache capabilityCache,
+						CommandLatencyRecorder latencyRecorder, TestPhaseProfiler phaseProfiler) {
 		this.context = context;
+		this.scheduler = scheduler;
+		this.durationHistory = durationHistory;
+		this.testSharder = testSharder;
+		this.discoveryIndex = discoveryIndex;
+		this.concurrencyLimiter = concurrencyLimiter;
+		this.testRailRunResolver = testRailRunResolver;
+		this.executionJournal = executionJournal;
+		this.driverProvisioningService = driverProvisioningService;
+		this.webDriverService = webDriverService;
+		this.sessionPrewarmer = sessionPrewarmer;
+		this.capabilityCache = capabilityCache;
+		this.latencyRecorder = latencyRecorder;
+		this.phaseProfiler = phaseProfiler;
 		if (this.context.isLocalExecutionMode()) {
-			prepareWebDriver();
+			// Resolve the drivers of the browsers in use, other drivers are resolved on first use
+			this.driverProvisioningService.provisionConfiguredBrowsers();
 		}
 	}
 
-	/**
-	 * Prepare Web driver for testing browser
-	 * e.g. download web driver, set environment variables
-	 */
-	private void prepareWebDriver() {
-		File directory = new File(context.getFrameworkConfigs().getDriverHome());
-		if (!directory.exists()) {
-			directory.mkdir();
-		}
-
-		System.setProperty(WDM_CACHE_PATH, context.getFrameworkConfigs().getDriverHome());
-		setupWebDriver(WebDriverManager.chromedriver(), CHROME_DRIVER_PATH, CHROME_DRIVER_VERSION);
-		setupWebDriver(WebDriverManager.firefoxdriver(), FIREFOX_DRIVER_PATH, FIREFOX_DRIVER_VERSION);
-	}
-
-	/**
-	 * Setup WebDriver and set global variable
-	 *
-	 * @param manager       	WebDriverManager instance
-	 * @param driverPathKey 	Key for the driver path
-	 * @param driverVersionKey 	Key for the driver version
-	 */
-	private void setupWebDriver(@NotNull WebDriverManager manager, String driverPathKey, String driverVersionKey) {
-		manager.setup();
-		String driverPath = manager.getDownloadedDriverPath();
-		String driverVersion = manager.getDownloadedDriverVersion();
-
-		// Set global variables for driver path and version
-		context.setGlobalVariables(driverPathKey, driverPath);
-		context.setGlobalVariables(driverVersionKey, driverVersion);
-
-		// Log both driver path and version in a consolidated message
-		frameworkLogger.info("WebDriver downloaded - Path: {}, Version: {}", driverPath, driverVersion);
-	}
-
 	/**
 	 * Run tests under specific packages and defined test classes
 	 *
@@ -92,27 +109,87 @@ public class TestExecutor {
 	 */
 	public boolean runTests(List<String> packages) throws Exception {
 		System.out.println("***************************************************");
+		this.packageList.clear();
 		this.packageList.addAll(packages);
 
-		List<URL> testPackagesUrls = getTestPackagesUrls();
-		Set<Method> testNGTests = findTestMethods(testPackagesUrls);
+		Set<Method> testNGTests = findTestMethods();
 		frameworkLogger.info("Total test methods found: {}", testNGTests.size());
-		Map<String, List<Method>> methods = createTestsMap(testNGTests);
+		discoveredTests.clear();
+		discoveredTests.putAll(createTestsMap(testNGTests));
+		executionJournal.open();
+		context.removeGlobalVariables(RUN_ABORTED_BY_SUITE);
+		Map<String, List<Method>> selectedTests = discoveredTests;
+		if (context.getFrameworkConfigs().isTestRailUploadTestResult()) {
+			selectedTests = resolveTestRailRun(discoveredTests);
+		}
 
-		ExecutorService executor = Executors.newCachedThreadPool();
-		List<FutureTask<Boolean>> list = new ArrayList<>();
+		Map<String, List<Method>> methods = new HashMap<>();
+		testSharder.shard(selectedTests).forEach((className, classMethods) -> methods.put(className, new ArrayList<>(classMethods)));
+		if (context.getFrameworkConfigs().isTestRailUploadTestResult()) {
+			setupTestRailRun(methods);
+		}
+		Map<String, List<Method>> browserlessMethods = context.getFrameworkConfigs().isBrowserlessTestLane()
+				? extractBrowserlessTests(methods)
+				: Collections.emptyMap();
 
 		String[] browsers = context.getFrameworkConfigs().getBrowserType().split(",");
-		for (String browser : browsers) {
-			XmlSuite suite = buildXmlSuite(browser, methods);
-			String suiteFile = writeTestNGFile(suite, "testsuite" + "-" + browser);
+		ExecutorService executor = Executors.newFixedThreadPool(browsers.length + 1);
+		CompletionService<SuiteExecutionResult> completionService = new ExecutorCompletionService<>(executor);
+		List<Future<SuiteExecutionResult>> futures = new ArrayList<>();
+
+		// Browserless tests run once in their own suite, in parallel with the browser suites
+		browserlessMethods = executionJournal.excludeCompleted(browserlessMethods, browsers[0]);
+		if (!browserlessMethods.isEmpty()) {
+			XmlSuite suite = buildBrowserlessXmlSuite(browsers[0], browserlessMethods);
+			String suiteFile = writeTestNGFile(suite, "testsuite" + "-" + BROWSERLESS_SUITE_NAME);
+
+			futures.add(completionService.submit(new TestExecutorService(BROWSERLESS_SUITE_NAME,
+					Collections.singletonList(suiteFile), context.getZoneId(), new VirtualThreadExecutorServiceFactory(BROWSERLESS_SUITE_NAME + "-"))));
+		}
 
-			FutureTask<Boolean> futureTask = new FutureTask<>(new TestExecutorService(suiteFile));
-			list.add(futureTask);
-			executor.submit(futureTask);
+		boolean unifiedRunMode = context.getFrameworkConfigs().isUnifiedRunMode();
+		if (!methods.isEmpty() || browserlessMethods.isEmpty()) {
+			List<String> suiteFiles = new ArrayList<>();
+			for (String browser : browsers) {
+				XmlSuite suite = buildXmlSuite(browser, executionJournal.excludeCompleted(methods, browser));
+				if (unifiedRunMode) {
+					suite.setName(suite.getName() + " - " + browser);
+				}
+				String suiteFile = writeTestNGFile(suite, "testsuite" + "-" + browser);
+
+				if (unifiedRunMode) {
+					suiteFiles.add(suiteFile);
+				} else {
+					futures.add(completionService.submit(new TestExecutorService(browser,
+							Collections.singletonList(suiteFile), context.getZoneId(), null)));
+				}
+			}
+
+			// All browser suites in one TestNG run, the concurrency is limited by the shared thread budget
+			if (unifiedRunMode) {
+				concurrencyLimiter.enable();
+				futures.add(completionService.submit(new TestExecutorService(String.join(",", browsers),
+						suiteFiles, context.getZoneId(), null)));
+			}
 		}
 
-		boolean hasFailure = waitForTestCompletion(executor, list);
+		boolean hasFailure;
+		try {
+			hasFailure = waitForTestCompletion(executor, completionService, futures);
+		} finally {
+			concurrencyLimiter.disable();
+			executionJournal.close();
+			sessionPrewarmer.clear();
+			capabilityCache.clear();
+			// Idle sessions are kept warm for the next run in daemon mode
+			if (!context.getFrameworkConfigs().isDaemonMode()) {
+				webDriverService.closeIdleSessions();
+			}
+			webDriverService.awaitTeardown();
+			latencyRecorder.writeSummary();
+			phaseProfiler.writeSummary();
+		}
+		durationHistory.save();
 		Figlet.print("Test Completed");
 
 		return hasFailure;
@@ -139,7 +216,31 @@ public class TestExecutor {
 	}
 
 	/**
-	 * Find test methods annotated with @Test
+	 * Find test methods annotated with @Test, from the index generated at compile time,
+	 * or the discovery index if enabled
+	 *
+	 * @return Set of Methods
+	 * @throws Exception exception
+	 */
+	private Set<Method> findTestMethods() throws Exception {
+		Optional<Set<Method>> indexedTestMethods = discoveryIndex.findIndexedTestMethods(packageList);
+		if (indexedTestMethods.isPresent()) {
+			return indexedTestMethods.get();
+		}
+
+		if (context.getFrameworkConfigs().isTestDiscoveryIndex()) {
+			try {
+				return discoveryIndex.findTestMethods(packageList);
+			} catch (IOException e) {
+				frameworkLogger.warn("Failed to scan tests with discovery index, fallback to classpath scanning.", e);
+			}
+		}
+
+		return findTestMethods(getTestPackagesUrls());
+	}
+
+	/**
+	 * Find test methods annotated with @Test by scanning the classpath
 	 *
 	 * @param testPackagesUrls List of URLs
 	 * @return Set of Methods
@@ -150,36 +251,62 @@ public class TestExecutor {
 	}
 
 	/**
-	 * Wait for the test completion
+	 * Wait for the test completion, suites are collected in the order they complete.
+	 * With FAIL_FAST_ON_SETUP_FAILURE, once a suite is aborted by a fatal error, the tests of the other suites which
+	 * have not started are skipped, the running tests complete and all the suites are still awaited.
 	 *
-	 * @param executor ExecutorService
-	 * @param list     List of FutureTask
+	 * @param executor          ExecutorService
+	 * @param completionService CompletionService of the suites
+	 * @param futures           List of submitted suites
 	 * @return boolean indicating if there was any failure
 	 * @throws InterruptedException exception
-	 * @throws ExecutionException   exception
 	 */
-	private boolean waitForTestCompletion(ExecutorService executor, @NotNull List<FutureTask<Boolean>> list) throws InterruptedException, ExecutionException {
-		while (true) {
-			boolean isDone = true;
-			for (FutureTask<Boolean> futureTask : list) {
-				isDone = isDone && futureTask.isDone();
-			}
+	private boolean waitForTestCompletion(ExecutorService executor,
+										  CompletionService<SuiteExecutionResult> completionService,
+										  @NotNull List<Future<SuiteExecutionResult>> futures) throws InterruptedException {
+		suiteResults.clear();
+		boolean hasFailure = false;
 
-			if (isDone) {
-				executor.shutdown();
-				break;
-			} else {
-				TimeUnit.SECONDS.sleep(1);
+		try {
+			for (int i = 0; i < futures.size(); i++) {
+				Future<SuiteExecutionResult> future = completionService.take();
+				try {
+					SuiteExecutionResult result = future.get();
+					suiteResults.add(result);
+					frameworkLogger.info("Suite [{}] completed at {}, duration: {} seconds, has failure: {}",
+							result.getSuiteName(), result.getCompletionTime(), result.getDuration().getSeconds(), result.isHasFailure());
+					hasFailure = hasFailure || result.isHasFailure() || result.isFatal();
+
+					if (result.isFatal() && context.getFrameworkConfigs().isFailFastOnSetupFailure()) {
+						frameworkLogger.error("Suite [{}] aborted, skipping the remaining tests of the other suites.",
+								result.getSuiteName(), result.getFatalError());
+						// Cancelling the future only interrupts the thread of TestNG.run, not the TestNG workers
+						context.setGlobalVariables(RUN_ABORTED_BY_SUITE, result.getSuiteName());
+					}
+				} catch (CancellationException e) {
+					frameworkLogger.warn("Suite cancelled.");
+					hasFailure = true;
+				} catch (ExecutionException e) {
+					frameworkLogger.error("Suite execution failed.", e.getCause());
+					hasFailure = true;
+				}
 			}
+		} finally {
+			executor.shutdownNow();
 		}
 
-		boolean hasFailure = false;
-		for (FutureTask<Boolean> result : list) {
-			hasFailure = hasFailure || result.get();
-		}
 		return hasFailure;
 	}
 
+	/**
+	 * Get the results of the suites in the last run, ordered by completion time
+	 *
+	 * @return suite results
+	 */
+	public List<SuiteExecutionResult> getSuiteResults() {
+		return Collections.unmodifiableList(suiteResults);
+	}
+
 	/**
 	 * Create the xml testng suite for execution
 	 *
@@ -195,6 +322,195 @@ public class TestExecutor {
 		return suite;
 	}
 
+	/**
+	 * Resolve the existing TestRail test run before sharding, so that the shards select from the same tests.
+	 * With an existing test run, only the tests matching TESTRAIL_TEST_STATUS_FILTER are selected.
+	 *
+	 * @param methods test class, test method map
+	 * @return test class, selected test method map
+	 */
+	private Map<String, List<Method>> resolveTestRailRun(@NotNull Map<String, List<Method>> methods) {
+		testRailRunResolver.reset();
+		Map<String, List<Method>> selectedTests = methods;
+
+		try {
+			// Results of the resumed execution go to the same test run
+			Optional<Integer> resumedTestRunId = executionJournal.getResumedTestRunId();
+			if (resumedTestRunId.isPresent()) {
+				testRailRunResolver.useTestRun(resumedTestRunId.get());
+			}
+
+			if (testRailRunResolver.resolveExistingTestRun().isPresent() && testRailRunResolver.getFilteredCaseIds() != null) {
+				selectedTests = filterByTestRailCases(methods, testRailRunResolver.getFilteredCaseIds());
+			}
+		} catch (Exception e) {
+			frameworkLogger.error("Failed to resolve Test Run in TestRail before building the suites.", e);
+		}
+
+		return selectedTests;
+	}
+
+	/**
+	 * Set up the TestRail test run before building the suites, so that all the suites share the same run.
+	 * A new test run only contains the cases of the tests in this shard, within INCLUDE_GROUPS and EXCLUDE_GROUPS.
+	 * If the test run cannot be set up here, SuiteListener retries it when the suite starts.
+	 *
+	 * @param methods test class, test method map of the shard
+	 */
+	private void setupTestRailRun(@NotNull Map<String, List<Method>> methods) {
+		try {
+			List<Integer> testCaseIds = methods.values().stream()
+					.flatMap(List::stream)
+					.filter(this::isInSelectedGroups)
+					.map(method -> method.getAnnotation(TestRailTestCase.class))
+					.filter(Objects::nonNull)
+					.map(TestRailTestCase::id)
+					.distinct()
+					.collect(Collectors.toList());
+			testRailRunResolver.setupTestRun(testCaseIds);
+			testRailRunResolver.getTestRun().ifPresent(testRun -> executionJournal.recordTestRun(testRun.getId()));
+		} catch (Exception e) {
+			frameworkLogger.error("Failed to setup Test Run in TestRail before building the suites.", e);
+		}
+	}
+
+	/**
+	 * Check if TestNG runs the test with INCLUDE_GROUPS and EXCLUDE_GROUPS,
+	 * groups of the class level @Test are included
+	 *
+	 * @param method test method
+	 * @return true if the test is in the included groups and not in the excluded groups
+	 */
+	private boolean isInSelectedGroups(Method method) {
+		List<String> groups = Arrays.asList(TestMethodMetadata.from(method).getGroups());
+		List<String> groupsInclude = splitGroups(context.getFrameworkConfigs().getIncludeGroups());
+		List<String> groupsExclude = splitGroups(context.getFrameworkConfigs().getExcludeGroups());
+
+		return (groupsInclude.isEmpty() || groups.stream().anyMatch(groupsInclude::contains))
+				&& groups.stream().noneMatch(groupsExclude::contains);
+	}
+
+	private static List<String> splitGroups(String groups) {
+		return Arrays.stream(groups.split("\\s*,\\s*"))
+				.map(String::trim)
+				.filter(group -> !group.isEmpty())
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Select the tests in the case id list, except the ones depending on excluded tests,
+	 * as TestNG would skip them anyway
+	 *
+	 * @param methods test class, test method map
+	 * @param caseIds TestRail case ids to run
+	 * @return test class, selected test method map
+	 */
+	private Map<String, List<Method>> filterByTestRailCases(@NotNull Map<String, List<Method>> methods, @NotNull Set<Integer> caseIds) {
+		Map<String, Method> selectedMethods = new HashMap<>();
+		Set<String> allMethods = new HashSet<>();
+		methods.forEach((className, classMethods) -> classMethods.forEach(method -> {
+			String key = className + "#" + method.getName();
+			allMethods.add(key);
+
+			TestRailTestCase testRailTestCase = method.getAnnotation(TestRailTestCase.class);
+			if (testRailTestCase != null && caseIds.contains(testRailTestCase.id())) {
+				selectedMethods.put(key, method);
+			}
+		}));
+
+		// Remove the tests depending on the excluded tests until nothing changes
+		boolean changed = true;
+		while (changed) {
+			changed = selectedMethods.entrySet().removeIf(entry -> {
+				Test test = entry.getValue().getAnnotation(Test.class);
+				String className = entry.getKey().substring(0, entry.getKey().indexOf('#'));
+				return test != null && Arrays.stream(test.dependsOnMethods())
+						.map(dependency -> TestSharder.resolveDependency(className, dependency))
+						.anyMatch(dependency -> allMethods.contains(dependency) && !selectedMethods.containsKey(dependency));
+			});
+		}
+
+		Map<String, List<Method>> selectedTests = new HashMap<>();
+		methods.forEach((className, classMethods) -> classMethods.stream()
+				.filter(method -> selectedMethods.containsKey(className + "#" + method.getName()))
+				.forEach(method -> selectedTests.computeIfAbsent(className, k -> new ArrayList<>()).add(method)));
+
+		frameworkLogger.info("TestRail filter: {} of {} test methods selected",
+				selectedTests.values().stream().mapToInt(List::size).sum(), methods.values().stream().mapToInt(List::size).sum());
+		return selectedTests;
+	}
+
+	/**
+	 * Create the xml testng suite for the tests without browser,
+	 * the tests are run on virtual threads with BROWSERLESS_THREAD_COUNT
+	 *
+	 * @param browser browser name, for the tests to read the browser parameter
+	 * @param methods browserless test methods
+	 * @return XML suite
+	 */
+	public XmlSuite buildBrowserlessXmlSuite(String browser, Map<String, List<Method>> methods) {
+		XmlSuite suite = buildXmlSuite(browser, methods);
+		suite.setName("Browserless Test Suite");
+		suite.setThreadCount(context.getFrameworkConfigs().getBrowserlessThreadCount());
+		return suite;
+	}
+
+	/**
+	 * Move the tests annotated with @LaunchBrowser(status = false) out of the test map.
+	 * Tests linked with other tests by dependsOnMethods or dependsOnGroups are kept,
+	 * TestNG cannot resolve the dependencies across suites.
+	 *
+	 * @param methods test class, test method map, browserless tests are removed from it
+	 * @return test class, browserless test method map
+	 */
+	private Map<String, List<Method>> extractBrowserlessTests(@NotNull Map<String, List<Method>> methods) {
+		Map<String, List<Method>> browserlessTests = new HashMap<>();
+
+		Iterator<Map.Entry<String, List<Method>>> iterator = methods.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<String, List<Method>> entry = iterator.next();
+			Set<String> dependencies = new HashSet<>();
+			entry.getValue().stream()
+					.map(method -> method.getAnnotation(Test.class))
+					.filter(Objects::nonNull)
+					.flatMap(test -> Arrays.stream(test.dependsOnMethods()))
+					.map(dependency -> dependency.substring(dependency.lastIndexOf('.') + 1))
+					.forEach(dependencies::add);
+
+			List<Method> classBrowserlessTests = entry.getValue().stream()
+					.filter(method -> isBrowserlessTest(method, dependencies))
+					.collect(Collectors.toList());
+			if (classBrowserlessTests.isEmpty()) {
+				continue;
+			}
+
+			browserlessTests.put(entry.getKey(), classBrowserlessTests);
+			entry.getValue().removeAll(classBrowserlessTests);
+			if (entry.getValue().isEmpty()) {
+				iterator.remove();
+			}
+		}
+
+		frameworkLogger.info("Browserless test methods: {}", browserlessTests.values().stream().mapToInt(List::size).sum());
+		return browserlessTests;
+	}
+
+	/**
+	 * Check if the test can be run without browser in the browserless suite
+	 *
+	 * @param method       test method
+	 * @param dependencies method names which the other tests in the class depend on
+	 * @return true if the test is browserless and independent
+	 */
+	private boolean isBrowserlessTest(@NotNull Method method, @NotNull Set<String> dependencies) {
+		LaunchBrowser launchBrowser = method.getAnnotation(LaunchBrowser.class);
+		Test test = method.getAnnotation(Test.class);
+
+		return launchBrowser != null && !launchBrowser.status()
+				&& test != null && test.dependsOnMethods().length == 0 && test.dependsOnGroups().length == 0
+				&& !dependencies.contains(method.getName());
+	}
+
 	/**
 	 * Initialize XML Suite
 	 *
@@ -213,7 +529,10 @@ public class TestExecutor {
 		List<String> listeners = Arrays.asList(
 				SuiteListener.class.getName(),
 				InvokedMethodListener.class.getName(),
-				AnnotationTransformerListener.class.getName()
+				AnnotationTransformerListener.class.getName(),
+				DataProviderJournalInterceptor.class.getName(),
+				DurationAwareMethodInterceptor.class.getName(),
+				SessionPrewarmInterceptor.class.getName()
 		);
 		suite.setListeners(listeners);
 		return suite;
@@ -243,17 +562,64 @@ public class TestExecutor {
 	/**
 	 * Create TestNG XML Class
 	 * (not handling methods, methods will be controlled by includes and excludes rules)
+	 * Classes are ordered by the estimated total duration, longest first
 	 *
 	 * @param methods all available test methods
 	 * @return TestNG XML class list
 	 */
 	public List<XmlClass> createXmlClassList(@NotNull Map<String, List<Method>> methods) {
-		return methods.keySet().stream()
+		List<String> classNames = methods.keySet().stream()
 				.filter(className -> !className.contains("TestRunner"))
-				.map(XmlClass::new)
+				.sorted()
+				.collect(Collectors.toList());
+
+		if (context.getFrameworkConfigs().isDurationAwareScheduling()) {
+			classNames = scheduler.sortLongestFirst(classNames, className -> estimateClassDuration(className, methods.get(className)));
+		}
+
+		return classNames.stream()
+				.map(className -> createXmlClass(className, methods.get(className)))
 				.collect(Collectors.toList());
 	}
 
+	/**
+	 * Create TestNG XML Class, include the methods explicitly only if
+	 * part of the methods in the class are selected, e.g. by sharding
+	 *
+	 * @param className test class name
+	 * @param methods   selected test methods of the class
+	 * @return TestNG XML class
+	 */
+	@NotNull
+	private XmlClass createXmlClass(String className, @NotNull List<Method> methods) {
+		XmlClass xmlClass = new XmlClass(className);
+		List<Method> allMethods = discoveredTests.get(className);
+
+		if (allMethods != null && methods.size() < allMethods.size()) {
+			List<XmlInclude> includes = new ArrayList<>();
+			methods.stream()
+					.map(Method::getName)
+					.distinct()
+					.forEach(methodName -> includes.add(new XmlInclude(methodName, includes.size())));
+			xmlClass.setIncludedMethods(includes);
+		}
+
+		return xmlClass;
+	}
+
+	/**
+	 * Estimate the total duration of the test methods in a class
+	 *
+	 * @param className test class name
+	 * @param methods   test methods of the class
+	 * @return estimated duration in milliseconds
+	 */
+	private long estimateClassDuration(String className, @NotNull List<Method> methods) {
+		return methods.stream()
+				.mapToLong(method -> scheduler.estimate(className, method.getName()))
+				.sum();
+	}
+
 	/**
 	 * Write the XML suite to target folder
 	 *
@@ -284,28 +650,56 @@ public class TestExecutor {
 	public Map<String, List<Method>> createTestsMap(@NotNull Set<Method> methods) {
 		Map<String, List<Method>> testsMap = new HashMap<>();
 		methods.forEach(method -> {
-			String className = method.getDeclaringClass().getPackage().getName() + "." + method.getDeclaringClass().getSimpleName();
-			testsMap.computeIfAbsent(className, k -> new ArrayList<>()).add(method);
+			testsMap.computeIfAbsent(getClassKey(method), k -> new ArrayList<>()).add(method);
 		});
 		return testsMap;
 	}
-}
 
-class TestExecutorService implements Callable<Boolean> {
-	private final String suite;
+	/**
+	 * Get the class key of the test method, the key of the test map. The execution journal and the duration history
+	 * are keyed by it as well, so that the recorded tests match the tests to exclude, order and shard
+	 *
+	 * @param method test method
+	 * @return class key of the test method
+	 */
+	public static String getClassKey(@NotNull Method method) {
+		return method.getDeclaringClass().getPackage().getName() + "." + method.getDeclaringClass().getSimpleName();
+	}
+}
 
-	public TestExecutorService(String file) {
-		suite = file;
+class TestExecutorService implements Callable<SuiteExecutionResult> {
+	private static final Logger frameworkLogger = LoggerFactory.getLogger(TestExecutorService.class);
+	private final String suiteName;
+	private final List<String> suiteFiles;
+	private final ZoneId zoneId;
+	// Factory of the TestNG worker pools, null to use the TestNG default
+	private final IExecutorServiceFactory executorServiceFactory;
+
+	public TestExecutorService(String suiteName, List<String> suiteFiles, ZoneId zoneId, IExecutorServiceFactory executorServiceFactory) {
+		this.suiteName = suiteName;
+		this.suiteFiles = suiteFiles;
+		this.zoneId = zoneId;
+		this.executorServiceFactory = executorServiceFactory;
 	}
 
 	@Override
-	public Boolean call() {
-		List<String> suiteFiles = Collections.singletonList(suite);
+	public SuiteExecutionResult call() {
+		LocalDateTime startTime = LocalDateTime.now(zoneId);
 
 		TestNG testNG = new TestNG();
 		testNG.setTestSuites(suiteFiles);
-		testNG.run();
+		// Suites in the same run are executed in parallel
+		testNG.setSuiteThreadPoolSize(suiteFiles.size());
+		if (executorServiceFactory != null) {
+			testNG.setExecutorServiceFactory(executorServiceFactory);
+		}
+		try {
+			testNG.run();
+		} catch (Exception e) {
+			frameworkLogger.error("Suite [{}] is aborted.", suiteName, e);
+			return new SuiteExecutionResult(suiteName, String.join(",", suiteFiles), startTime, LocalDateTime.now(zoneId), true, e);
+		}
 
-		return testNG.hasFailure();
+		return new SuiteExecutionResult(suiteName, String.join(",", suiteFiles), startTime, LocalDateTime.now(zoneId), testNG.hasFailure(), null);
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,256 @@
+package com.scmp.framework.executor;
+
+import com.scmp.framework.context.FrameworkConfigs;
+import com.scmp.framework.context.RunTimeContext;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * TestSharder - Splits the test methods between CI nodes deterministically,
+ * i.e. every node gets the same split from the same set of tests.
+ * Methods linked by dependsOnMethods are always kept on the same shard.
+ * The duration split also needs the same history on every node, pinned by TEST_DURATION_HISTORY_PATH.
+ */
+@Component
+public class TestSharder {
+	private static final Logger frameworkLogger = LoggerFactory.getLogger(TestSharder.class);
+	public static final String STRATEGY_HASH = "hash";
+	public static final String STRATEGY_DURATION = "duration";
+
+	private final RunTimeContext context;
+	private final DurationAwareScheduler scheduler;
+	private final TestDurationHistory durationHistory;
+
+	@Autowired
+	public TestSharder(RunTimeContext context, DurationAwareScheduler scheduler, TestDurationHistory durationHistory) {
+		this.context = context;
+		this.scheduler = scheduler;
+		this.durationHistory = durationHistory;
+	}
+
+	/**
+	 * Check if sharding is enabled
+	 *
+	 * @return true if SHARD_TOTAL is greater than 1
+	 */
+	public boolean isEnabled() {
+		return context.getFrameworkConfigs().getShardTotal() > 1;
+	}
+
+	/**
+	 * Get the test methods of current shard
+	 *
+	 * @param methods test class, test method map
+	 * @return test class, test method map of current shard
+	 */
+	public Map<String, List<Method>> shard(@NotNull Map<String, List<Method>> methods) {
+		if (!isEnabled()) {
+			return methods;
+		}
+
+		FrameworkConfigs configs = context.getFrameworkConfigs();
+		int shardIndex = configs.getShardIndex();
+		int shardTotal = configs.getShardTotal();
+		if (shardIndex < 0 || shardIndex >= shardTotal) {
+			throw new IllegalArgumentException(
+					String.format("Invalid shard setting: SHARD_INDEX=[%s], SHARD_TOTAL=[%s]", shardIndex, shardTotal));
+		}
+
+		boolean byDuration = STRATEGY_DURATION.equalsIgnoreCase(configs.getShardStrategy());
+		if (byDuration) {
+			validateDurationHistory(configs);
+		}
+
+		List<List<MethodKey>> units = createShardUnits(methods);
+		Map<List<MethodKey>, Integer> assignments = byDuration
+				? assignByDuration(units, shardTotal)
+				: assignByHash(units, shardTotal);
+
+		Map<String, List<Method>> shardMethods = new HashMap<>();
+		assignments.forEach((unit, shard) -> {
+			if (shard == shardIndex) {
+				unit.forEach(key -> shardMethods.computeIfAbsent(key.className, k -> new ArrayList<>()).add(key.method));
+			}
+		});
+
+		int total = methods.values().stream().mapToInt(List::size).sum();
+		int selected = shardMethods.values().stream().mapToInt(List::size).sum();
+		frameworkLogger.info("Shard {}/{} ({} strategy): {} of {} test methods selected",
+				shardIndex, shardTotal, configs.getShardStrategy(), selected, total);
+
+		return shardMethods;
+	}
+
+	/**
+	 * Check that the duration split reads a pinned history file, the default file under target is rewritten by every run,
+	 * and log its digest, nodes with different digests do not get complementary splits
+	 *
+	 * @param configs framework configs
+	 */
+	private void validateDurationHistory(@NotNull FrameworkConfigs configs) {
+		String historyPath = configs.getTestDurationHistoryPath();
+		if (historyPath == null || historyPath.isEmpty()) {
+			throw new IllegalArgumentException("SHARD_STRATEGY=duration needs TEST_DURATION_HISTORY_PATH, the same history file on every node");
+		}
+		if (!durationHistory.getHistoryFile().isFile()) {
+			throw new IllegalArgumentException(String.format("Duration history [%s] not found, SHARD_STRATEGY=duration needs it on every node", historyPath));
+		}
+
+		frameworkLogger.info("Shard by duration history [{}], digest: {}, every node must log the same digest",
+				historyPath, durationHistory.getDigest());
+	}
+
+	/**
+	 * Group the methods into units which cannot be split, i.e. methods linked by dependsOnMethods
+	 *
+	 * @param methods test class, test method map
+	 * @return units sorted by the first method key
+	 */
+	private List<List<MethodKey>> createShardUnits(@NotNull Map<String, List<Method>> methods) {
+		// Overloaded methods share the same key, as TestNG includes methods by name
+		Map<String, List<MethodKey>> keys = new TreeMap<>();
+		methods.forEach((className, classMethods) -> classMethods.forEach(method -> {
+			MethodKey key = new MethodKey(className, method);
+			keys.computeIfAbsent(key.toString(), k -> new ArrayList<>()).add(key);
+		}));
+
+		// Union-find on the dependsOnMethods relationships
+		Map<String, String> parents = new HashMap<>();
+		keys.keySet().forEach(key -> parents.put(key, key));
+		for (MethodKey key : keys.values().stream().flatMap(List::stream).toList()) {
+			Test test = key.method.getAnnotation(Test.class);
+			if (test == null) {
+				continue;
+			}
+
+			for (String dependency : test.dependsOnMethods()) {
+				String dependencyKey = resolveDependency(key.className, dependency);
+				if (parents.containsKey(dependencyKey)) {
+					union(parents, key.toString(), dependencyKey);
+				}
+			}
+		}
+
+		// Keys are iterated in sorted order, so the units are in deterministic order
+		Map<String, List<MethodKey>> units = new LinkedHashMap<>();
+		keys.forEach((name, sameNameKeys) -> units.computeIfAbsent(find(parents, name), k -> new ArrayList<>()).addAll(sameNameKeys));
+		List<List<MethodKey>> unitList = new ArrayList<>(units.values());
+		unitList.sort(Comparator.comparing(unit -> unit.get(0).toString()));
+
+		return unitList;
+	}
+
+	/**
+	 * Assign the units to shards by the stable hash of the first method in the unit
+	 *
+	 * @param units      shard units
+	 * @param shardTotal number of shards
+	 * @return unit, shard index map
+	 */
+	private Map<List<MethodKey>, Integer> assignByHash(@NotNull List<List<MethodKey>> units, int shardTotal) {
+		Map<List<MethodKey>, Integer> assignments = new IdentityHashMap<>();
+		// String.hashCode is specified by the JLS, so it is identical on every node
+		units.forEach(unit -> assignments.put(unit, Math.floorMod(unit.get(0).toString().hashCode(), shardTotal)));
+		return assignments;
+	}
+
+	/**
+	 * Assign the units to shards by the duration history, longest unit to the least loaded shard
+	 *
+	 * @param units      shard units
+	 * @param shardTotal number of shards
+	 * @return unit, shard index map
+	 */
+	private Map<List<MethodKey>, Integer> assignByDuration(@NotNull List<List<MethodKey>> units, int shardTotal) {
+		Map<List<MethodKey>, Long> unitDurations = new IdentityHashMap<>();
+		units.forEach(unit -> unitDurations.put(unit, unit.stream()
+				.mapToLong(key -> scheduler.estimate(key.className, key.method.getName()))
+				.sum()));
+
+		// Sort is stable, units with the same duration keep the key order
+		List<List<MethodKey>> sortedUnits = new ArrayList<>(units);
+		sortedUnits.sort(Comparator.comparingLong((List<MethodKey> unit) -> unitDurations.get(unit)).reversed());
+
+		long[] shardLoads = new long[shardTotal];
+		int[] shardSizes = new int[shardTotal];
+		Map<List<MethodKey>, Integer> assignments = new IdentityHashMap<>();
+		for (List<MethodKey> unit : sortedUnits) {
+			int target = 0;
+			for (int i = 1; i < shardTotal; i++) {
+				// Balance by the number of methods when there is no duration history
+				if (shardLoads[i] < shardLoads[target]
+						|| (shardLoads[i] == shardLoads[target] && shardSizes[i] < shardSizes[target])) {
+					target = i;
+				}
+			}
+
+			shardLoads[target] += unitDurations.get(unit);
+			shardSizes[target] += unit.size();
+			assignments.put(unit, target);
+		}
+
+		return assignments;
+	}
+
+	/**
+	 * Resolve the method key of dependsOnMethods value,
+	 * which can be a method name or a fully qualified method name
+	 *
+	 * @param className  class of the dependent method
+	 * @param dependency dependsOnMethods value
+	 * @return method key
+	 */
+	static String resolveDependency(String className, @NotNull String dependency) {
+		int index = dependency.lastIndexOf('.');
+		if (index < 0) {
+			return className + "#" + dependency;
+		}
+
+		return dependency.substring(0, index) + "#" + dependency.substring(index + 1);
+	}
+
+	private String find(Map<String, String> parents, String key) {
+		String root = key;
+		while (!parents.get(root).equals(root)) {
+			root = parents.get(root);
+		}
+		parents.put(key, root);
+		return root;
+	}
+
+	private void union(Map<String, String> parents, String key1, String key2) {
+		String root1 = find(parents, key1);
+		String root2 = find(parents, key2);
+		// Keep the smaller key as root, so that the result does not depend on the iteration order
+		if (root1.compareTo(root2) < 0) {
+			parents.put(root2, root1);
+		} else if (root1.compareTo(root2) > 0) {
+			parents.put(root1, root2);
+		}
+	}
+
+	/**
+	 * MethodKey - Test method with its class name in the test map
+	 */
+	private static class MethodKey {
+		private final String className;
+		private final Method method;
+
+		MethodKey(String className, Method method) {
+			this.className = className;
+			this.method = method;
+		}
+
+		@Override
+		public String toString() {
+			return className + "#" + method.getName();
+		}
+	}
+}
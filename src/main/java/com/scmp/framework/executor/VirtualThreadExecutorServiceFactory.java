@@ -0,0 +1,25 @@
+package com.scmp.framework.executor;
+
+import org.testng.IExecutorServiceFactory;
+
+import java.util.concurrent.*;
+
+/**
+ * VirtualThreadExecutorServiceFactory - Creates the TestNG worker pools on virtual threads,
+ * for the I/O bound tests which do not need a browser session.
+ */
+public class VirtualThreadExecutorServiceFactory implements IExecutorServiceFactory {
+	private final String threadNamePrefix;
+
+	public VirtualThreadExecutorServiceFactory(String threadNamePrefix) {
+		this.threadNamePrefix = threadNamePrefix;
+	}
+
+	@Override
+	public ExecutorService create(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit,
+								  BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory) {
+		// TestNG dispatches the methods through the work queue, so the queue has to be kept
+		ThreadFactory virtualThreadFactory = Thread.ofVirtual().name(threadNamePrefix, 0).factory();
+		return new ThreadPoolExecutor(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, virtualThreadFactory);
+	}
+}
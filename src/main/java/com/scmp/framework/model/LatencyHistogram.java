@@ -0,0 +1,79 @@
+package com.scmp.framework.model;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram - Lock-free latency histogram with power of two buckets in microseconds.
+ * Percentiles are the upper bound of the bucket, capped at the max, so they are at most 2x the exact value.
+ */
+public class LatencyHistogram {
+	private static final int BUCKET_COUNT = 64;
+
+	private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+	private final LongAdder count = new LongAdder();
+	private final LongAdder totalMicros = new LongAdder();
+	private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+	public LatencyHistogram() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			buckets[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Record a latency
+	 *
+	 * @param nanos latency in nanoseconds
+	 */
+	public void record(long nanos) {
+		long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+		buckets[BUCKET_COUNT - 1 - Long.numberOfLeadingZeros(micros | 1)].increment();
+		count.increment();
+		totalMicros.add(micros);
+		maxMicros.accumulate(micros);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public double getTotalMillis() {
+		return totalMicros.sum() / 1000.0;
+	}
+
+	public double getMeanMillis() {
+		long samples = count.sum();
+		return samples == 0 ? 0 : totalMicros.sum() / 1000.0 / samples;
+	}
+
+	public double getMaxMillis() {
+		return maxMicros.get() / 1000.0;
+	}
+
+	/**
+	 * Get the percentile
+	 *
+	 * @param percentile percentile between 0 and 100
+	 * @return latency in milliseconds
+	 */
+	public double getPercentileMillis(double percentile) {
+		long samples = count.sum();
+		if (samples == 0) {
+			return 0;
+		}
+
+		long rank = (long) Math.ceil(samples * percentile / 100.0);
+		long cumulative = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			cumulative += buckets[i].sum();
+			if (cumulative >= rank) {
+				long upperBoundMicros = i >= BUCKET_COUNT - 2 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+				return Math.min(upperBoundMicros, maxMicros.get()) / 1000.0;
+			}
+		}
+
+		return getMaxMillis();
+	}
+}
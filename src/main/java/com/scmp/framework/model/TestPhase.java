@@ -0,0 +1,29 @@
+package com.scmp.framework.model;
+
+/**
+ * TestPhase - Phases of the lifecycle of a test, measured by the test phase profiler
+ */
+public enum TestPhase {
+	// TestInfo construction, options and annotations of the test
+	TEST_INFO,
+	// Driver session acquisition, including the retries
+	SESSION_ACQUISITION,
+	// Test node creation in the report
+	REPORTER_SETUP,
+	// Test method, excluding the screenshots and the smart waits
+	TEST_BODY,
+	// Explicit waits of the smart wait engine
+	EXPLICIT_WAIT,
+	// Screenshot capture, during the test and on failure
+	SCREENSHOT,
+	// Result logging to the report, excluding the flush and the TestRail upload
+	REPORT_RESULTS,
+	// Report flush to the disk
+	REPORT_FLUSH,
+	// TestRail result upload
+	TESTRAIL_UPLOAD,
+	// Driver session stop
+	DRIVER_STOP,
+	// Time not in any other phase, e.g. the wait for a thread slot
+	OTHER
+}
@@ -0,0 +1,303 @@
+package com.scmp.framework.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * TestMetadataIndexProcessor - Generates the index of the @Test methods when compiling the tests,
+ * so that the test methods and their annotations can be loaded without scanning the classpath.
+ * Annotations are matched by name, the processor does not depend on the framework classes.
+ */
+@SupportedAnnotationTypes(TestMetadataIndexProcessor.TEST_ANNOTATION)
+public class TestMetadataIndexProcessor extends AbstractProcessor {
+	static final String TEST_ANNOTATION = "org.testng.annotations.Test";
+	private static final String ANNOTATION_PACKAGE = "com.scmp.framework.annotations.";
+	private static final String DEVICE_ANNOTATION = ANNOTATION_PACKAGE + "screens.Device";
+	private static final String DEVICE_NAME_CLASS = ANNOTATION_PACKAGE + "screens.DeviceName";
+	private static final String OTHER_DEVICE = "OtherDevice";
+	private static final String INDEX_INTERFACE = "com.scmp.framework.testng.model.TestMetadataIndex";
+	private static final String METADATA_CLASS = "com.scmp.framework.testng.model.TestMethodMetadata";
+	public static final String INDEX_PACKAGE = "com.scmp.framework.generated";
+	public static final String INDEX_CLASS = "GeneratedTestMetadataIndex";
+	// Keep the generated methods away from the 64KB method size limit
+	private static final int METHODS_PER_CHUNK = 100;
+
+	private final Map<String, String> indexEntries = new TreeMap<>();
+	// Classes compiled with the index, to detect an index generated by an incremental compilation
+	private final Set<String> compiledClasses = new TreeSet<>();
+	private boolean indexWritten = false;
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		if (roundEnv.processingOver()) {
+			return false;
+		}
+
+		if (!indexWritten) {
+			for (Element element : roundEnv.getRootElements()) {
+				if (element instanceof TypeElement) {
+					compiledClasses.add(processingEnv.getElementUtils().getBinaryName((TypeElement) element).toString());
+				}
+			}
+		}
+
+		for (TypeElement annotation : annotations) {
+			for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+				if (element.getKind() == ElementKind.METHOD) {
+					addIndexEntry((ExecutableElement) element);
+				}
+			}
+		}
+
+		// Written in the round of the source files, so that the index class is compiled without warning.
+		// Test classes generated by other processors in the later rounds are not indexed.
+		if (!indexEntries.isEmpty()) {
+			if (!indexWritten) {
+				writeIndex();
+				indexWritten = true;
+			} else {
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+						"Test methods in generated sources are not included in the test metadata index.");
+			}
+			indexEntries.clear();
+		}
+
+		// Do not claim the TestNG annotation, other processors may need it
+		return false;
+	}
+
+	/**
+	 * Create the metadata expression of a test method
+	 *
+	 * @param method test method
+	 */
+	private void addIndexEntry(ExecutableElement method) {
+		Elements elements = processingEnv.getElementUtils();
+		TypeElement testClass = (TypeElement) method.getEnclosingElement();
+		String className = elements.getBinaryName(testClass).toString();
+		String methodName = method.getSimpleName().toString();
+
+		// Groups from both class level and method level
+		Set<String> groups = new LinkedHashSet<>();
+		AnnotationMirror classLevelTest = findAnnotation(testClass, TEST_ANNOTATION);
+		if (classLevelTest != null) {
+			groups.addAll(getStringArray(classLevelTest, "groups"));
+		}
+		AnnotationMirror test = findAnnotation(method, TEST_ANNOTATION);
+		groups.addAll(getStringArray(test, "groups"));
+		List<String> dependsOnMethods = getStringArray(test, "dependsOnMethods");
+
+		AnnotationMirror testRailTestCase = findAnnotation(method, ANNOTATION_PACKAGE + "testrail.TestRailTestCase");
+		AnnotationMirror launchBrowser = findAnnotation(method, ANNOTATION_PACKAGE + "LaunchBrowser");
+		AnnotationMirror retryCount = findAnnotation(method, ANNOTATION_PACKAGE + "RetryCount");
+		AnnotationMirror device = findAnnotation(method, DEVICE_ANNOTATION);
+
+		String testRailCaseId = testRailTestCase == null ? "null" : getValue(testRailTestCase, "id").toString();
+		boolean needLaunchBrowser = launchBrowser == null || (Boolean) getValue(launchBrowser, "status");
+		String maxRetryCount = retryCount == null ? "null" : getValue(retryCount, "maxRetryCount").toString();
+
+		String deviceWidth = "0";
+		String deviceHeight = "0";
+		if (device != null) {
+			String deviceName = ((VariableElement) getValue(device, "device")).getSimpleName().toString();
+			if (OTHER_DEVICE.equals(deviceName)) {
+				deviceWidth = getValue(device, "width").toString();
+				deviceHeight = getValue(device, "height").toString();
+			} else {
+				deviceWidth = DEVICE_NAME_CLASS + "." + deviceName + ".width";
+				deviceHeight = DEVICE_NAME_CLASS + "." + deviceName + ".height";
+			}
+		}
+
+		String entry = String.format("new %s(%s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s)",
+				METADATA_CLASS,
+				quote(className),
+				quote(methodName),
+				toArrayExpression(groups),
+				toArrayExpression(dependsOnMethods),
+				testRailCaseId,
+				needLaunchBrowser,
+				findAnnotation(method, ANNOTATION_PACKAGE + "ChromeOnly") != null,
+				findAnnotation(method, ANNOTATION_PACKAGE + "FirefoxOnly") != null,
+				maxRetryCount,
+				deviceWidth,
+				deviceHeight);
+
+		// Overloaded methods share the same key, as TestNG includes methods by name
+		indexEntries.put(className + "#" + methodName, entry);
+	}
+
+	/**
+	 * Write the index class and register it as service
+	 */
+	private void writeIndex() {
+		String qualifiedName = INDEX_PACKAGE + "." + INDEX_CLASS;
+		List<String> entries = new ArrayList<>(indexEntries.values());
+
+		try {
+			JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(qualifiedName);
+			try (PrintWriter writer = new PrintWriter(sourceFile.openWriter())) {
+				writer.println("package " + INDEX_PACKAGE + ";");
+				writer.println();
+				writer.println("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")");
+				writer.println("public final class " + INDEX_CLASS + " implements " + INDEX_INTERFACE + " {");
+				writer.println();
+				writer.println("\t@Override");
+				writer.println("\tpublic java.util.List<" + METADATA_CLASS + "> getTestMethods() {");
+				writer.println("\t\tjava.util.List<" + METADATA_CLASS + "> methods = new java.util.ArrayList<>(" + entries.size() + ");");
+				int chunks = (entries.size() + METHODS_PER_CHUNK - 1) / METHODS_PER_CHUNK;
+				for (int i = 0; i < chunks; i++) {
+					writer.println("\t\taddChunk" + i + "(methods);");
+				}
+				writer.println("\t\treturn methods;");
+				writer.println("\t}");
+
+				List<String> classes = new ArrayList<>(compiledClasses);
+				int classChunks = (classes.size() + METHODS_PER_CHUNK - 1) / METHODS_PER_CHUNK;
+				writer.println();
+				writer.println("\t@Override");
+				writer.println("\tpublic java.util.Set<String> getCompiledClasses() {");
+				writer.println("\t\tjava.util.Set<String> classes = new java.util.HashSet<>(" + classes.size() * 2 + ");");
+				for (int i = 0; i < classChunks; i++) {
+					writer.println("\t\taddClassChunk" + i + "(classes);");
+				}
+				writer.println("\t\treturn classes;");
+				writer.println("\t}");
+
+				for (int i = 0; i < chunks; i++) {
+					writer.println();
+					writer.println("\tprivate static void addChunk" + i + "(java.util.List<" + METADATA_CLASS + "> methods) {");
+					for (String entry : entries.subList(i * METHODS_PER_CHUNK, Math.min(entries.size(), (i + 1) * METHODS_PER_CHUNK))) {
+						writer.println("\t\tmethods.add(" + entry + ");");
+					}
+					writer.println("\t}");
+				}
+
+				for (int i = 0; i < classChunks; i++) {
+					writer.println();
+					writer.println("\tprivate static void addClassChunk" + i + "(java.util.Set<String> classes) {");
+					for (String className : classes.subList(i * METHODS_PER_CHUNK, Math.min(classes.size(), (i + 1) * METHODS_PER_CHUNK))) {
+						writer.println("\t\tclasses.add(" + quote(className) + ");");
+					}
+					writer.println("\t}");
+				}
+				writer.println("}");
+			}
+
+			FileObject serviceFile = processingEnv.getFiler()
+					.createResource(StandardLocation.CLASS_OUTPUT, "", "META-INF/services/" + INDEX_INTERFACE);
+			try (Writer writer = serviceFile.openWriter()) {
+				writer.write(qualifiedName + System.lineSeparator());
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+					"Failed to generate test metadata index: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Find the annotation of an element by the annotation class name
+	 *
+	 * @param element        annotated element
+	 * @param annotationName full class name of the annotation
+	 * @return annotation mirror, null if not found
+	 */
+	private AnnotationMirror findAnnotation(Element element, String annotationName) {
+		for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+			TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+			if (annotationType.getQualifiedName().contentEquals(annotationName)) {
+				return mirror;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Get the value of an annotation attribute, including the default value
+	 *
+	 * @param mirror    annotation mirror
+	 * @param attribute attribute name
+	 * @return attribute value
+	 */
+	private Object getValue(AnnotationMirror mirror, String attribute) {
+		Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+				processingEnv.getElementUtils().getElementValuesWithDefaults(mirror);
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+			if (entry.getKey().getSimpleName().contentEquals(attribute)) {
+				return entry.getValue().getValue();
+			}
+		}
+
+		throw new IllegalArgumentException("Attribute not found: " + attribute);
+	}
+
+	/**
+	 * Get the value of a String array annotation attribute
+	 *
+	 * @param mirror    annotation mirror
+	 * @param attribute attribute name
+	 * @return attribute values
+	 */
+	private List<String> getStringArray(AnnotationMirror mirror, String attribute) {
+		List<String> result = new ArrayList<>();
+		Object value = getValue(mirror, attribute);
+		if (value instanceof List<?> list) {
+			for (Object item : list) {
+				result.add(((AnnotationValue) item).getValue().toString());
+			}
+		}
+
+		return result;
+	}
+
+	private String toArrayExpression(Collection<String> values) {
+		StringJoiner joiner = new StringJoiner(", ", "new String[]{", "}");
+		values.forEach(value -> joiner.add(quote(value)));
+		return joiner.toString();
+	}
+
+	private String quote(String value) {
+		StringBuilder builder = new StringBuilder("\"");
+		for (char c : value.toCharArray()) {
+			switch (c) {
+				case '"':
+					builder.append("\\\"");
+					break;
+				case '\\':
+					builder.append("\\\\");
+					break;
+				case '\n':
+					builder.append("\\n");
+					break;
+				case '\r':
+					builder.append("\\r");
+					break;
+				case '\t':
+					builder.append("\\t");
+					break;
+				default:
+					builder.append(c);
+			}
+		}
+
+		return builder.append('"').toString();
+	}
+}
@@ -45,6 +45,13 @@ public class ExtentManager {
 		return extent;
 	}
 
+	/**
+	 * Reset the ExtentReports instance, the next test creates a new report, e.g. a new run in daemon mode.
+	 */
+	public synchronized void reset() {
+		extent = null;
+	}
+
 	/**
 	 * Create and configure the ExtentHtmlReporter.
 	 *
@@ -63,6 +70,12 @@ public class ExtentManager {
 		// Make the charts visible on report open
 		htmlReporter.config().setChartVisibilityOnOpen(true);
 
+		// Merge the results into the report of the resumed execution
+		String resumeFrom = runTimeContext.getFrameworkConfigs().getResumeFrom();
+		if (resumeFrom != null && !resumeFrom.isEmpty()) {
+			htmlReporter.setAppendExisting(true);
+		}
+
 		return htmlReporter;
 	}
 
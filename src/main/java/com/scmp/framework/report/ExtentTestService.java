@@ -27,6 +27,14 @@ public class ExtentTestService {
 		extentManager.getExtent().flush();
 	}
 
+	/**
+	 * Start a new report, the extent test records of the previous run are dropped.
+	 */
+	public synchronized void reset() {
+		extentReportMap.clear();
+		extentManager.reset();
+	}
+
 	/**
 	 * Remove the extent test record if the previous run fails.
 	 *
@@ -0,0 +1,148 @@
+package com.scmp.framework.services;
+
+import com.scmp.framework.annotations.*;
+import com.scmp.framework.context.RunTimeContext;
+import com.scmp.framework.model.Browser;
+import com.scmp.framework.testng.model.BrowserOptionsFactory;
+import org.jetbrains.annotations.NotNull;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.ImmutableCapabilities;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * BrowserCapabilityCache - Browser options built once per (test method, browser) and copied for each session.
+ * The templates are built when the tests are intercepted, retries, data provider rows and pre-warmed sessions
+ * get a copy of the template instead of reading the annotations and configs again.
+ * Tests with a custom proxy are built on every call, as the proxy is looked up per session.
+ */
+@Component
+public class BrowserCapabilityCache {
+	private static final Logger frameworkLogger = LoggerFactory.getLogger(BrowserCapabilityCache.class);
+
+	private final BrowserOptionsFactory optionsFactory;
+	// Capability templates per test method and browser
+	private final Map<Method, Map<Browser, CapabilityTemplate>> templates = new ConcurrentHashMap<>();
+
+	@Autowired
+	public BrowserCapabilityCache(RunTimeContext context) {
+		this.optionsFactory = new BrowserOptionsFactory(context);
+	}
+
+	/**
+	 * Build the templates of the tests of a TestNG test, a test on random browser gets both Chrome and Firefox
+	 *
+	 * @param methods     test methods
+	 * @param browserType browser parameter of the TestNG test
+	 */
+	public void precompute(@NotNull List<Method> methods, String browserType) {
+		Browser browser;
+		try {
+			browser = Browser.valueOf(browserType.trim().toUpperCase());
+		} catch (Exception e) {
+			return;
+		}
+
+		for (Method method : methods) {
+			for (Browser plannedBrowser : getPlannedBrowsers(method, browser)) {
+				try {
+					getTemplate(method, plannedBrowser);
+				} catch (Exception e) {
+					// Built again on first use
+					frameworkLogger.warn("Failed to build {} options for [{}].", plannedBrowser, method.getName(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get a copy of the browser options of the test, free to be modified by the caller
+	 *
+	 * @param method  test method
+	 * @param browser browser of the test
+	 * @return browser options
+	 */
+	public MutableCapabilities getBrowserOption(@NotNull Method method, @NotNull Browser browser) {
+		if (method.getAnnotation(CustomProxy.class) != null) {
+			return optionsFactory.getBrowserOption(method, browser);
+		}
+
+		MutableCapabilities template = getOrBuild(method, browser).options;
+		switch (browser) {
+			case CHROME:
+				return new ChromeOptions().merge(template);
+			case FIREFOX:
+				return new FirefoxOptions().merge(template);
+			default:
+				throw new RuntimeException("Unsupported browser: " + browser);
+		}
+	}
+
+	/**
+	 * Get the read-only template of the test, e.g. to key the pooled or pre-warmed sessions
+	 *
+	 * @param method  test method
+	 * @param browser browser of the test
+	 * @return capability template
+	 */
+	public Capabilities getTemplate(@NotNull Method method, @NotNull Browser browser) {
+		return getOrBuild(method, browser).view;
+	}
+
+	/**
+	 * Drop the templates and proxy factories, e.g. at the end of the run as the test classes are reloaded in daemon mode
+	 */
+	public void clear() {
+		templates.clear();
+		BrowserOptionsFactory.clearProxyFactories();
+	}
+
+	private CapabilityTemplate getOrBuild(Method method, Browser browser) {
+		return templates.computeIfAbsent(method, key -> new ConcurrentHashMap<>())
+				.computeIfAbsent(browser, key -> new CapabilityTemplate(optionsFactory.getBrowserOption(method, key)));
+	}
+
+	/**
+	 * Get the browsers the test may run on, following the browser annotations of TestInfo
+	 *
+	 * @param method  test method
+	 * @param browser browser parameter of the TestNG test
+	 * @return browsers, empty if the test does not launch a browser or uses a custom proxy
+	 */
+	private Set<Browser> getPlannedBrowsers(@NotNull Method method, Browser browser) {
+		LaunchBrowser launchBrowser = method.getAnnotation(LaunchBrowser.class);
+		if ((launchBrowser != null && !launchBrowser.status()) || method.getAnnotation(CustomProxy.class) != null) {
+			return Collections.emptySet();
+		}
+
+		if (method.getAnnotation(FirefoxOnly.class) != null) {
+			return EnumSet.of(Browser.FIREFOX);
+		} else if (method.getAnnotation(ChromeOnly.class) != null || method.getAnnotation(CaptureNetworkTraffic4Chrome.class) != null) {
+			return EnumSet.of(Browser.CHROME);
+		}
+
+		return browser == Browser.RANDOM ? EnumSet.of(Browser.CHROME, Browser.FIREFOX) : EnumSet.of(browser);
+	}
+
+	/**
+	 * CapabilityTemplate - Browser options never handed out, with a read-only view
+	 */
+	private static class CapabilityTemplate {
+		private final MutableCapabilities options;
+		private final Capabilities view;
+
+		private CapabilityTemplate(MutableCapabilities options) {
+			this.options = options;
+			this.view = new ImmutableCapabilities(options);
+		}
+	}
+}
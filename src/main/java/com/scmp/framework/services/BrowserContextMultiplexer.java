@@ -0,0 +1,322 @@
+package com.scmp.framework.services;
+
+import com.scmp.framework.context.RunTimeContext;
+import com.scmp.framework.model.Browser;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.SessionId;
+import org.openqa.selenium.remote.http.ClientConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.scmp.framework.utils.Constants.CHROME_DRIVER_SYSTEM_PROPERTY_NAME;
+
+/**
+ * BrowserContextMultiplexer - Runs several tests in one local Chrome process, each test in its own browser context.
+ * A host session launches Chrome, every test gets a new browser context and page target created through CDP,
+ * with its own cookies and storage, and a driver session attached to the same Chrome through its debugger address.
+ * Creating a context takes milliseconds, while launching Chrome takes seconds.
+ * At most BROWSER_CONTEXTS_PER_HOST tests share a Chrome process, hosts are launched per capabilities on demand.
+ */
+@Component
+public class BrowserContextMultiplexer {
+	private static final Logger frameworkLogger = LoggerFactory.getLogger(BrowserContextMultiplexer.class);
+
+	private final RunTimeContext context;
+	private final DriverProvisioningService driverProvisioningService;
+	private final LocalProcessTracker processTracker;
+	private final SmartWaitEngine smartWaitEngine;
+	// Hosts per capabilities fingerprint
+	private final Map<String, List<BrowserHost>> hosts = new HashMap<>();
+
+	@Autowired
+	public BrowserContextMultiplexer(RunTimeContext context, DriverProvisioningService driverProvisioningService,
+									 LocalProcessTracker processTracker, SmartWaitEngine smartWaitEngine) {
+		this.context = context;
+		this.driverProvisioningService = driverProvisioningService;
+		this.processTracker = processTracker;
+		this.smartWaitEngine = smartWaitEngine;
+	}
+
+	/**
+	 * Check if the test session can be opened in a browser context
+	 *
+	 * @param browser browser capabilities of the test
+	 * @return true if BROWSER_CONTEXT_MULTIPLEXING is enabled for local Chrome
+	 */
+	public boolean accepts(MutableCapabilities browser) {
+		return context.getFrameworkConfigs().isBrowserContextMultiplexing()
+				&& context.isLocalExecutionMode()
+				&& browser instanceof ChromeOptions;
+	}
+
+	/**
+	 * Open a new browser context on a host with the same capabilities, a host is launched if all are full
+	 *
+	 * @param browser         browser capabilities of the test
+	 * @param screenDimension window size
+	 * @param clientConfig    client config of the attached session
+	 * @return session of the browser context
+	 * @throws Exception if the context or the attached session cannot be created
+	 */
+	public ContextSession open(@NotNull ChromeOptions browser, @NotNull Dimension screenDimension,
+							   @NotNull ClientConfig clientConfig) throws Exception {
+		BrowserHost host = acquireHost(browser);
+		String browserContextId = null;
+		try {
+			browserContextId = host.createBrowserContext();
+			String targetId = host.createTarget(browserContextId);
+
+			// Plain remote session on the host driver service, quitting it detaches from Chrome and keeps the service
+			ChromeOptions attachOptions = new ChromeOptions();
+			attachOptions.setExperimentalOption("debuggerAddress", host.getDebuggerAddress());
+			attachOptions.setAcceptInsecureCerts(Boolean.TRUE.equals(browser.getCapability("acceptInsecureCerts")));
+			RemoteWebDriver driver = new RemoteWebDriver(
+					new HttpCommandExecutor(Collections.emptyMap(), host.getDriverService().getUrl(), clientConfig), attachOptions);
+			driver.switchTo().window(targetId);
+			driver.manage().timeouts().implicitlyWait(smartWaitEngine.getImplicitWait());
+			driver.manage().window().setSize(screenDimension);
+
+			frameworkLogger.info("Opened browser context [{}] on Chrome host [{}]", browserContextId, host.getDriver().getSessionId());
+			return new ContextSession(host, driver, browserContextId);
+		} catch (Exception e) {
+			if (browserContextId != null) {
+				host.disposeBrowserContext(browserContextId);
+			}
+			releaseHost(host, true);
+			throw e;
+		}
+	}
+
+	/**
+	 * Get the window handles of the browser context, the attached session lists the tabs of all the contexts on the host
+	 *
+	 * @param session session of the browser context
+	 * @return window handles of the tabs in the browser context
+	 */
+	public List<String> getWindowHandles(@NotNull ContextSession session) {
+		Set<String> targetIds = session.getHost().getPageTargetIds(session.getBrowserContextId());
+		return session.getDriver().getWindowHandles().stream()
+				.filter(targetIds::contains)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Close the browser context of the test, the host keeps running for the next test
+	 *
+	 * @param session session of the browser context
+	 */
+	public void close(@NotNull ContextSession session) {
+		try {
+			session.getDriver().quit();
+		} catch (Exception e) {
+			frameworkLogger.debug("Failed to detach from browser context [{}].", session.getBrowserContextId(), e);
+		}
+
+		boolean disposed = session.getHost().disposeBrowserContext(session.getBrowserContextId());
+		releaseHost(session.getHost(), !disposed);
+	}
+
+	/**
+	 * Close all the hosts, e.g. at the end of the run
+	 */
+	@PreDestroy
+	public void closeHosts() {
+		List<BrowserHost> closingHosts = new ArrayList<>();
+		synchronized (hosts) {
+			hosts.values().forEach(closingHosts::addAll);
+			hosts.clear();
+		}
+
+		closingHosts.forEach(this::quitHost);
+	}
+
+	/**
+	 * Take a context slot on a host with the same capabilities, launch a new host if all are full
+	 *
+	 * @param browser browser capabilities
+	 * @return host
+	 */
+	private BrowserHost acquireHost(ChromeOptions browser) {
+		String fingerprint = new TreeMap<>(browser.asMap()).toString();
+		int contextsPerHost = Math.max(1, context.getFrameworkConfigs().getBrowserContextsPerHost());
+
+		synchronized (hosts) {
+			List<BrowserHost> fingerprintHosts = hosts.computeIfAbsent(fingerprint, key -> new ArrayList<>());
+			for (BrowserHost host : fingerprintHosts) {
+				if (host.activeContexts < contextsPerHost) {
+					host.activeContexts++;
+					return host;
+				}
+			}
+
+			BrowserHost host = launchHost(fingerprint, browser);
+			host.activeContexts++;
+			fingerprintHosts.add(host);
+			return host;
+		}
+	}
+
+	/**
+	 * Give back the context slot, a broken host is closed once its last context is closed
+	 *
+	 * @param host   host
+	 * @param broken true if the host failed to create or dispose a context
+	 */
+	private void releaseHost(BrowserHost host, boolean broken) {
+		boolean closeHost = false;
+		synchronized (hosts) {
+			host.activeContexts--;
+			if (broken) {
+				host.broken = true;
+				Optional.ofNullable(hosts.get(host.getFingerprint())).ifPresent(list -> list.remove(host));
+			}
+			closeHost = host.broken && host.activeContexts == 0;
+		}
+
+		if (closeHost) {
+			frameworkLogger.warn("Closing broken Chrome host [{}].", host.getDriver().getSessionId());
+			quitHost(host);
+		}
+	}
+
+	/**
+	 * Launch Chrome with the capabilities of the test on its own driver service
+	 *
+	 * @param fingerprint capabilities fingerprint
+	 * @param browser     browser capabilities
+	 * @return host
+	 */
+	private BrowserHost launchHost(String fingerprint, ChromeOptions browser) {
+		frameworkLogger.info("Launching local Chrome host for browser contexts");
+		System.setProperty(CHROME_DRIVER_SYSTEM_PROPERTY_NAME, driverProvisioningService.getDriverPath(Browser.CHROME));
+		ChromeDriverService driverService = ChromeDriverService.createDefaultService();
+		ChromeDriver driver = new ChromeDriver(driverService, browser);
+		processTracker.track(driver.getSessionId(), driverService);
+
+		Object chromeOptions = driver.getCapabilities().getCapability("goog:chromeOptions");
+		Object debuggerAddress = chromeOptions instanceof Map ? ((Map<?, ?>) chromeOptions).get("debuggerAddress") : null;
+		if (debuggerAddress == null) {
+			driver.quit();
+			processTracker.reap(driver.getSessionId());
+			throw new IllegalStateException("Chrome host does not report its debugger address.");
+		}
+
+		return new BrowserHost(fingerprint, driver, driverService, debuggerAddress.toString());
+	}
+
+	/**
+	 * Quit the host, the Chrome processes left are killed
+	 *
+	 * @param host host
+	 */
+	private void quitHost(BrowserHost host) {
+		SessionId sessionId = host.getDriver().getSessionId();
+		processTracker.refresh(sessionId);
+		try {
+			host.getDriver().quit();
+		} catch (Exception e) {
+			frameworkLogger.debug("Failed to quit Chrome host.", e);
+		} finally {
+			processTracker.reap(sessionId);
+		}
+	}
+
+	/**
+	 * ContextSession - Driver session of a test attached to its browser context
+	 */
+	@Getter
+	public static class ContextSession {
+		private final BrowserHost host;
+		private final RemoteWebDriver driver;
+		private final String browserContextId;
+
+		private ContextSession(BrowserHost host, RemoteWebDriver driver, String browserContextId) {
+			this.host = host;
+			this.driver = driver;
+			this.browserContextId = browserContextId;
+		}
+	}
+
+	/**
+	 * BrowserHost - A Chrome process serving the browser contexts
+	 */
+	@Getter
+	public static class BrowserHost {
+		private final String fingerprint;
+		private final ChromeDriver driver;
+		private final ChromeDriverService driverService;
+		private final String debuggerAddress;
+		private int activeContexts = 0;
+		private boolean broken = false;
+
+		private BrowserHost(String fingerprint, ChromeDriver driver, ChromeDriverService driverService, String debuggerAddress) {
+			this.fingerprint = fingerprint;
+			this.driver = driver;
+			this.driverService = driverService;
+			this.debuggerAddress = debuggerAddress;
+		}
+
+		private synchronized String createBrowserContext() {
+			Map<String, Object> result = driver.executeCdpCommand("Target.createBrowserContext", Map.of("disposeOnDetach", false));
+			return result.get("browserContextId").toString();
+		}
+
+		private synchronized String createTarget(String browserContextId) {
+			Map<String, Object> result = driver.executeCdpCommand("Target.createTarget",
+					Map.of("url", "about:blank", "browserContextId", browserContextId));
+			return result.get("targetId").toString();
+		}
+
+		/**
+		 * Get the ids of the page targets in the browser context, ChromeDriver uses them as the window handles
+		 *
+		 * @param browserContextId browser context id
+		 * @return page target ids
+		 */
+		@SuppressWarnings("unchecked")
+		private synchronized Set<String> getPageTargetIds(String browserContextId) {
+			Set<String> targetIds = new HashSet<>();
+			Object targetInfos = driver.executeCdpCommand("Target.getTargets", Map.of()).get("targetInfos");
+			if (targetInfos instanceof List) {
+				for (Object targetInfo : (List<Object>) targetInfos) {
+					Map<String, Object> target = (Map<String, Object>) targetInfo;
+					if ("page".equals(target.get("type")) && browserContextId.equals(target.get("browserContextId"))) {
+						targetIds.add(String.valueOf(target.get("targetId")));
+					}
+				}
+			}
+
+			return targetIds;
+		}
+
+		/**
+		 * Dispose the browser context, its pages, cookies and storage are discarded
+		 *
+		 * @param browserContextId browser context id
+		 * @return true if disposed
+		 */
+		private synchronized boolean disposeBrowserContext(String browserContextId) {
+			try {
+				driver.executeCdpCommand("Target.disposeBrowserContext", Map.of("browserContextId", browserContextId));
+				return true;
+			} catch (Exception e) {
+				frameworkLogger.warn("Failed to dispose browser context [{}].", browserContextId, e);
+				return false;
+			}
+		}
+	}
+}
@@ -0,0 +1,285 @@
+package com.scmp.framework.services;
+
+import com.google.gson.GsonBuilder;
+import com.scmp.framework.context.RunTimeContext;
+import com.scmp.framework.model.LatencyHistogram;
+import org.openqa.selenium.remote.http.Filter;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.scmp.framework.utils.Constants.TARGET_PATH;
+
+/**
+ * CommandLatencyRecorder - Records the wire latency of every WebDriver command through the command filter of the sessions,
+ * in a histogram per command type, e.g. "POST /element/{id}/click". Per test, the command count, total wire time,
+ * slowest commands and time spent in implicit waits are reported. The implicit wait time is the time of the find element
+ * commands which found nothing, as they wait for the whole implicit wait timeout.
+ * The histograms and the test summaries are written to target/command-latency.json at the end of the run.
+ */
+@Component
+public class CommandLatencyRecorder {
+	private static final Logger frameworkLogger = LoggerFactory.getLogger(CommandLatencyRecorder.class);
+	private static final String SUMMARY_FILE_NAME = "command-latency.json";
+	private static final int SLOWEST_COMMAND_COUNT = 5;
+
+	private final RunTimeContext context;
+	// Histograms per command type
+	private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+	private final List<TestCommandStats> testStats = new CopyOnWriteArrayList<>();
+	private final ThreadLocal<TestCommandStats> currentTestStats = new ThreadLocal<>();
+
+	@Autowired
+	public CommandLatencyRecorder(RunTimeContext context) {
+		this.context = context;
+	}
+
+	/**
+	 * Check if the latency recording is enabled
+	 *
+	 * @return true if COMMAND_LATENCY_METRICS is enabled
+	 */
+	public boolean isEnabled() {
+		return context.getFrameworkConfigs().isCommandLatencyMetrics();
+	}
+
+	/**
+	 * Get the filter recording the latency of the WebDriver commands
+	 *
+	 * @return command filter
+	 */
+	public Filter getCommandFilter() {
+		return next -> request -> {
+			long startTime = System.nanoTime();
+			HttpResponse response = null;
+			try {
+				response = next.execute(request);
+				return response;
+			} finally {
+				record(getCommandType(request), System.nanoTime() - startTime, response);
+			}
+		};
+	}
+
+	/**
+	 * Start recording the commands of the test on the current thread
+	 *
+	 * @param testName test name
+	 */
+	public void startTest(String testName) {
+		if (isEnabled()) {
+			currentTestStats.set(new TestCommandStats(testName));
+		}
+	}
+
+	/**
+	 * Stop recording the commands of the test on the current thread
+	 *
+	 * @return command stats of the test, empty if not recorded
+	 */
+	public Optional<TestCommandStats> finishTest() {
+		TestCommandStats stats = currentTestStats.get();
+		currentTestStats.remove();
+		if (stats != null) {
+			testStats.add(stats);
+		}
+
+		return Optional.ofNullable(stats);
+	}
+
+	/**
+	 * Write the histograms and the test summaries of the run to target/command-latency.json, and reset them
+	 */
+	public void writeSummary() {
+		if (!isEnabled() || histograms.isEmpty()) {
+			return;
+		}
+
+		Map<String, Object> commands = new TreeMap<>();
+		histograms.forEach((commandType, histogram) -> {
+			Map<String, Object> summary = new LinkedHashMap<>();
+			summary.put("count", histogram.getCount());
+			summary.put("totalMs", round(histogram.getTotalMillis()));
+			summary.put("meanMs", round(histogram.getMeanMillis()));
+			summary.put("p50Ms", round(histogram.getPercentileMillis(50)));
+			summary.put("p90Ms", round(histogram.getPercentileMillis(90)));
+			summary.put("p99Ms", round(histogram.getPercentileMillis(99)));
+			summary.put("maxMs", round(histogram.getMaxMillis()));
+			commands.put(commandType, summary);
+		});
+
+		List<Map<String, Object>> tests = new ArrayList<>();
+		for (TestCommandStats stats : testStats) {
+			Map<String, Object> summary = new LinkedHashMap<>();
+			summary.put("test", stats.getTestName());
+			summary.put("commands", stats.getCommandCount());
+			summary.put("wireMs", round(stats.getWireNanos() / 1e6));
+			summary.put("implicitWaitMs", round(stats.getImplicitWaitNanos() / 1e6));
+			summary.put("slowest", stats.getSlowestCommands());
+			tests.add(summary);
+		}
+
+		Map<String, Object> summary = new LinkedHashMap<>();
+		summary.put("commands", commands);
+		summary.put("tests", tests);
+
+		File summaryFile = new File(TARGET_PATH, SUMMARY_FILE_NAME);
+		try {
+			Files.createDirectories(summaryFile.getParentFile().toPath());
+			Files.writeString(summaryFile.toPath(), new GsonBuilder().setPrettyPrinting().create().toJson(summary), StandardCharsets.UTF_8);
+			frameworkLogger.info("Command latency summary: {}", summaryFile.getPath());
+		} catch (IOException e) {
+			frameworkLogger.error("Failed to write command latency summary.", e);
+		}
+
+		histograms.clear();
+		testStats.clear();
+	}
+
+	/**
+	 * Record the latency of a command
+	 *
+	 * @param commandType command type
+	 * @param nanos       latency in nanoseconds
+	 * @param response    response, null if the command failed without response
+	 */
+	private void record(String commandType, long nanos, HttpResponse response) {
+		histograms.computeIfAbsent(commandType, key -> new LatencyHistogram()).record(nanos);
+
+		TestCommandStats stats = currentTestStats.get();
+		if (stats != null) {
+			boolean findCommand = commandType.endsWith("/element") || commandType.endsWith("/elements");
+			// No such element is returned with 404, after the implicit wait
+			boolean implicitWait = findCommand && response != null && response.getStatus() == 404;
+			stats.record(commandType, nanos, implicitWait);
+		}
+	}
+
+	/**
+	 * Get the command type from the request, the session and element ids are replaced with {id}
+	 *
+	 * @param request WebDriver request
+	 * @return command type, e.g. "POST /element/{id}/click"
+	 */
+	private String getCommandType(HttpRequest request) {
+		String[] segments = request.getUri().split("\\?")[0].split("/");
+		StringBuilder path = new StringBuilder();
+		boolean inSession = false;
+		for (int i = 0; i < segments.length; i++) {
+			String segment = segments[i];
+			if (segment.isEmpty()) {
+				continue;
+			}
+
+			if (!inSession) {
+				// Skip the base path of the server, e.g. /wd/hub
+				if (segment.equals("session")) {
+					inSession = true;
+					if (i + 1 >= segments.length) {
+						path.append("/session");
+					}
+					i++;
+				}
+				continue;
+			}
+
+			boolean idSegment = i > 0 && (segments[i - 1].equals("element") || segments[i - 1].equals("shadow"));
+			path.append('/').append(idSegment ? "{id}" : segment);
+		}
+
+		return request.getMethod() + " " + (path.length() == 0 ? "/" : path.toString());
+	}
+
+	private static double round(double value) {
+		return Math.round(value * 10) / 10.0;
+	}
+
+	/**
+	 * TestCommandStats - WebDriver commands of a test
+	 */
+	public static class TestCommandStats {
+		private final String testName;
+		private int commandCount = 0;
+		private long wireNanos = 0;
+		private long implicitWaitNanos = 0;
+		// Slowest commands by latency
+		private final NavigableMap<Long, String> slowestCommands = new TreeMap<>();
+
+		private TestCommandStats(String testName) {
+			this.testName = testName;
+		}
+
+		private void record(String commandType, long nanos, boolean implicitWait) {
+			commandCount++;
+			wireNanos += nanos;
+			if (implicitWait) {
+				implicitWaitNanos += nanos;
+			}
+
+			slowestCommands.put(nanos, commandType);
+			if (slowestCommands.size() > SLOWEST_COMMAND_COUNT) {
+				slowestCommands.pollFirstEntry();
+			}
+		}
+
+		public String getTestName() {
+			return testName;
+		}
+
+		public int getCommandCount() {
+			return commandCount;
+		}
+
+		public long getWireNanos() {
+			return wireNanos;
+		}
+
+		public long getImplicitWaitNanos() {
+			return implicitWaitNanos;
+		}
+
+		/**
+		 * Get the slowest commands, the slowest first
+		 *
+		 * @return command type and latency in milliseconds
+		 */
+		public List<Map<String, Object>> getSlowestCommands() {
+			List<Map<String, Object>> commands = new ArrayList<>();
+			slowestCommands.descendingMap().forEach((nanos, commandType) -> {
+				Map<String, Object> command = new LinkedHashMap<>();
+				command.put("command", commandType);
+				command.put("ms", round(nanos / 1e6));
+				commands.add(command);
+			});
+
+			return commands;
+		}
+
+		/**
+		 * Get the stats as a report table
+		 *
+		 * @return table rows
+		 */
+		public String[][] toTable() {
+			List<String[]> rows = new ArrayList<>();
+			rows.add(new String[]{"WebDriver commands", String.valueOf(commandCount)});
+			rows.add(new String[]{"Wire time (ms)", String.valueOf(round(wireNanos / 1e6))});
+			rows.add(new String[]{"Implicit wait (ms)", String.valueOf(round(implicitWaitNanos / 1e6))});
+			getSlowestCommands().forEach(command ->
+					rows.add(new String[]{"Slow: " + command.get("command"), String.valueOf(command.get("ms"))}));
+
+			return rows.toArray(new String[0][]);
+		}
+	}
+}
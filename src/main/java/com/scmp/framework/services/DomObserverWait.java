@@ -0,0 +1,199 @@
+package com.scmp.framework.services;
+
+import com.scmp.framework.context.RunTimeContext;
+import org.jetbrains.annotations.NotNull;
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.NotFoundException;
+import org.openqa.selenium.ScriptTimeoutException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.SessionId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * DomObserverWait - Event-driven waits with EVENT_DRIVEN_WAIT, one async script observes the DOM with MutationObserver
+ * and IntersectionObserver and returns as soon as the element condition holds, instead of a round trip per poll.
+ * Long waits are split into scripts of at most 20 seconds to stay within the default script timeout.
+ * Sessions which cannot run the script, e.g. no async script support or a shorter script timeout,
+ * fall back to polling until the session is closed. Other script errors only fall back for the current wait,
+ * and a script discarded by a navigation is run again on the new document.
+ */
+@Component
+public class DomObserverWait {
+	private static final Logger frameworkLogger = LoggerFactory.getLogger(DomObserverWait.class);
+	private static final long MAX_SCRIPT_MILLIS = 20000;
+	private static final String UNSUPPORTED = "unsupported";
+	private static final String DOCUMENT_UNLOADED = "document unloaded";
+	private static final String OBSERVER_SCRIPT = """
+			var element = arguments[0], elementId = arguments[1], condition = arguments[2], timeout = arguments[3];
+			var done = arguments[arguments.length - 1];
+			if (typeof MutationObserver === 'undefined') {
+				done('unsupported');
+				return;
+			}
+			function target() {
+				return elementId ? document.getElementById(elementId) : element;
+			}
+			function isVisible(node) {
+				if (!node || !node.isConnected) {
+					return false;
+				}
+				var style = window.getComputedStyle(node);
+				return style.display !== 'none' && style.visibility !== 'hidden' && node.getClientRects().length > 0;
+			}
+			function isMet() {
+				var node = target();
+				switch (condition) {
+					case 'VISIBLE':
+						return isVisible(node);
+					case 'CLICKABLE':
+						return isVisible(node) && !node.disabled;
+					default:
+						return !isVisible(node);
+				}
+			}
+			if (isMet()) {
+				done(true);
+				return;
+			}
+			var finished = false, observers = [], timer;
+			function finish(result) {
+				if (finished) {
+					return;
+				}
+				finished = true;
+				clearTimeout(timer);
+				observers.forEach(function (observer) { observer.disconnect(); });
+				document.removeEventListener('transitionend', check, true);
+				document.removeEventListener('animationend', check, true);
+				done(result);
+			}
+			function check() {
+				if (isMet()) {
+					finish(true);
+				}
+			}
+			var mutationObserver = new MutationObserver(check);
+			mutationObserver.observe(document.documentElement, {attributes: true, childList: true, subtree: true});
+			observers.push(mutationObserver);
+			if (element && typeof IntersectionObserver !== 'undefined') {
+				var intersectionObserver = new IntersectionObserver(check);
+				intersectionObserver.observe(element);
+				observers.push(intersectionObserver);
+			}
+			document.addEventListener('transitionend', check, true);
+			document.addEventListener('animationend', check, true);
+			timer = setTimeout(function () { finish(isMet()); }, timeout);
+			""";
+
+	private final RunTimeContext context;
+	// Sessions falling back to polling, until they are closed
+	private final Set<SessionId> pollingSessions = ConcurrentHashMap.newKeySet();
+
+	@Autowired
+	public DomObserverWait(RunTimeContext context) {
+		this.context = context;
+	}
+
+	/**
+	 * Check if the event-driven wait is enabled
+	 *
+	 * @return true if EVENT_DRIVEN_WAIT is enabled
+	 */
+	public boolean isEnabled() {
+		return context.getFrameworkConfigs().isEventDrivenWait();
+	}
+
+	/**
+	 * Wait for the condition of the element in the DOM
+	 *
+	 * @param driver    driver session
+	 * @param element   element to observe, null to look up the element by id
+	 * @param elementId id of the element, null to observe the element
+	 * @param condition condition of the element
+	 * @param timeout   max time to wait
+	 * @return true if the condition holds, false on timeout, empty if the caller needs to poll
+	 */
+	public Optional<Boolean> await(@NotNull RemoteWebDriver driver, WebElement element, String elementId,
+								   @NotNull Condition condition, @NotNull Duration timeout) {
+		SessionId sessionId = driver.getSessionId();
+		if (sessionId == null || pollingSessions.contains(sessionId)) {
+			return Optional.empty();
+		}
+
+		long deadline = System.nanoTime() + timeout.toNanos();
+		try {
+			while (true) {
+				long remainingMillis = Math.max(0, Duration.ofNanos(deadline - System.nanoTime()).toMillis());
+				Object result;
+				try {
+					result = driver.executeAsyncScript(OBSERVER_SCRIPT, element, elementId, condition.name(),
+							Math.min(remainingMillis, MAX_SCRIPT_MILLIS));
+				} catch (JavascriptException e) {
+					// The script is discarded when the page navigates, observe the new document in the time left
+					if (isDocumentUnloaded(e) && deadline - System.nanoTime() > 0) {
+						continue;
+					}
+
+					frameworkLogger.debug("Event-driven wait failed on session [{}], polling instead.", sessionId, e);
+					return Optional.empty();
+				}
+
+				if (UNSUPPORTED.equals(result)) {
+					fallBackToPolling(sessionId, "MutationObserver is not supported");
+					return Optional.empty();
+				}
+
+				if (Boolean.TRUE.equals(result) || remainingMillis <= MAX_SCRIPT_MILLIS) {
+					return Optional.of(Boolean.TRUE.equals(result));
+				}
+			}
+		} catch (NotFoundException | StaleElementReferenceException e) {
+			// The element is not in the DOM, it is invisible, other conditions poll for it to appear
+			return condition == Condition.INVISIBLE ? Optional.of(true) : Optional.empty();
+		} catch (ScriptTimeoutException | UnsupportedCommandException e) {
+			fallBackToPolling(sessionId, e.getClass().getSimpleName());
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Forget the closed session
+	 *
+	 * @param sessionId session id
+	 */
+	public void forget(SessionId sessionId) {
+		if (sessionId != null) {
+			pollingSessions.remove(sessionId);
+		}
+	}
+
+	private static boolean isDocumentUnloaded(JavascriptException e) {
+		return e.getMessage() != null && e.getMessage().contains(DOCUMENT_UNLOADED);
+	}
+
+	private void fallBackToPolling(SessionId sessionId, String reason) {
+		if (pollingSessions.add(sessionId)) {
+			frameworkLogger.warn("Event-driven wait is not available on session [{}], falling back to polling: {}", sessionId, reason);
+		}
+	}
+
+	/**
+	 * Condition - Conditions of the element observed in the DOM
+	 */
+	public enum Condition {
+		VISIBLE,
+		CLICKABLE,
+		INVISIBLE
+	}
+}
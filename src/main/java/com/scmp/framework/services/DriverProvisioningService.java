@@ -0,0 +1,303 @@
+package com.scmp.framework.services;
+
+import com.scmp.framework.context.RunTimeContext;
+import com.scmp.framework.model.Browser;
+import io.github.bonigarcia.wdm.WebDriverManager;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.scmp.framework.utils.Constants.*;
+
+/**
+ * DriverProvisioningService - Resolves the local web drivers of the browsers in use, in parallel.
+ * Resolved driver paths and versions are cached in DRIVER_HOME/driver-cache.properties with the SHA-256 of the driver,
+ * a cached driver is used without network access as long as the checksum matches and the entry is within DRIVER_CACHE_TTL_HOURS.
+ * With DRIVER_OFFLINE, or if WebDriverManager fails, the cached driver is used regardless of its age.
+ */
+@Component
+public class DriverProvisioningService {
+	private static final Logger frameworkLogger = LoggerFactory.getLogger(DriverProvisioningService.class);
+	private static final String CACHE_FILE_NAME = "driver-cache.properties";
+
+	private final RunTimeContext context;
+	// Drivers being resolved or resolved, a browser is resolved only once
+	private final Map<Browser, CompletableFuture<Void>> provisionedDrivers = new ConcurrentHashMap<>();
+
+	@Autowired
+	public DriverProvisioningService(RunTimeContext context) {
+		this.context = context;
+	}
+
+	/**
+	 * Resolve the drivers of the browsers in BROWSER_TYPE in parallel, random requires both Chrome and Firefox
+	 */
+	public void provisionConfiguredBrowsers() {
+		Set<Browser> browsers = EnumSet.noneOf(Browser.class);
+		for (String browserType : context.getFrameworkConfigs().getBrowserType().split("\\s*,\\s*")) {
+			Browser browser = Browser.valueOf(browserType.trim().toUpperCase());
+			if (browser == Browser.RANDOM) {
+				browsers.add(Browser.CHROME);
+				browsers.add(Browser.FIREFOX);
+			} else {
+				browsers.add(browser);
+			}
+		}
+
+		provision(browsers);
+	}
+
+	/**
+	 * Resolve the drivers in parallel and wait for all of them
+	 *
+	 * @param browsers browsers to resolve
+	 */
+	public void provision(@NotNull Collection<Browser> browsers) {
+		CompletableFuture<?>[] futures = browsers.stream()
+				.map(this::provisionAsync)
+				.toArray(CompletableFuture[]::new);
+
+		try {
+			CompletableFuture.allOf(futures).join();
+		} catch (CompletionException e) {
+			throw new IllegalStateException("Failed to provision web driver.", e.getCause());
+		}
+	}
+
+	/**
+	 * Get the driver path, the driver is resolved on first use
+	 *
+	 * @param browser browser
+	 * @return driver path
+	 */
+	public String getDriverPath(Browser browser) {
+		provision(Collections.singletonList(browser));
+		return context.getGlobalVariables(getDriverPathKey(browser)).toString();
+	}
+
+	/**
+	 * Get the driver version, the driver is resolved on first use
+	 *
+	 * @param browser browser
+	 * @return driver version
+	 */
+	public String getDriverVersion(Browser browser) {
+		provision(Collections.singletonList(browser));
+		return context.getGlobalVariables(getDriverVersionKey(browser)).toString();
+	}
+
+	/**
+	 * Start resolving the driver if not started yet, a failed resolution is retried on the next call
+	 *
+	 * @param browser browser
+	 * @return future of the resolution
+	 */
+	private CompletableFuture<Void> provisionAsync(Browser browser) {
+		CompletableFuture<Void> future = provisionedDrivers.computeIfAbsent(browser,
+				key -> CompletableFuture.runAsync(() -> resolveDriver(key)));
+		future.whenComplete((result, error) -> {
+			if (error != null) {
+				provisionedDrivers.remove(browser, future);
+			}
+		});
+
+		return future;
+	}
+
+	/**
+	 * Resolve the driver from the cache, or with WebDriverManager
+	 *
+	 * @param browser browser
+	 */
+	private void resolveDriver(Browser browser) {
+		Optional<CachedDriver> cachedDriver = loadCachedDriver(browser);
+		boolean offline = context.getFrameworkConfigs().isDriverOffline();
+		Duration cacheTtl = Duration.ofHours(context.getFrameworkConfigs().getDriverCacheTtlHours());
+
+		if (cachedDriver.isPresent() && (offline || !cachedDriver.get().isExpired(cacheTtl))) {
+			useDriver(browser, cachedDriver.get().path, cachedDriver.get().version, "cache");
+			return;
+		}
+		if (offline) {
+			throw new IllegalStateException(String.format("No valid cached %s driver in %s with DRIVER_OFFLINE enabled.",
+					browser, getCacheFile().getPath()));
+		}
+
+		try {
+			WebDriverManager manager = browser == Browser.CHROME ? WebDriverManager.chromedriver() : WebDriverManager.firefoxdriver();
+			manager.cachePath(context.getFrameworkConfigs().getDriverHome()).setup();
+			String driverPath = manager.getDownloadedDriverPath();
+			String driverVersion = manager.getDownloadedDriverVersion();
+
+			saveCachedDriver(browser, driverPath, driverVersion);
+			useDriver(browser, driverPath, driverVersion, "WebDriverManager");
+		} catch (Exception e) {
+			if (cachedDriver.isEmpty()) {
+				throw e;
+			}
+
+			frameworkLogger.warn("Failed to resolve {} driver, using the cached driver.", browser, e);
+			useDriver(browser, cachedDriver.get().path, cachedDriver.get().version, "expired cache");
+		}
+	}
+
+	/**
+	 * Set global variables for driver path and version
+	 *
+	 * @param browser       browser
+	 * @param driverPath    driver path
+	 * @param driverVersion driver version
+	 * @param source        where the driver is resolved from
+	 */
+	private void useDriver(Browser browser, String driverPath, String driverVersion, String source) {
+		context.setGlobalVariables(getDriverPathKey(browser), driverPath);
+		context.setGlobalVariables(getDriverVersionKey(browser), driverVersion);
+		frameworkLogger.info("WebDriver resolved from {} - Path: {}, Version: {}", source, driverPath, driverVersion);
+	}
+
+	/**
+	 * Load the cached driver, the entry is valid only if the driver file matches the checksum
+	 *
+	 * @param browser browser
+	 * @return cached driver, empty if not cached or invalid
+	 */
+	private Optional<CachedDriver> loadCachedDriver(Browser browser) {
+		Properties cache = loadCache();
+		String prefix = browser.toString().toLowerCase() + ".";
+		String path = cache.getProperty(prefix + "path");
+		String version = cache.getProperty(prefix + "version");
+		String checksum = cache.getProperty(prefix + "sha256");
+		String resolvedAt = cache.getProperty(prefix + "resolvedAt");
+		if (path == null || version == null || checksum == null || resolvedAt == null || !new File(path).isFile()) {
+			return Optional.empty();
+		}
+
+		try {
+			if (!checksum.equalsIgnoreCase(sha256(new File(path)))) {
+				frameworkLogger.warn("Checksum mismatch of the cached {} driver: {}", browser, path);
+				return Optional.empty();
+			}
+			return Optional.of(new CachedDriver(path, version, Long.parseLong(resolvedAt)));
+		} catch (IOException | NumberFormatException e) {
+			frameworkLogger.warn("Invalid cached {} driver: {}", browser, path, e);
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Save the resolved driver to the cache
+	 *
+	 * @param browser       browser
+	 * @param driverPath    driver path
+	 * @param driverVersion driver version
+	 */
+	private synchronized void saveCachedDriver(Browser browser, String driverPath, String driverVersion) {
+		String prefix = browser.toString().toLowerCase() + ".";
+		Properties cache = loadCache();
+		File cacheFile = getCacheFile();
+
+		try {
+			cache.setProperty(prefix + "path", driverPath);
+			cache.setProperty(prefix + "version", driverVersion);
+			cache.setProperty(prefix + "sha256", sha256(new File(driverPath)));
+			cache.setProperty(prefix + "resolvedAt", String.valueOf(System.currentTimeMillis()));
+
+			Files.createDirectories(cacheFile.getAbsoluteFile().getParentFile().toPath());
+			try (OutputStream outputStream = new FileOutputStream(cacheFile)) {
+				cache.store(outputStream, "Resolved web drivers");
+			}
+		} catch (IOException e) {
+			frameworkLogger.warn("Failed to save driver cache: {}", cacheFile.getPath(), e);
+		}
+	}
+
+	/**
+	 * Load the driver cache file
+	 *
+	 * @return cached properties, empty if the file does not exist
+	 */
+	private synchronized Properties loadCache() {
+		Properties cache = new Properties();
+		File cacheFile = getCacheFile();
+		if (cacheFile.isFile()) {
+			try (InputStream inputStream = new FileInputStream(cacheFile)) {
+				cache.load(inputStream);
+			} catch (IOException e) {
+				frameworkLogger.warn("Failed to read driver cache: {}", cacheFile.getPath(), e);
+			}
+		}
+
+		return cache;
+	}
+
+	/**
+	 * Get the cache file under DRIVER_HOME
+	 *
+	 * @return cache file
+	 */
+	@NotNull
+	private File getCacheFile() {
+		return new File(context.getFrameworkConfigs().getDriverHome(), CACHE_FILE_NAME);
+	}
+
+	/**
+	 * Calculate the SHA-256 checksum of a file
+	 *
+	 * @param file file
+	 * @return hex checksum
+	 * @throws IOException exception when reading the file
+	 */
+	@NotNull
+	private String sha256(File file) throws IOException {
+		try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = inputStream.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+			return HexFormat.of().formatHex(digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private String getDriverPathKey(Browser browser) {
+		return browser == Browser.CHROME ? CHROME_DRIVER_PATH : FIREFOX_DRIVER_PATH;
+	}
+
+	private String getDriverVersionKey(Browser browser) {
+		return browser == Browser.CHROME ? CHROME_DRIVER_VERSION : FIREFOX_DRIVER_VERSION;
+	}
+
+	/**
+	 * CachedDriver - A valid entry of the driver cache
+	 */
+	private static class CachedDriver {
+		private final String path;
+		private final String version;
+		private final long resolvedAt;
+
+		private CachedDriver(String path, String version, long resolvedAt) {
+			this.path = path;
+			this.version = version;
+			this.resolvedAt = resolvedAt;
+		}
+
+		private boolean isExpired(Duration ttl) {
+			return System.currentTimeMillis() - resolvedAt > ttl.toMillis();
+		}
+	}
+}
@@ -0,0 +1,190 @@
+package com.scmp.framework.services;
+
+import com.scmp.framework.context.RunTimeContext;
+import com.scmp.framework.utils.RemoteSessionUtils;
+import jakarta.annotation.PreDestroy;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.service.DriverService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DriverReaper - Quits the driver sessions in background, so that the test thread can start the next test.
+ * At most THREAD_COUNT sessions are quit at the same time, and up to THREAD_COUNT more are queued,
+ * further sessions are quit on the calling thread. A session which does not quit within DRIVER_QUIT_TIMEOUT_SECONDS
+ * has its local driver process killed, or is deleted on the grid for remote sessions.
+ */
+@Component
+public class DriverReaper {
+	private static final Logger frameworkLogger = LoggerFactory.getLogger(DriverReaper.class);
+
+	private final RunTimeContext context;
+	private final LongAdder quitCount = new LongAdder();
+	private final LongAdder quitMillis = new LongAdder();
+	private final AtomicLong maxQuitMillis = new AtomicLong();
+	private final LongAdder forceKillCount = new LongAdder();
+	private ThreadPoolExecutor reaperExecutor = null;
+	private ExecutorService quitExecutor = null;
+
+	@Autowired
+	public DriverReaper(RunTimeContext context) {
+		this.context = context;
+	}
+
+	/**
+	 * Check if the asynchronous teardown is enabled
+	 *
+	 * @return true if ASYNC_DRIVER_TEARDOWN is enabled
+	 */
+	public boolean isEnabled() {
+		return context.getFrameworkConfigs().isAsyncDriverTeardown();
+	}
+
+	/**
+	 * Quit the session in background
+	 *
+	 * @param driver        driver session, already detached from the test thread
+	 * @param driverService local driver service of the session, null for remote sessions
+	 * @param onClosed      called once the session is closed or killed
+	 */
+	public void reap(RemoteWebDriver driver, DriverService driverService, Runnable onClosed) {
+		getReaperExecutor().execute(() -> {
+			try {
+				quit(driver, driverService);
+			} finally {
+				onClosed.run();
+			}
+		});
+	}
+
+	/**
+	 * Wait for the queued sessions to be closed, e.g. at the end of the run, and log the quit latency
+	 *
+	 * @param timeout timeout
+	 * @param unit    time unit
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void awaitPending(long timeout, TimeUnit unit) throws InterruptedException {
+		ThreadPoolExecutor executor;
+		synchronized (this) {
+			executor = reaperExecutor;
+		}
+		if (executor == null) {
+			return;
+		}
+
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while ((executor.getActiveCount() > 0 || !executor.getQueue().isEmpty()) && System.nanoTime() < deadline) {
+			Thread.sleep(100);
+		}
+
+		long count = quitCount.sum();
+		frameworkLogger.info("Driver teardown - sessions: {}, average quit: {} ms, max quit: {} ms, force killed: {}",
+				count, count == 0 ? 0 : quitMillis.sum() / count, maxQuitMillis.get(), forceKillCount.sum());
+	}
+
+	/**
+	 * Stop the reaper on shutdown, the queued sessions are quit before the executor stops
+	 */
+	@PreDestroy
+	public synchronized void shutdown() {
+		if (reaperExecutor != null) {
+			reaperExecutor.shutdown();
+			try {
+				reaperExecutor.awaitTermination(context.getFrameworkConfigs().getDriverQuitTimeoutSeconds(), TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (quitExecutor != null) {
+			quitExecutor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Quit the session with timeout, kill the local driver process if it fails
+	 *
+	 * @param driver        driver session
+	 * @param driverService local driver service of the session, null for remote sessions
+	 */
+	private void quit(RemoteWebDriver driver, DriverService driverService) {
+		long startTime = System.nanoTime();
+		Future<?> quitFuture = getQuitExecutor().submit(driver::quit);
+		try {
+			quitFuture.get(context.getFrameworkConfigs().getDriverQuitTimeoutSeconds(), TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			forceKill(driver, driverService, quitFuture);
+		} catch (ExecutionException | TimeoutException e) {
+			frameworkLogger.warn("Failed to quit driver session [{}].", driver.getSessionId(), e);
+			forceKill(driver, driverService, quitFuture);
+		} finally {
+			long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+			quitCount.increment();
+			quitMillis.add(elapsedMillis);
+			maxQuitMillis.accumulateAndGet(elapsedMillis, Math::max);
+		}
+	}
+
+	/**
+	 * Kill the local driver process, the browser is closed with its driver.
+	 * Remote sessions are deleted on HOST_URL, the slot is not held until the grid session timeout.
+	 *
+	 * @param driver        driver session
+	 * @param driverService local driver service of the session, null for remote sessions
+	 * @param quitFuture    pending quit
+	 */
+	private void forceKill(RemoteWebDriver driver, DriverService driverService, Future<?> quitFuture) {
+		quitFuture.cancel(true);
+		forceKillCount.increment();
+		if (driverService == null) {
+			if (!RemoteSessionUtils.deleteSession(context.getFrameworkConfigs().getHostUrl(), driver.getSessionId())) {
+				frameworkLogger.warn("Remote session [{}] is left to the grid session timeout.", driver.getSessionId());
+			}
+			return;
+		}
+
+		try {
+			driverService.stop();
+			frameworkLogger.warn("Killed local driver of session [{}].", driver.getSessionId());
+		} catch (Exception e) {
+			frameworkLogger.error("Failed to kill local driver of session [{}].", driver.getSessionId(), e);
+		}
+	}
+
+	private synchronized ThreadPoolExecutor getReaperExecutor() {
+		if (reaperExecutor == null) {
+			int threadCount = Math.max(1, context.getFrameworkConfigs().getThreadCount());
+			reaperExecutor = new ThreadPoolExecutor(threadCount, threadCount, 60, TimeUnit.SECONDS,
+					new ArrayBlockingQueue<>(threadCount), createThreadFactory("driver-reaper-"),
+					new ThreadPoolExecutor.CallerRunsPolicy());
+			reaperExecutor.allowCoreThreadTimeOut(true);
+		}
+
+		return reaperExecutor;
+	}
+
+	private synchronized ExecutorService getQuitExecutor() {
+		if (quitExecutor == null) {
+			quitExecutor = Executors.newCachedThreadPool(createThreadFactory("driver-quit-"));
+		}
+
+		return quitExecutor;
+	}
+
+	private ThreadFactory createThreadFactory(String prefix) {
+		AtomicInteger threadNumber = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, prefix + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+}
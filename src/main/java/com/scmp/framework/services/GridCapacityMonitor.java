@@ -0,0 +1,331 @@
+package com.scmp.framework.services;
+
+import com.scmp.framework.context.FrameworkConfigs;
+import com.scmp.framework.context.RunTimeContext;
+import jakarta.annotation.PreDestroy;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.jetbrains.annotations.NotNull;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * GridCapacityMonitor - Adapts the number of concurrent driver session starts to the free slots
+ * of the Selenium Grid, polled from the Grid /status endpoint.
+ * In local execution mode, or if the Grid does not report its slots, THREAD_COUNT is used as the capacity.
+ */
+@Component
+public class GridCapacityMonitor {
+	private static final Logger frameworkLogger = LoggerFactory.getLogger(GridCapacityMonitor.class);
+
+	private final RunTimeContext context;
+	private final OkHttpClient client = new OkHttpClient.Builder().callTimeout(Duration.ofSeconds(5)).build();
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition capacityChanged = lock.newCondition();
+
+	// Free slots per browser from the last poll, empty if the Grid status is not available
+	private final Map<String, Integer> freeSlots = new HashMap<>();
+	// Session starts which are not reflected in the Grid status yet
+	private final Map<String, Integer> inFlightStarts = new HashMap<>();
+	// Open sessions, used by the local stand-in
+	private int activeSessions = 0;
+	private boolean gridStatusAvailable = false;
+	private ScheduledExecutorService poller = null;
+	// Notified when the grid reports free slots
+	private final List<Runnable> capacityListeners = new CopyOnWriteArrayList<>();
+
+	@Autowired
+	public GridCapacityMonitor(RunTimeContext context) {
+		this.context = context;
+	}
+
+	/**
+	 * Add a listener notified when the grid reports free slots
+	 *
+	 * @param listener capacity listener
+	 */
+	public void addCapacityListener(Runnable listener) {
+		capacityListeners.add(listener);
+	}
+
+	/**
+	 * Check if the adaptive concurrency is enabled
+	 *
+	 * @return true if ADAPTIVE_CONCURRENCY is enabled
+	 */
+	public boolean isEnabled() {
+		return context.getFrameworkConfigs().isAdaptiveConcurrency();
+	}
+
+	/**
+	 * Wait until there is a free slot for the browser and reserve it for a session start.
+	 * If no slot is available within GRID_CAPACITY_WAIT_TIMEOUT_SECONDS, the session start is not held back any longer.
+	 *
+	 * @param browserName browser name of the capabilities
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void acquire(String browserName) throws InterruptedException {
+		if (!isEnabled()) {
+			return;
+		}
+
+		reserve(browserName, Duration.ofSeconds(context.getFrameworkConfigs().getGridCapacityWaitTimeoutSeconds()), true);
+	}
+
+	/**
+	 * Reserve a free slot for a session start if one is available within the timeout
+	 *
+	 * @param browserName browser name of the capabilities
+	 * @param timeout     max time to wait for a free slot
+	 * @return true if reserved, false if there is no free slot
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public boolean tryAcquire(String browserName, Duration timeout) throws InterruptedException {
+		if (!isEnabled()) {
+			return true;
+		}
+
+		return reserve(browserName, timeout, false);
+	}
+
+	/**
+	 * Wait for a free slot and reserve it
+	 *
+	 * @param browserName browser name of the capabilities
+	 * @param timeout     max time to wait for a free slot
+	 * @param force       reserve the slot anyway after the timeout
+	 * @return true if reserved
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	private boolean reserve(String browserName, Duration timeout, boolean force) throws InterruptedException {
+		startPolling();
+		long remainingNanos = timeout.toNanos();
+		lock.lock();
+		try {
+			while (getAvailableSlots(browserName) <= 0) {
+				if (remainingNanos <= 0) {
+					if (!force) {
+						return false;
+					}
+					frameworkLogger.warn("No free slot for [{}] on the grid, starting the session anyway.", browserName);
+					break;
+				}
+				remainingNanos = capacityChanged.awaitNanos(remainingNanos);
+			}
+
+			inFlightStarts.merge(browserName, 1, Integer::sum);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Release the reservation of a session start
+	 *
+	 * @param browserName browser name of the capabilities
+	 * @param started     true if the session is started
+	 */
+	public void release(String browserName, boolean started) {
+		if (!isEnabled()) {
+			return;
+		}
+
+		lock.lock();
+		try {
+			inFlightStarts.merge(browserName, -1, Integer::sum);
+			if (started) {
+				activeSessions++;
+				// The slot is taken until the next poll tells otherwise
+				freeSlots.computeIfPresent(browserName, (name, slots) -> slots - 1);
+			}
+			capacityChanged.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Notify that a session is closed
+	 *
+	 * @param browserName browser name of the session
+	 */
+	public void onSessionClosed(String browserName) {
+		if (!isEnabled()) {
+			return;
+		}
+
+		lock.lock();
+		try {
+			activeSessions = Math.max(0, activeSessions - 1);
+			// The slot is free until the next poll tells otherwise
+			freeSlots.computeIfPresent(browserName, (name, slots) -> slots + 1);
+			capacityChanged.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Poll the Grid status now, e.g. after a session fails to start
+	 */
+	public void refresh() {
+		if (isEnabled()) {
+			poll();
+		}
+	}
+
+	/**
+	 * Get the number of slots which can be used for new sessions, must be called with the lock held
+	 *
+	 * @param browserName browser name
+	 * @return number of available slots
+	 */
+	private int getAvailableSlots(String browserName) {
+		int inFlight = inFlightStarts.getOrDefault(browserName, 0);
+		if (!gridStatusAvailable) {
+			int totalInFlight = inFlightStarts.values().stream().mapToInt(Integer::intValue).sum();
+			return context.getFrameworkConfigs().getThreadCount() - activeSessions - totalInFlight;
+		}
+
+		// Browsers which the Grid does not offer are not held back, the Grid reports the error
+		Integer free = freeSlots.get(browserName);
+		return free == null ? 1 : free - inFlight;
+	}
+
+	/**
+	 * Start polling the Grid status in background
+	 */
+	private void startPolling() {
+		lock.lock();
+		try {
+			if (poller != null || context.isLocalExecutionMode()) {
+				return;
+			}
+
+			poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "grid-capacity-monitor");
+				thread.setDaemon(true);
+				return thread;
+			});
+		} finally {
+			lock.unlock();
+		}
+
+		poll();
+		long interval = context.getFrameworkConfigs().getGridStatusPollIntervalMs();
+		poller.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Poll the Grid status and update the free slots
+	 */
+	private void poll() {
+		Optional<Map<String, Integer>> slots = fetchFreeSlots();
+
+		lock.lock();
+		try {
+			freeSlots.clear();
+			slots.ifPresent(freeSlots::putAll);
+			if (gridStatusAvailable != slots.isPresent()) {
+				frameworkLogger.info(slots.isPresent()
+						? "Grid status available, session starts follow the free slots."
+						: "Grid status not available, session starts are limited by THREAD_COUNT.");
+			}
+			gridStatusAvailable = slots.isPresent();
+			capacityChanged.signalAll();
+		} finally {
+			lock.unlock();
+		}
+
+		if (slots.isPresent() && slots.get().values().stream().anyMatch(free -> free > 0)) {
+			capacityListeners.forEach(Runnable::run);
+		}
+	}
+
+	/**
+	 * Read the free slots per browser from the Grid /status endpoint
+	 *
+	 * @return browser name, free slots map, empty if the status is not available
+	 */
+	private Optional<Map<String, Integer>> fetchFreeSlots() {
+		Request request = new Request.Builder().url(getStatusUrl(context.getFrameworkConfigs())).get().build();
+		try (Response response = client.newCall(request).execute()) {
+			ResponseBody body = response.body();
+			if (!response.isSuccessful() || body == null) {
+				return Optional.empty();
+			}
+
+			JSONArray nodes = new JSONObject(body.string()).getJSONObject("value").optJSONArray("nodes");
+			if (nodes == null) {
+				// Grid 3 does not report the slots
+				return Optional.empty();
+			}
+
+			Map<String, Integer> slots = new HashMap<>();
+			for (int i = 0; i < nodes.length(); i++) {
+				JSONObject node = nodes.getJSONObject(i);
+				if (!"UP".equalsIgnoreCase(node.optString("availability", "UP"))) {
+					continue;
+				}
+
+				JSONArray nodeSlots = node.optJSONArray("slots");
+				for (int j = 0; nodeSlots != null && j < nodeSlots.length(); j++) {
+					JSONObject slot = nodeSlots.getJSONObject(j);
+					String browserName = slot.getJSONObject("stereotype").optString("browserName");
+					int free = slot.isNull("session") ? 1 : 0;
+					slots.merge(browserName, free, Integer::sum);
+				}
+			}
+
+			return Optional.of(slots);
+		} catch (Exception e) {
+			frameworkLogger.debug("Failed to read grid status.", e);
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Get the status URL from HOST_URL, e.g. http://hub:4444/wd/hub to http://hub:4444/status
+	 *
+	 * @param configs framework configs
+	 * @return status URL
+	 */
+	@NotNull
+	private String getStatusUrl(@NotNull FrameworkConfigs configs) {
+		String hostUrl = configs.getHostUrl().replaceAll("/+$", "");
+		if (hostUrl.endsWith("/wd/hub")) {
+			hostUrl = hostUrl.substring(0, hostUrl.length() - "/wd/hub".length());
+		}
+
+		return hostUrl + "/status";
+	}
+
+	/**
+	 * Stop polling the Grid status
+	 */
+	@PreDestroy
+	public void shutdown() {
+		if (poller != null) {
+			poller.shutdownNow();
+		}
+	}
+}
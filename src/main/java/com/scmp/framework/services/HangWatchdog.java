@@ -0,0 +1,346 @@
+package com.scmp.framework.services;
+
+import com.scmp.framework.context.RunTimeContext;
+import com.scmp.framework.utils.RemoteSessionUtils;
+import jakarta.annotation.PreDestroy;
+import org.jetbrains.annotations.NotNull;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.SessionId;
+import org.openqa.selenium.remote.http.*;
+import org.openqa.selenium.remote.service.DriverService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * HangWatchdog - Kills the driver session of a test which hangs in WebDriver, so that the worker thread is freed.
+ * Every WebDriver command of a watched test goes through the command filter, a test is hung if a command runs longer than
+ * COMMAND_HANG_TIMEOUT_SECONDS, or the test holds its session longer than TEST_HANG_TIMEOUT_SECONDS.
+ * On expiry a thread dump and, if possible, a screenshot are written to target/hang-dumps, then the session is killed:
+ * the local driver process tree through ProcessHandle, the remote session through DELETE session.
+ */
+@Component
+public class HangWatchdog {
+	private static final Logger frameworkLogger = LoggerFactory.getLogger(HangWatchdog.class);
+	private static final String DUMP_FOLDER = "target/hang-dumps";
+	private static final long CHECK_INTERVAL_MS = 1000;
+	private static final long SCREENSHOT_TIMEOUT_SECONDS = 10;
+
+	private final RunTimeContext context;
+	private final LocalProcessTracker processTracker;
+	// Watched tests by worker thread
+	private final Map<Thread, WatchedTest> watchedTests = new ConcurrentHashMap<>();
+	// Expired tests by worker thread, until the worker stops watching
+	private final Map<Thread, WatchedTest> expiredTests = new ConcurrentHashMap<>();
+	// Sessions killed by the watchdog
+	private final Set<SessionId> killedSessions = ConcurrentHashMap.newKeySet();
+	private ScheduledExecutorService checker = null;
+
+	@Autowired
+	public HangWatchdog(RunTimeContext context, LocalProcessTracker processTracker) {
+		this.context = context;
+		this.processTracker = processTracker;
+	}
+
+	/**
+	 * Check if the watchdog is enabled
+	 *
+	 * @return true if HANG_WATCHDOG is enabled
+	 */
+	public boolean isEnabled() {
+		return context.getFrameworkConfigs().isHangWatchdog();
+	}
+
+	/**
+	 * Get the client config of the driver sessions, with the command filter if the watchdog is enabled.
+	 * The read timeout is extended beyond COMMAND_HANG_TIMEOUT_SECONDS so that the watchdog expires first.
+	 *
+	 * @return client config
+	 */
+	public ClientConfig getClientConfig() {
+		ClientConfig clientConfig = ClientConfig.defaultConfig();
+		if (!isEnabled()) {
+			return clientConfig;
+		}
+
+		Duration readTimeout = Duration.ofSeconds(context.getFrameworkConfigs().getCommandHangTimeoutSeconds() + 30);
+		if (readTimeout.compareTo(clientConfig.readTimeout()) > 0) {
+			clientConfig = clientConfig.readTimeout(readTimeout);
+		}
+
+		return clientConfig.withFilter(getCommandFilter());
+	}
+
+	/**
+	 * Watch the session of the test on the current thread
+	 *
+	 * @param driver        driver session
+	 * @param driverService local driver service of the session, null for remote sessions
+	 * @param serverUrl     url of the server to delete the remote session on
+	 */
+	public void watch(@NotNull RemoteWebDriver driver, DriverService driverService, String serverUrl) {
+		if (!isEnabled()) {
+			return;
+		}
+
+		ITestResult testResult = Reporter.getCurrentTestResult();
+		String testName = testResult == null ? Thread.currentThread().getName()
+				: testResult.getTestClass().getRealClass().getSimpleName() + "." + testResult.getMethod().getMethodName();
+		watchedTests.put(Thread.currentThread(), new WatchedTest(Thread.currentThread(), testName, driver, driverService, serverUrl));
+		startChecker();
+	}
+
+	/**
+	 * Stop watching the test on the current thread, the interrupt of an expired test is cleared
+	 * so that it does not leak into the teardown and the next test on the worker
+	 */
+	public void unwatch() {
+		watchedTests.remove(Thread.currentThread());
+		WatchedTest expiredTest = expiredTests.remove(Thread.currentThread());
+		if (expiredTest == null) {
+			return;
+		}
+
+		synchronized (expiredTest) {
+			expiredTest.released = true;
+			if (expiredTest.interrupted) {
+				Thread.interrupted();
+			}
+		}
+	}
+
+	/**
+	 * Check if the session is killed by the watchdog
+	 *
+	 * @param driver driver session
+	 * @return true if killed
+	 */
+	public boolean isKilled(@NotNull RemoteWebDriver driver) {
+		return driver.getSessionId() != null && killedSessions.contains(driver.getSessionId());
+	}
+
+	/**
+	 * Stop the checker on shutdown
+	 */
+	@PreDestroy
+	public synchronized void shutdown() {
+		if (checker != null) {
+			checker.shutdownNow();
+			checker = null;
+		}
+	}
+
+	/**
+	 * Get the filter recording the WebDriver commands of the watched tests
+	 *
+	 * @return command filter
+	 */
+	private Filter getCommandFilter() {
+		return next -> request -> {
+			WatchedTest test = watchedTests.get(Thread.currentThread());
+			if (test == null) {
+				return next.execute(request);
+			}
+
+			test.lastCommand = request.getMethod() + " " + request.getUri();
+			test.commandStartedNanos = System.nanoTime();
+			try {
+				return next.execute(request);
+			} finally {
+				test.commandStartedNanos = 0;
+			}
+		};
+	}
+
+	private synchronized void startChecker() {
+		if (checker == null) {
+			checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "hang-watchdog");
+				thread.setDaemon(true);
+				return thread;
+			});
+			checker.scheduleWithFixedDelay(this::check, CHECK_INTERVAL_MS, CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Check the deadlines of the watched tests
+	 */
+	private void check() {
+		long now = System.nanoTime();
+		long testTimeoutNanos = TimeUnit.SECONDS.toNanos(context.getFrameworkConfigs().getTestHangTimeoutSeconds());
+		long commandTimeoutNanos = TimeUnit.SECONDS.toNanos(context.getFrameworkConfigs().getCommandHangTimeoutSeconds());
+
+		for (WatchedTest test : watchedTests.values()) {
+			long commandStartedNanos = test.commandStartedNanos;
+			String reason = null;
+			if (testTimeoutNanos > 0 && now - test.startedNanos > testTimeoutNanos) {
+				reason = "test exceeded TEST_HANG_TIMEOUT_SECONDS";
+			} else if (commandTimeoutNanos > 0 && commandStartedNanos != 0 && now - commandStartedNanos > commandTimeoutNanos) {
+				reason = "command [" + test.lastCommand + "] exceeded COMMAND_HANG_TIMEOUT_SECONDS";
+			}
+
+			if (reason != null && watchedTests.remove(test.thread, test)) {
+				expiredTests.put(test.thread, test);
+				try {
+					expire(test, reason);
+				} catch (Exception e) {
+					frameworkLogger.error("Failed to kill hung session of [{}].", test.testName, e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Dump the threads, take a screenshot, kill the session and interrupt the worker thread
+	 *
+	 * @param test   hung test
+	 * @param reason expiry reason
+	 */
+	private void expire(WatchedTest test, String reason) {
+		SessionId sessionId = test.driver.getSessionId();
+		frameworkLogger.error("Test [{}] hung, {}, killing session [{}].", test.testName, reason, sessionId);
+
+		String filePrefix = test.testName + "-" + LocalDateTime.now(context.getZoneId()).format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+		writeThreadDump(test, reason, new File(DUMP_FOLDER, filePrefix + ".txt"));
+		takeScreenshot(test, new File(DUMP_FOLDER, filePrefix + ".png"));
+
+		if (sessionId != null) {
+			killedSessions.add(sessionId);
+		}
+		if (test.driverService != null) {
+			killLocalDriver(sessionId, test.driverService);
+		} else {
+			RemoteSessionUtils.deleteSession(test.serverUrl, sessionId);
+		}
+
+		// Unblock the worker if the command is still waiting, unless the worker has moved on
+		synchronized (test) {
+			if (!test.released) {
+				test.thread.interrupt();
+				test.interrupted = true;
+			}
+		}
+	}
+
+	/**
+	 * Write the stack traces of all threads, the hung worker thread first
+	 *
+	 * @param test   hung test
+	 * @param reason expiry reason
+	 * @param file   dump file
+	 */
+	private void writeThreadDump(WatchedTest test, String reason, File file) {
+		StringBuilder dump = new StringBuilder();
+		dump.append("Test: ").append(test.testName).append(System.lineSeparator());
+		dump.append("Reason: ").append(reason).append(System.lineSeparator());
+		dump.append("Session: ").append(test.driver.getSessionId()).append(System.lineSeparator());
+		dump.append(System.lineSeparator());
+
+		Map<Thread, StackTraceElement[]> stackTraces = Thread.getAllStackTraces();
+		appendStackTrace(dump, test.thread, stackTraces.getOrDefault(test.thread, test.thread.getStackTrace()));
+		stackTraces.forEach((thread, stackTrace) -> {
+			if (thread != test.thread) {
+				appendStackTrace(dump, thread, stackTrace);
+			}
+		});
+
+		try {
+			Files.createDirectories(file.getParentFile().toPath());
+			Files.writeString(file.toPath(), dump, StandardCharsets.UTF_8);
+			frameworkLogger.error("Thread dump of hung test: {}", file.getPath());
+		} catch (IOException e) {
+			frameworkLogger.error("Failed to write thread dump of hung test.", e);
+		}
+	}
+
+	private void appendStackTrace(StringBuilder dump, Thread thread, StackTraceElement[] stackTrace) {
+		dump.append('"').append(thread.getName()).append("\" ").append(thread.getState()).append(System.lineSeparator());
+		for (StackTraceElement element : stackTrace) {
+			dump.append("\tat ").append(element).append(System.lineSeparator());
+		}
+		dump.append(System.lineSeparator());
+	}
+
+	/**
+	 * Take a screenshot of the hung session, skipped if the browser does not respond in time
+	 *
+	 * @param test hung test
+	 * @param file screenshot file
+	 */
+	private void takeScreenshot(WatchedTest test, File file) {
+		CompletableFuture<byte[]> screenshot = CompletableFuture.supplyAsync(() -> test.driver.getScreenshotAs(OutputType.BYTES));
+		try {
+			byte[] image = screenshot.get(SCREENSHOT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			Files.createDirectories(file.getParentFile().toPath());
+			Files.write(file.toPath(), image);
+			frameworkLogger.error("Screenshot of hung test: {}", file.getPath());
+		} catch (Exception e) {
+			screenshot.cancel(true);
+			frameworkLogger.warn("Failed to take screenshot of hung test [{}].", test.testName);
+		}
+	}
+
+	/**
+	 * Kill the local driver process tree, the tracked processes of the session or the driver found by the port of its service
+	 *
+	 * @param sessionId     session id
+	 * @param driverService local driver service
+	 */
+	private void killLocalDriver(SessionId sessionId, @NotNull DriverService driverService) {
+		if (processTracker.kill(sessionId)) {
+			return;
+		}
+
+		Optional<ProcessHandle> driverProcess = LocalProcessTracker.findDriverProcess(driverService);
+		if (driverProcess.isPresent()) {
+			driverProcess.get().descendants().forEach(ProcessHandle::destroyForcibly);
+			driverProcess.get().destroyForcibly();
+			frameworkLogger.error("Killed local driver process [{}].", driverProcess.get().pid());
+		} else {
+			driverService.stop();
+		}
+	}
+
+	/**
+	 * WatchedTest - Session and the command in progress of a test
+	 */
+	private static class WatchedTest {
+		private final Thread thread;
+		private final String testName;
+		private final RemoteWebDriver driver;
+		private final DriverService driverService;
+		private final String serverUrl;
+		private final long startedNanos = System.nanoTime();
+		private volatile long commandStartedNanos = 0;
+		private volatile String lastCommand = "";
+		// Guarded by the test, the worker has stopped watching
+		private boolean released = false;
+		// Guarded by the test, the worker is interrupted by the watchdog
+		private boolean interrupted = false;
+
+		private WatchedTest(Thread thread, String testName, RemoteWebDriver driver, DriverService driverService, String serverUrl) {
+			this.thread = thread;
+			this.testName = testName;
+			this.driver = driver;
+			this.driverService = driverService;
+			this.serverUrl = serverUrl;
+		}
+	}
+}
@@ -0,0 +1,299 @@
+package com.scmp.framework.services;
+
+import com.scmp.framework.context.RunTimeContext;
+import com.scmp.framework.model.Browser;
+import jakarta.annotation.PreDestroy;
+import org.jetbrains.annotations.NotNull;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.firefox.GeckoDriverService;
+import org.openqa.selenium.net.PortProber;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.SessionId;
+import org.openqa.selenium.remote.http.ClientConfig;
+import org.openqa.selenium.remote.service.DriverService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * LocalDriverServicePool - An in-JVM grid of local driver services, chromedriver and geckodriver processes kept running
+ * between sessions. Sessions are created over the W3C protocol against the service url, the same as against the remote hub,
+ * so quitting a session keeps its service for the next one. Each service runs one session at a time,
+ * at most LOCAL_GRID_MAX_SESSIONS sessions run at the same time, idle services of the other browser are stopped to make room.
+ */
+@Component
+public class LocalDriverServicePool {
+	private static final Logger frameworkLogger = LoggerFactory.getLogger(LocalDriverServicePool.class);
+	private static final long IDLE_SESSION_CLOSE_WAIT_SECONDS = 5;
+
+	private final RunTimeContext context;
+	private final DriverProvisioningService driverProvisioningService;
+	// Idle services per browser, the most recently used first
+	private final Map<Browser, Deque<DriverService>> idleServices = new EnumMap<>(Browser.class);
+	// Services in use by session
+	private final Map<SessionId, LeasedService> leasedServices = new ConcurrentHashMap<>();
+	// Ports handed out and not yet released, the services bind their port only when started
+	private final Set<Integer> allocatedPorts = new HashSet<>();
+	private Semaphore sessionPermits = null;
+	private int runningServices = 0;
+
+	@Autowired
+	public LocalDriverServicePool(RunTimeContext context, DriverProvisioningService driverProvisioningService) {
+		this.context = context;
+		this.driverProvisioningService = driverProvisioningService;
+	}
+
+	/**
+	 * Check if the local grid is enabled
+	 *
+	 * @return true if LOCAL_GRID is enabled in local execution mode
+	 */
+	public boolean isEnabled() {
+		return context.getFrameworkConfigs().isLocalGrid() && context.isLocalExecutionMode();
+	}
+
+	/**
+	 * Create a session on an idle service of the browser, a service is started if none is idle.
+	 * While LOCAL_GRID_MAX_SESSIONS sessions are running, the idle sessions are closed to make room,
+	 * then it waits up to LOCAL_GRID_WAIT_TIMEOUT_SECONDS for a running session to close.
+	 *
+	 * @param browser           browser capabilities
+	 * @param clientConfig      client config of the session
+	 * @param idleSessionCloser closes an idle session, e.g. pooled or pre-warmed, false if there is none
+	 * @return driver session
+	 * @throws Exception if the service or the session cannot be started
+	 */
+	public RemoteWebDriver newSession(@NotNull MutableCapabilities browser, @NotNull ClientConfig clientConfig,
+									  @NotNull BooleanSupplier idleSessionCloser) throws Exception {
+		Browser browserType = browser.getBrowserName().equals(org.openqa.selenium.remote.Browser.CHROME.browserName())
+				? Browser.CHROME : Browser.FIREFOX;
+		Semaphore permits = getSessionPermits();
+		acquirePermit(permits, idleSessionCloser);
+
+		DriverService driverService = null;
+		try {
+			driverService = takeService(browserType);
+			RemoteWebDriver driver = new RemoteWebDriver(
+					new HttpCommandExecutor(Collections.emptyMap(), driverService.getUrl(), clientConfig), browser);
+			leasedServices.put(driver.getSessionId(), new LeasedService(browserType, driverService));
+			return driver;
+		} catch (Exception e) {
+			if (driverService != null) {
+				giveBack(browserType, driverService);
+			}
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Take a session permit, the idle sessions hold their permits until they are closed
+	 *
+	 * @param permits           session permits
+	 * @param idleSessionCloser closes an idle session, false if there is none
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	private void acquirePermit(Semaphore permits, BooleanSupplier idleSessionCloser) throws InterruptedException {
+		boolean acquired = permits.tryAcquire();
+		// The permit of a closed session may be released asynchronously, e.g. by the driver reaper
+		while (!acquired && idleSessionCloser.getAsBoolean()) {
+			acquired = permits.tryAcquire(IDLE_SESSION_CLOSE_WAIT_SECONDS, TimeUnit.SECONDS);
+		}
+
+		int timeoutSeconds = context.getFrameworkConfigs().getLocalGridWaitTimeoutSeconds();
+		if (!acquired && !permits.tryAcquire(timeoutSeconds, TimeUnit.SECONDS)) {
+			throw new IllegalStateException(String.format(
+					"No local grid session slot within %d seconds, all LOCAL_GRID_MAX_SESSIONS sessions are in use.", timeoutSeconds));
+		}
+	}
+
+	/**
+	 * Get the service running the session
+	 *
+	 * @param sessionId session id
+	 * @return driver service, null if the session is not on the local grid
+	 */
+	public DriverService getDriverService(SessionId sessionId) {
+		LeasedService leasedService = sessionId == null ? null : leasedServices.get(sessionId);
+		return leasedService == null ? null : leasedService.driverService;
+	}
+
+	/**
+	 * Return the service of the closed session to the pool, a service which stopped is dropped
+	 *
+	 * @param sessionId session id
+	 */
+	public void release(SessionId sessionId) {
+		LeasedService leasedService = sessionId == null ? null : leasedServices.remove(sessionId);
+		if (leasedService == null) {
+			return;
+		}
+
+		giveBack(leasedService.browser, leasedService.driverService);
+		getSessionPermits().release();
+	}
+
+	/**
+	 * Stop all the services on shutdown
+	 */
+	@PreDestroy
+	public void shutdown() {
+		List<DriverService> services = new ArrayList<>();
+		synchronized (this) {
+			idleServices.values().forEach(services::addAll);
+			idleServices.clear();
+			leasedServices.values().forEach(leasedService -> services.add(leasedService.driverService));
+			leasedServices.clear();
+			runningServices = 0;
+		}
+
+		services.forEach(this::stopService);
+	}
+
+	/**
+	 * Take an idle service of the browser, or start a new one
+	 *
+	 * @param browser browser
+	 * @return running service
+	 * @throws Exception if the service cannot be started
+	 */
+	private DriverService takeService(Browser browser) throws Exception {
+		DriverService evicted = null;
+		synchronized (this) {
+			Deque<DriverService> services = idleServices.computeIfAbsent(browser, key -> new ArrayDeque<>());
+			while (!services.isEmpty()) {
+				DriverService driverService = services.pollFirst();
+				if (driverService.isRunning()) {
+					return driverService;
+				}
+				runningServices--;
+			}
+
+			// A session permit is held, so there is an idle service of the other browser if the grid is full
+			if (runningServices >= getMaxSessions()) {
+				for (Deque<DriverService> otherServices : idleServices.values()) {
+					if (!otherServices.isEmpty()) {
+						evicted = otherServices.pollLast();
+						runningServices--;
+						break;
+					}
+				}
+			}
+			runningServices++;
+		}
+
+		if (evicted != null) {
+			stopService(evicted);
+		}
+
+		try {
+			return startService(browser);
+		} catch (Exception e) {
+			synchronized (this) {
+				runningServices--;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Put the service back to the idle services of the browser
+	 *
+	 * @param browser       browser
+	 * @param driverService driver service
+	 */
+	private void giveBack(Browser browser, DriverService driverService) {
+		synchronized (this) {
+			if (driverService.isRunning()) {
+				idleServices.computeIfAbsent(browser, key -> new ArrayDeque<>()).addFirst(driverService);
+				return;
+			}
+			runningServices--;
+		}
+
+		frameworkLogger.warn("Local {} driver service on {} stopped, dropping it.", browser, driverService.getUrl());
+	}
+
+	/**
+	 * Start a driver service on a free port with the provisioned driver
+	 *
+	 * @param browser browser
+	 * @return running service
+	 * @throws Exception if the service cannot be started
+	 */
+	private DriverService startService(Browser browser) throws Exception {
+		File driverExecutable = new File(driverProvisioningService.getDriverPath(browser));
+		int port = allocatePort();
+		try {
+			DriverService driverService = browser == Browser.CHROME
+					? new ChromeDriverService.Builder().usingDriverExecutable(driverExecutable).usingPort(port).build()
+					: new GeckoDriverService.Builder().usingDriverExecutable(driverExecutable).usingPort(port).build();
+			driverService.start();
+			frameworkLogger.info("Started local {} driver service on {}", browser, driverService.getUrl());
+			return driverService;
+		} finally {
+			synchronized (allocatedPorts) {
+				allocatedPorts.remove(port);
+			}
+		}
+	}
+
+	/**
+	 * Find a free port which is not handed out to another service being started
+	 *
+	 * @return port
+	 */
+	private int allocatePort() {
+		synchronized (allocatedPorts) {
+			int port = PortProber.findFreePort();
+			while (!allocatedPorts.add(port)) {
+				port = PortProber.findFreePort();
+			}
+			return port;
+		}
+	}
+
+	private void stopService(DriverService driverService) {
+		try {
+			driverService.stop();
+		} catch (Exception e) {
+			frameworkLogger.debug("Failed to stop local driver service.", e);
+		}
+	}
+
+	private int getMaxSessions() {
+		int maxSessions = context.getFrameworkConfigs().getLocalGridMaxSessions();
+		return maxSessions > 0 ? maxSessions : Math.max(1, context.getFrameworkConfigs().getThreadCount());
+	}
+
+	private synchronized Semaphore getSessionPermits() {
+		if (sessionPermits == null) {
+			sessionPermits = new Semaphore(getMaxSessions(), true);
+		}
+
+		return sessionPermits;
+	}
+
+	/**
+	 * LeasedService - A service running a session
+	 */
+	private static class LeasedService {
+		private final Browser browser;
+		private final DriverService driverService;
+
+		private LeasedService(Browser browser, DriverService driverService) {
+			this.browser = browser;
+			this.driverService = driverService;
+		}
+	}
+}
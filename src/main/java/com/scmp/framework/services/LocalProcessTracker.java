@@ -0,0 +1,170 @@
+package com.scmp.framework.services;
+
+import org.jetbrains.annotations.NotNull;
+import org.openqa.selenium.remote.SessionId;
+import org.openqa.selenium.remote.service.DriverService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * LocalProcessTracker - Tracks the process trees of the local driver sessions, the driver and the browser processes it spawns.
+ * The tree is recorded when the session starts and refreshed before it quits, the processes still alive after the quit
+ * are killed, so are the processes of the sessions whose driver died. Remaining processes are killed on JVM shutdown.
+ */
+@Component
+public class LocalProcessTracker {
+	private static final Logger frameworkLogger = LoggerFactory.getLogger(LocalProcessTracker.class);
+
+	// Process trees by session
+	private final Map<SessionId, ProcessTree> processTrees = new ConcurrentHashMap<>();
+	private final Thread shutdownHook = new Thread(this::reapAll, "local-process-reaper");
+	private boolean shutdownHookAdded = false;
+
+	/**
+	 * Record the process tree of a local session, the driver is found by the port of its service
+	 *
+	 * @param sessionId     session id
+	 * @param driverService local driver service of the session
+	 */
+	public void track(@NotNull SessionId sessionId, @NotNull DriverService driverService) {
+		track(sessionId, driverService, true);
+	}
+
+	/**
+	 * Record the process tree of a local session
+	 *
+	 * @param sessionId     session id
+	 * @param driverService local driver service of the session
+	 * @param ownsDriver    false if the driver keeps running for other sessions, only its browser processes are reaped
+	 */
+	public void track(@NotNull SessionId sessionId, @NotNull DriverService driverService, boolean ownsDriver) {
+		Optional<ProcessHandle> driverProcess = findDriverProcess(driverService);
+		if (driverProcess.isEmpty()) {
+			frameworkLogger.warn("Driver process of session [{}] not found, its processes are not tracked.", sessionId);
+			return;
+		}
+
+		ProcessTree processTree = new ProcessTree(driverProcess.get(), ownsDriver);
+		processTree.refresh();
+		processTrees.put(sessionId, processTree);
+		addShutdownHook();
+	}
+
+	/**
+	 * Record the processes spawned by the session since it started, e.g. before quitting it
+	 *
+	 * @param sessionId session id
+	 */
+	public void refresh(SessionId sessionId) {
+		Optional.ofNullable(sessionId).map(processTrees::get).ifPresent(ProcessTree::refresh);
+	}
+
+	/**
+	 * Kill the processes of the quit session which are still alive, and the processes of the sessions whose driver died
+	 *
+	 * @param sessionId session id
+	 */
+	public void reap(SessionId sessionId) {
+		if (sessionId != null) {
+			Optional.ofNullable(processTrees.remove(sessionId)).ifPresent(processTree -> processTree.kill(sessionId));
+		}
+
+		processTrees.entrySet().removeIf(entry -> {
+			if (entry.getValue().driverProcess.isAlive()) {
+				return false;
+			}
+			entry.getValue().kill(entry.getKey());
+			return true;
+		});
+	}
+
+	/**
+	 * Kill the whole process tree of the session including the driver, e.g. a hung session
+	 *
+	 * @param sessionId session id
+	 * @return true if the session is tracked
+	 */
+	public boolean kill(SessionId sessionId) {
+		ProcessTree processTree = sessionId == null ? null : processTrees.remove(sessionId);
+		if (processTree == null) {
+			return false;
+		}
+
+		processTree.refresh();
+		processTree.processes.add(processTree.driverProcess);
+		processTree.kill(sessionId);
+		return true;
+	}
+
+	/**
+	 * Kill the processes of all the tracked sessions, on JVM shutdown
+	 */
+	public void reapAll() {
+		new ArrayList<>(processTrees.keySet()).forEach(this::kill);
+	}
+
+	/**
+	 * Find the driver process among the processes started by this JVM, by the port in its arguments
+	 *
+	 * @param driverService local driver service
+	 * @return driver process, empty if not found
+	 */
+	public static Optional<ProcessHandle> findDriverProcess(@NotNull DriverService driverService) {
+		int port = driverService.getUrl().getPort();
+		return ProcessHandle.current().descendants()
+				.filter(process -> process.info().commandLine()
+						.map(commandLine -> commandLine.contains("--port=" + port) || commandLine.contains("--port " + port))
+						.orElse(false))
+				.findFirst();
+	}
+
+	private synchronized void addShutdownHook() {
+		if (!shutdownHookAdded) {
+			Runtime.getRuntime().addShutdownHook(shutdownHook);
+			shutdownHookAdded = true;
+		}
+	}
+
+	/**
+	 * ProcessTree - Driver process and the processes spawned by it, kept after they are re-parented
+	 */
+	private static class ProcessTree {
+		private final ProcessHandle driverProcess;
+		private final Set<ProcessHandle> processes = ConcurrentHashMap.newKeySet();
+
+		private ProcessTree(ProcessHandle driverProcess, boolean ownsDriver) {
+			this.driverProcess = driverProcess;
+			if (ownsDriver) {
+				this.processes.add(driverProcess);
+			}
+		}
+
+		private void refresh() {
+			driverProcess.descendants().forEach(processes::add);
+		}
+
+		/**
+		 * Kill the processes still alive, the browser processes first
+		 *
+		 * @param sessionId session id
+		 */
+		private void kill(SessionId sessionId) {
+			List<ProcessHandle> aliveProcesses = processes.stream()
+					.filter(ProcessHandle::isAlive)
+					.sorted(Comparator.comparing((ProcessHandle process) -> process.equals(driverProcess)))
+					.collect(Collectors.toList());
+			if (aliveProcesses.isEmpty()) {
+				return;
+			}
+
+			aliveProcesses.forEach(ProcessHandle::destroyForcibly);
+			frameworkLogger.warn("Killed {} orphan processes of session [{}]: {}", aliveProcesses.size(), sessionId,
+					aliveProcesses.stream().map(process -> String.valueOf(process.pid())).collect(Collectors.joining(", ")));
+		}
+	}
+}
@@ -3,7 +3,9 @@ package com.scmp.framework.services;
 
 import com.aventstack.extentreports.ExtentTest;
 import com.aventstack.extentreports.Status;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
 import com.scmp.framework.context.RunTimeContext;
+import com.scmp.framework.model.TestPhase;
 import com.scmp.framework.report.ExtentTestService;
 import com.scmp.framework.testng.listeners.RetryAnalyzer;
 import com.scmp.framework.testng.model.TestInfo;
@@ -36,12 +38,15 @@ public class ReportService {
 	private final ScreenShotService screenshotService;
 	private final RunTimeContext runTimeContext;
 	private final ExtentTestService extentTestService;
+	private final TestPhaseProfiler phaseProfiler;
 
 	@Autowired
-	private ReportService(RunTimeContext runTimeContext, ExtentTestService extentTestService, ScreenShotService screenshotService) {
+	private ReportService(RunTimeContext runTimeContext, ExtentTestService extentTestService, ScreenShotService screenshotService,
+						  TestPhaseProfiler phaseProfiler) {
 		this.runTimeContext = runTimeContext;
 		this.screenshotService = screenshotService;
 		this.extentTestService = extentTestService;
+		this.phaseProfiler = phaseProfiler;
 	}
 
 	/**
@@ -101,14 +106,20 @@ public class ReportService {
 			currentTestMethod.get().log(Status.SKIP, "Test skipped");
 		}
 
-		extentTestService.flush();
+		try (TestPhaseProfiler.PhaseTimer ignored = phaseProfiler.start(TestPhase.REPORT_FLUSH)) {
+			extentTestService.flush();
+		}
 
 		// Handling for Retry
 		handleRetry(result);
 
-		extentTestService.flush();
+		try (TestPhaseProfiler.PhaseTimer ignored = phaseProfiler.start(TestPhase.REPORT_FLUSH)) {
+			extentTestService.flush();
+		}
 
-		this.testInfo.get().uploadTestResultsToTestRail();
+		try (TestPhaseProfiler.PhaseTimer ignored = phaseProfiler.start(TestPhase.TESTRAIL_UPLOAD)) {
+			this.testInfo.get().uploadTestResultsToTestRail();
+		}
 	}
 
 	/**
@@ -244,6 +255,15 @@ public class ReportService {
 		this.addTestRailLog(TestRailStatus.Passed, message, null);
 	}
 
+	/**
+	 * Log a table to the test report only, e.g. the metrics of the test.
+	 *
+	 * @param data table rows
+	 */
+	public void logInfoTable(String[][] data) {
+		this.currentTestMethod.get().info(MarkupHelper.createTable(data));
+	}
+
 	/**
 	 * Log a screenshot and return its path.
 	 *
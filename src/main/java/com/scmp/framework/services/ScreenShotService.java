@@ -2,6 +2,7 @@ package com.scmp.framework.services;
 
 import com.aventstack.extentreports.Status;
 import com.scmp.framework.context.RunTimeContext;
+import com.scmp.framework.model.TestPhase;
 import org.apache.commons.io.FileUtils;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
@@ -25,10 +26,12 @@ public class ScreenShotService {
 
 	private final RunTimeContext context;
 	private final WebDriverService webDriverService;
+	private final TestPhaseProfiler phaseProfiler;
 
 	@Autowired
-	public ScreenShotService(RunTimeContext context, WebDriverService webDriverService) {
+	public ScreenShotService(RunTimeContext context, WebDriverService webDriverService, TestPhaseProfiler phaseProfiler) {
 		this.webDriverService = webDriverService;
+		this.phaseProfiler = phaseProfiler;
 		this.context = context;
 	}
 
@@ -40,7 +43,21 @@ public class ScreenShotService {
 	 * @param methodName the name of the test method
 	 * @return the path to the saved screenshot
 	 */
-	public synchronized String captureScreenShot(Status status, String className, String methodName) {
+	public String captureScreenShot(Status status, String className, String methodName) {
+		try (TestPhaseProfiler.PhaseTimer ignored = phaseProfiler.start(TestPhase.SCREENSHOT)) {
+			return capture(status, className, methodName);
+		}
+	}
+
+	/**
+	 * Capture a screenshot of the current driver, one at a time
+	 *
+	 * @param status     the status of the test
+	 * @param className  the name of the test class
+	 * @param methodName the name of the test method
+	 * @return the path to the saved screenshot
+	 */
+	private synchronized String capture(Status status, String className, String methodName) {
 		// If driver is not setup properly
 		if (webDriverService.getDriver() == null) {
 			frameworkLogger.warn("WebDriver is not initialized.");
@@ -0,0 +1,207 @@
+package com.scmp.framework.services;
+
+import com.scmp.framework.context.FrameworkConfigs;
+import com.scmp.framework.context.RunTimeContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * SessionAcquisitionPolicy - Retries the session creation with jittered exponential backoff.
+ * Consecutive failures across all threads open a shared circuit breaker, new session requests wait until
+ * the breaker lets a trial request through, at most SESSION_MAX_WAITERS requests wait at the same time.
+ * An open breaker lets one trial request through as soon as the grid reports free slots, the backoff delays of
+ * the failed requests are kept, so the retries stay spread out.
+ */
+@Component
+public class SessionAcquisitionPolicy {
+	private static final Logger frameworkLogger = LoggerFactory.getLogger(SessionAcquisitionPolicy.class);
+
+	private final RunTimeContext context;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition breakerChanged = lock.newCondition();
+	private volatile Semaphore waiters = null;
+
+	private BreakerState breakerState = BreakerState.CLOSED;
+	private int consecutiveFailures = 0;
+	private long openUntilNanos = 0;
+
+	@Autowired
+	public SessionAcquisitionPolicy(RunTimeContext context, GridCapacityMonitor capacityMonitor) {
+		this.context = context;
+		capacityMonitor.addCapacityListener(this::onCapacityChanged);
+	}
+
+	/**
+	 * Check if the policy is enabled
+	 *
+	 * @return true if SESSION_BACKOFF is enabled
+	 */
+	public boolean isEnabled() {
+		return context.getFrameworkConfigs().isSessionBackoff();
+	}
+
+	/**
+	 * Create a session, retried with backoff while the attempts fail
+	 *
+	 * @param attempt session creation
+	 * @param cleanup called after a failed attempt, e.g. to stop the partially started session
+	 * @throws Exception the error of the last attempt, or if no more requests can wait
+	 */
+	public void acquire(SessionAttempt attempt, Runnable cleanup) throws Exception {
+		FrameworkConfigs configs = context.getFrameworkConfigs();
+		int maxAttempts = configs.getSessionRetryCount() + 1;
+
+		for (int attemptNumber = 0; ; attemptNumber++) {
+			awaitBreaker();
+			try {
+				attempt.run();
+				onSuccess();
+				return;
+			} catch (Exception e) {
+				cleanup.run();
+				onFailure();
+				if (attemptNumber + 1 >= maxAttempts) {
+					throw e;
+				}
+
+				long delayMillis = getBackoffMillis(attemptNumber);
+				frameworkLogger.warn("Failed to create session, attempt {} of {}, retry in {} ms.", attemptNumber + 1, maxAttempts, delayMillis, e);
+				TimeUnit.MILLISECONDS.sleep(delayMillis);
+			}
+		}
+	}
+
+	/**
+	 * Let one waiting request through as the trial of an open breaker, when the grid reports free slots
+	 */
+	public void onCapacityChanged() {
+		lock.lock();
+		try {
+			if (breakerState == BreakerState.OPEN) {
+				openUntilNanos = System.nanoTime();
+				breakerChanged.signal();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Get the backoff delay with full jitter, between 0 and min(SESSION_RETRY_MAX_DELAY_MS, SESSION_RETRY_BASE_DELAY_MS * 2^attempt)
+	 *
+	 * @param attemptNumber number of the failed attempt, from 0
+	 * @return delay in milliseconds
+	 */
+	private long getBackoffMillis(int attemptNumber) {
+		FrameworkConfigs configs = context.getFrameworkConfigs();
+		long maxDelay = configs.getSessionRetryBaseDelayMs() << Math.min(attemptNumber, 20);
+		maxDelay = Math.min(maxDelay, configs.getSessionRetryMaxDelayMs());
+		return ThreadLocalRandom.current().nextLong(maxDelay + 1);
+	}
+
+	/**
+	 * Wait until the breaker is closed, or this request is the trial of the half open breaker
+	 *
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	private void awaitBreaker() throws InterruptedException {
+		Semaphore waiterPermits = getWaiters();
+		boolean waiting = false;
+
+		lock.lock();
+		try {
+			while (true) {
+				if (breakerState == BreakerState.CLOSED) {
+					return;
+				}
+				if (breakerState == BreakerState.OPEN && System.nanoTime() >= openUntilNanos) {
+					frameworkLogger.info("Circuit breaker half open, trying a new session.");
+					breakerState = BreakerState.HALF_OPEN;
+					return;
+				}
+
+				if (!waiting) {
+					if (!waiterPermits.tryAcquire()) {
+						throw new IllegalStateException("Grid unavailable, too many requests waiting for a session.");
+					}
+					waiting = true;
+				}
+
+				long waitNanos = breakerState == BreakerState.OPEN ? openUntilNanos - System.nanoTime() : TimeUnit.SECONDS.toNanos(1);
+				breakerChanged.awaitNanos(Math.max(waitNanos, 1));
+			}
+		} finally {
+			lock.unlock();
+			if (waiting) {
+				waiterPermits.release();
+			}
+		}
+	}
+
+	private void onSuccess() {
+		lock.lock();
+		try {
+			if (breakerState != BreakerState.CLOSED) {
+				frameworkLogger.info("Circuit breaker closed, the grid accepts new sessions.");
+			}
+			breakerState = BreakerState.CLOSED;
+			consecutiveFailures = 0;
+			breakerChanged.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void onFailure() {
+		FrameworkConfigs configs = context.getFrameworkConfigs();
+		lock.lock();
+		try {
+			consecutiveFailures++;
+			if (breakerState == BreakerState.HALF_OPEN || consecutiveFailures >= configs.getCircuitBreakerFailureThreshold()) {
+				if (breakerState != BreakerState.OPEN) {
+					frameworkLogger.warn("Circuit breaker open after {} failures, pausing new sessions for {} seconds.",
+							consecutiveFailures, configs.getCircuitBreakerOpenSeconds());
+				}
+				breakerState = BreakerState.OPEN;
+				openUntilNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(configs.getCircuitBreakerOpenSeconds());
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private Semaphore getWaiters() {
+		if (waiters == null) {
+			synchronized (this) {
+				if (waiters == null) {
+					int maxWaiters = context.getFrameworkConfigs().getSessionMaxWaiters();
+					waiters = new Semaphore(maxWaiters > 0 ? maxWaiters : context.getFrameworkConfigs().getThreadCount());
+				}
+			}
+		}
+
+		return waiters;
+	}
+
+	/**
+	 * SessionAttempt - An attempt to create a session
+	 */
+	@FunctionalInterface
+	public interface SessionAttempt {
+		void run() throws Exception;
+	}
+
+	private enum BreakerState {
+		CLOSED,
+		OPEN,
+		HALF_OPEN
+	}
+}
@@ -0,0 +1,199 @@
+package com.scmp.framework.services;
+
+import com.scmp.framework.annotations.*;
+import com.scmp.framework.context.RunTimeContext;
+import com.scmp.framework.model.Browser;
+import com.scmp.framework.testng.model.BrowserOptionsFactory;
+import jakarta.annotation.PreDestroy;
+import org.jetbrains.annotations.NotNull;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.MutableCapabilities;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SessionPrewarmer - Starts the driver sessions of the upcoming tests ahead of need.
+ * The tests of each TestNG test are queued in the intercepted order, every started test moves the window forward,
+ * so that sessions are being started for the next SESSION_PREWARM_COUNT tests while the current tests run.
+ * The started sessions are put into the session pool and taken by the test with the same capabilities.
+ * Tests with a random browser, without browser, or which cannot reuse a session are not pre-warmed.
+ */
+@Component
+public class SessionPrewarmer {
+	private static final Logger frameworkLogger = LoggerFactory.getLogger(SessionPrewarmer.class);
+
+	private final RunTimeContext context;
+	private final WebDriverService webDriverService;
+	private final BrowserCapabilityCache capabilityCache;
+	// Upcoming tests per TestNG test
+	private final Map<String, UpcomingTests> upcomingTests = new HashMap<>();
+	private ExecutorService executor = null;
+
+	@Autowired
+	public SessionPrewarmer(RunTimeContext context, WebDriverService webDriverService, BrowserCapabilityCache capabilityCache) {
+		this.context = context;
+		this.webDriverService = webDriverService;
+		this.capabilityCache = capabilityCache;
+	}
+
+	/**
+	 * Check if the pre-warming is enabled
+	 *
+	 * @return true if SESSION_PREWARM_COUNT is greater than 0
+	 */
+	public boolean isEnabled() {
+		return context.getFrameworkConfigs().getSessionPrewarmCount() > 0;
+	}
+
+	/**
+	 * Queue the tests of a TestNG test in execution order and start the first sessions
+	 *
+	 * @param queueName   name of the TestNG test
+	 * @param methods     test methods in execution order
+	 * @param browserType browser parameter of the TestNG test
+	 */
+	public synchronized void enqueue(String queueName, @NotNull List<Method> methods, String browserType) {
+		if (!isEnabled()) {
+			return;
+		}
+
+		Browser browser = Browser.valueOf(browserType.trim().toUpperCase());
+		List<Method> eligibleMethods = new ArrayList<>();
+		methods.stream().filter(method -> getPlannedBrowser(method, browser).isPresent()).forEach(eligibleMethods::add);
+
+		UpcomingTests queue = new UpcomingTests(eligibleMethods, browser);
+		upcomingTests.put(queueName, queue);
+		frameworkLogger.info("Pre-warm sessions for {} of {} tests in [{}]", eligibleMethods.size(), methods.size(), queueName);
+		topUp(queue);
+	}
+
+	/**
+	 * Notify that a test starts, the session of the next upcoming test is started
+	 *
+	 * @param queueName name of the TestNG test
+	 * @param method    test method
+	 */
+	public synchronized void onTestStarted(String queueName, Method method) {
+		UpcomingTests queue = upcomingTests.get(queueName);
+		if (queue == null || getPlannedBrowser(method, queue.browser).isEmpty()) {
+			return;
+		}
+
+		queue.consumed++;
+		topUp(queue);
+	}
+
+	/**
+	 * Drop the queued tests, e.g. at the end of the run
+	 */
+	public synchronized void clear() {
+		upcomingTests.clear();
+	}
+
+	/**
+	 * Stop pre-warming on shutdown
+	 */
+	@PreDestroy
+	public synchronized void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Start the sessions of the tests in the window
+	 *
+	 * @param queue upcoming tests
+	 */
+	private void topUp(@NotNull UpcomingTests queue) {
+		int windowEnd = Math.min(queue.consumed + context.getFrameworkConfigs().getSessionPrewarmCount(), queue.methods.size());
+		while (queue.started < windowEnd) {
+			Method method = queue.methods.get(queue.started++);
+			getPlannedBrowser(method, queue.browser).ifPresent(browser -> getExecutor().submit(() -> prewarm(method, browser)));
+		}
+	}
+
+	/**
+	 * Start a session for the test and put it into the pool
+	 *
+	 * @param method  test method
+	 * @param browser browser of the test
+	 */
+	private void prewarm(Method method, Browser browser) {
+		try {
+			MutableCapabilities browserOptions = capabilityCache.getBrowserOption(method, browser);
+			Dimension deviceDimension = new BrowserOptionsFactory(context).getDeviceDimension(method, null);
+			webDriverService.prewarmSession(browserOptions, deviceDimension);
+		} catch (Exception e) {
+			frameworkLogger.warn("Failed to pre-warm session for [{}].", method.getName(), e);
+		}
+	}
+
+	/**
+	 * Get the browser the test will run on, following the browser annotations of TestInfo
+	 *
+	 * @param method  test method
+	 * @param browser browser parameter of the TestNG test
+	 * @return browser, empty if the test is not pre-warmed
+	 */
+	private Optional<Browser> getPlannedBrowser(@NotNull Method method, Browser browser) {
+		// Private mode, custom proxy and network capture need a new session
+		LaunchBrowser launchBrowser = method.getAnnotation(LaunchBrowser.class);
+		if ((launchBrowser != null && !launchBrowser.status())
+				|| method.getAnnotation(IncognitoPrivateMode.class) != null
+				|| method.getAnnotation(CustomProxy.class) != null
+				|| method.getAnnotation(CaptureNetworkTraffic4Chrome.class) != null) {
+			return Optional.empty();
+		}
+
+		if (method.getAnnotation(FirefoxOnly.class) != null) {
+			return Optional.of(Browser.FIREFOX);
+		} else if (method.getAnnotation(ChromeOnly.class) != null) {
+			return Optional.of(Browser.CHROME);
+		}
+
+		return browser == Browser.RANDOM ? Optional.empty() : Optional.of(browser);
+	}
+
+	/**
+	 * Get the executor starting the sessions, SESSION_PREWARM_COUNT sessions are started at the same time
+	 *
+	 * @return executor
+	 */
+	private ExecutorService getExecutor() {
+		if (executor == null) {
+			AtomicInteger threadNumber = new AtomicInteger();
+			executor = Executors.newFixedThreadPool(context.getFrameworkConfigs().getSessionPrewarmCount(), runnable -> {
+				Thread thread = new Thread(runnable, "session-prewarmer-" + threadNumber.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+
+		return executor;
+	}
+
+	/**
+	 * UpcomingTests - Test methods of a TestNG test in execution order
+	 */
+	private static class UpcomingTests {
+		private final List<Method> methods;
+		private final Browser browser;
+		// Number of the tests started, and the number of the sessions started
+		private int consumed = 0;
+		private int started = 0;
+
+		private UpcomingTests(List<Method> methods, Browser browser) {
+			this.methods = methods;
+			this.browser = browser;
+		}
+	}
+}
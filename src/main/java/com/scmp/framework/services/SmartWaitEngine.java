@@ -0,0 +1,245 @@
+package com.scmp.framework.services;
+
+import com.scmp.framework.context.RunTimeContext;
+import com.scmp.framework.model.TestPhase;
+import org.jetbrains.annotations.NotNull;
+import org.openqa.selenium.NotFoundException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * SmartWaitEngine - Explicit waits with adaptive polling, used instead of the implicit wait of the sessions with SMART_WAIT.
+ * The implicit wait is turned off, so a lookup of a missing element returns at once. A wait polls its condition from
+ * SMART_WAIT_MIN_POLL_MS, doubling the interval up to SMART_WAIT_MAX_POLL_MS. The waits of a test share the
+ * SMART_WAIT_BUDGET_SECONDS budget, once it is spent the conditions are checked once without waiting.
+ * A wait started inside another wait on the same thread, e.g. the lookup of a PageFactory element in waitForVisible,
+ * checks its condition once, the outer wait does the retries and is the only one counted.
+ */
+@Component
+public class SmartWaitEngine {
+	private static final Logger frameworkLogger = LoggerFactory.getLogger(SmartWaitEngine.class);
+	public static final Duration DEFAULT_IMPLICIT_WAIT = Duration.ofSeconds(5);
+
+	private final RunTimeContext context;
+	private final TestPhaseProfiler phaseProfiler;
+	private final ThreadLocal<WaitStats> currentTestStats = new ThreadLocal<>();
+	// True while a wait is running on the thread
+	private final ThreadLocal<Boolean> waiting = ThreadLocal.withInitial(() -> false);
+
+	@Autowired
+	public SmartWaitEngine(RunTimeContext context, TestPhaseProfiler phaseProfiler) {
+		this.context = context;
+		this.phaseProfiler = phaseProfiler;
+	}
+
+	/**
+	 * Check if the smart wait is enabled
+	 *
+	 * @return true if SMART_WAIT is enabled
+	 */
+	public boolean isEnabled() {
+		return context.getFrameworkConfigs().isSmartWait();
+	}
+
+	/**
+	 * Get the implicit wait of the new sessions
+	 *
+	 * @return zero with the smart wait, otherwise 5 seconds
+	 */
+	public Duration getImplicitWait() {
+		return isEnabled() ? Duration.ZERO : DEFAULT_IMPLICIT_WAIT;
+	}
+
+	/**
+	 * Start the wait budget of the test on the current thread
+	 */
+	public void startTest() {
+		if (isEnabled()) {
+			currentTestStats.set(new WaitStats(TimeUnit.SECONDS.toNanos(context.getFrameworkConfigs().getSmartWaitBudgetSeconds())));
+		} else {
+			currentTestStats.remove();
+		}
+	}
+
+	/**
+	 * Stop the wait budget of the test on the current thread
+	 *
+	 * @return wait stats of the test, empty if not recorded
+	 */
+	public Optional<WaitStats> finishTest() {
+		WaitStats stats = currentTestStats.get();
+		currentTestStats.remove();
+		return Optional.ofNullable(stats);
+	}
+
+	/**
+	 * Wait until the condition returns neither null nor false, missing and stale elements are retried
+	 *
+	 * @param driver    driver session
+	 * @param condition condition, e.g. ExpectedConditions.visibilityOf(element)
+	 * @param timeout   max time to wait, capped by the remaining budget of the test
+	 * @param <T>       return type of the condition
+	 * @return the value of the condition
+	 * @throws TimeoutException if the condition is not met in time
+	 */
+	public <T> T until(@NotNull WebDriver driver, @NotNull Function<? super WebDriver, T> condition, @NotNull Duration timeout) {
+		return until(driver, condition, timeout, null);
+	}
+
+	/**
+	 * Wait until the condition returns neither null nor false, an observer waits for the condition first,
+	 * e.g. the DOM observer of EVENT_DRIVEN_WAIT, its time counts as part of the wait
+	 *
+	 * @param driver    driver session
+	 * @param condition condition, e.g. ExpectedConditions.visibilityOf(element)
+	 * @param timeout   max time to wait, capped by the remaining budget of the test
+	 * @param observer  waits up to the given time before the condition is polled, null to poll right away
+	 * @param <T>       return type of the condition
+	 * @return the value of the condition
+	 * @throws TimeoutException if the condition is not met in time
+	 */
+	public <T> T until(@NotNull WebDriver driver, @NotNull Function<? super WebDriver, T> condition, @NotNull Duration timeout,
+					   Consumer<Duration> observer) {
+		if (waiting.get()) {
+			// Nested in another wait, which retries
+			return poll(driver, condition, System.nanoTime());
+		}
+
+		WaitStats stats = currentTestStats.get();
+		long timeoutNanos = timeout.toNanos();
+		if (stats != null && stats.getRemainingNanos() < timeoutNanos) {
+			if (!stats.budgetExhausted && stats.getRemainingNanos() <= 0) {
+				stats.budgetExhausted = true;
+				frameworkLogger.warn("Wait budget of {} seconds is spent, conditions are checked without waiting.",
+						context.getFrameworkConfigs().getSmartWaitBudgetSeconds());
+			}
+			timeoutNanos = Math.max(0, stats.getRemainingNanos());
+		}
+
+		long startTime = System.nanoTime();
+		boolean timedOut = false;
+		waiting.set(true);
+		try (TestPhaseProfiler.PhaseTimer ignored = phaseProfiler.start(TestPhase.EXPLICIT_WAIT)) {
+			if (observer != null) {
+				observer.accept(Duration.ofNanos(timeoutNanos));
+			}
+			return poll(driver, condition, startTime + timeoutNanos);
+		} catch (TimeoutException e) {
+			timedOut = true;
+			throw e;
+		} finally {
+			waiting.remove();
+			if (stats != null) {
+				stats.record(System.nanoTime() - startTime, timedOut);
+			}
+		}
+	}
+
+	/**
+	 * Poll the condition until the deadline, the interval doubles after each miss
+	 *
+	 * @param driver        driver session
+	 * @param condition     condition
+	 * @param deadlineNanos deadline in System.nanoTime
+	 * @param <T>           return type of the condition
+	 * @return the value of the condition
+	 */
+	private <T> T poll(WebDriver driver, Function<? super WebDriver, T> condition, long deadlineNanos) {
+		long intervalMillis = Math.max(1, context.getFrameworkConfigs().getSmartWaitMinPollMs());
+		long maxIntervalMillis = Math.max(intervalMillis, context.getFrameworkConfigs().getSmartWaitMaxPollMs());
+		RuntimeException lastException = null;
+		while (true) {
+			try {
+				T value = condition.apply(driver);
+				if (value != null && !Boolean.FALSE.equals(value)) {
+					return value;
+				}
+			} catch (NotFoundException | StaleElementReferenceException | TimeoutException e) {
+				// Missing and stale elements, or the miss of a nested wait
+				lastException = e;
+			}
+
+			long remainingNanos = deadlineNanos - System.nanoTime();
+			if (remainingNanos <= 0) {
+				throw new TimeoutException("Expected condition failed: waiting for " + condition, lastException);
+			}
+
+			try {
+				Thread.sleep(Math.min(intervalMillis, Math.max(1, TimeUnit.NANOSECONDS.toMillis(remainingNanos))));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new WebDriverException(e);
+			}
+			intervalMillis = Math.min(intervalMillis * 2, maxIntervalMillis);
+		}
+	}
+
+	/**
+	 * WaitStats - Explicit waits of a test
+	 */
+	public static class WaitStats {
+		private final long budgetNanos;
+		private int waitCount = 0;
+		private int timeoutCount = 0;
+		private long waitNanos = 0;
+		private boolean budgetExhausted = false;
+
+		private WaitStats(long budgetNanos) {
+			this.budgetNanos = budgetNanos;
+		}
+
+		private void record(long nanos, boolean timedOut) {
+			waitCount++;
+			waitNanos += nanos;
+			if (timedOut) {
+				timeoutCount++;
+			}
+		}
+
+		private long getRemainingNanos() {
+			return budgetNanos - waitNanos;
+		}
+
+		public int getWaitCount() {
+			return waitCount;
+		}
+
+		public int getTimeoutCount() {
+			return timeoutCount;
+		}
+
+		public long getWaitNanos() {
+			return waitNanos;
+		}
+
+		public boolean isBudgetExhausted() {
+			return budgetExhausted;
+		}
+
+		/**
+		 * Get the stats as a report table
+		 *
+		 * @return table rows
+		 */
+		public String[][] toTable() {
+			return new String[][]{
+					{"Explicit waits", String.valueOf(waitCount)},
+					{"Wait time (ms)", String.valueOf(Math.round(waitNanos / 1e5) / 10.0)},
+					{"Wait timeouts", String.valueOf(timeoutCount)},
+					{"Wait budget spent", String.valueOf(budgetExhausted)}
+			};
+		}
+	}
+}
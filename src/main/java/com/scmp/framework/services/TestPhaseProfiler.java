@@ -0,0 +1,256 @@
+package com.scmp.framework.services;
+
+import com.google.gson.GsonBuilder;
+import com.scmp.framework.context.RunTimeContext;
+import com.scmp.framework.model.LatencyHistogram;
+import com.scmp.framework.model.TestPhase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import static com.scmp.framework.utils.Constants.TARGET_PATH;
+
+/**
+ * TestPhaseProfiler - Measures the time of each phase of the tests, from the TestInfo construction to the driver stop.
+ * Phases are exclusive, the time of a phase nested in another one, e.g. a screenshot in the test body, is only counted
+ * in the nested phase, so the phases of a test add up to its wall-clock time. The percentiles per phase and the share of
+ * the framework overhead against the test bodies are written to target/test-phases.json at the end of the run.
+ * The explicit waits are spent on the application under test, they count with the test bodies, not as overhead.
+ */
+@Component
+public class TestPhaseProfiler {
+	private static final Logger frameworkLogger = LoggerFactory.getLogger(TestPhaseProfiler.class);
+	private static final String SUMMARY_FILE_NAME = "test-phases.json";
+	private static final PhaseTimer NOOP_TIMER = new PhaseTimer(null, null);
+
+	private final RunTimeContext context;
+	// Histograms per phase
+	private final Map<TestPhase, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+	private final List<Map<String, Object>> testSummaries = new CopyOnWriteArrayList<>();
+	private final LongAdder wallClockNanos = new LongAdder();
+	private final ThreadLocal<PhaseTimes> currentTest = new ThreadLocal<>();
+
+	@Autowired
+	public TestPhaseProfiler(RunTimeContext context) {
+		this.context = context;
+	}
+
+	/**
+	 * Check if the phase profiling is enabled
+	 *
+	 * @return true if TEST_PHASE_METRICS is enabled
+	 */
+	public boolean isEnabled() {
+		return context.getFrameworkConfigs().isTestPhaseMetrics();
+	}
+
+	/**
+	 * Start profiling the test on the current thread
+	 */
+	public void startTest() {
+		if (isEnabled()) {
+			currentTest.set(new PhaseTimes());
+		} else {
+			currentTest.remove();
+		}
+	}
+
+	/**
+	 * Start timing a phase of the current test, stop the timer when the phase ends
+	 *
+	 * @param phase test phase
+	 * @return phase timer, a no-op timer if the test is not profiled
+	 */
+	public PhaseTimer start(TestPhase phase) {
+		PhaseTimes times = currentTest.get();
+		return times == null ? NOOP_TIMER : new PhaseTimer(phase, times);
+	}
+
+	/**
+	 * Start timing the test body, after the test is set up
+	 */
+	public void startTestBody() {
+		PhaseTimes times = currentTest.get();
+		if (times != null) {
+			times.bodyTimer = start(TestPhase.TEST_BODY);
+		}
+	}
+
+	/**
+	 * Stop timing the test body, when the test method returns
+	 */
+	public void stopTestBody() {
+		PhaseTimes times = currentTest.get();
+		if (times != null && times.bodyTimer != null) {
+			times.bodyTimer.close();
+			times.bodyTimer = null;
+		}
+	}
+
+	/**
+	 * Stop profiling the test on the current thread and add its phases to the run
+	 *
+	 * @param testName test name
+	 */
+	public void finishTest(String testName) {
+		// The body timer is left running if the test failed to set up
+		stopTestBody();
+		PhaseTimes times = currentTest.get();
+		currentTest.remove();
+		if (times == null) {
+			return;
+		}
+
+		long wallNanos = System.nanoTime() - times.startNanos;
+		times.add(TestPhase.OTHER, Math.max(0, wallNanos - times.recordedNanos));
+		wallClockNanos.add(wallNanos);
+
+		Map<String, Object> phases = new LinkedHashMap<>();
+		times.phaseNanos.forEach((phase, nanos) -> {
+			histograms.computeIfAbsent(phase, key -> new LatencyHistogram()).record(nanos);
+			phases.put(phase.name(), round(nanos / 1e6));
+		});
+
+		Map<String, Object> summary = new LinkedHashMap<>();
+		summary.put("test", testName);
+		summary.put("wallMs", round(wallNanos / 1e6));
+		summary.put("phases", phases);
+		testSummaries.add(summary);
+
+		frameworkLogger.info("Test [{}] took {} ms: {}", testName, round(wallNanos / 1e6),
+				phases.entrySet().stream().map(entry -> entry.getKey() + "=" + entry.getValue()).collect(Collectors.joining(", ")));
+	}
+
+	/**
+	 * Write the percentiles per phase and the test breakdowns of the run to target/test-phases.json, and reset them
+	 */
+	public void writeSummary() {
+		if (!isEnabled() || testSummaries.isEmpty()) {
+			return;
+		}
+
+		double wallMillis = wallClockNanos.sum() / 1e6;
+		double bodyMillis = getTotalMillis(TestPhase.TEST_BODY);
+		double explicitWaitMillis = getTotalMillis(TestPhase.EXPLICIT_WAIT);
+		double applicationMillis = bodyMillis + explicitWaitMillis;
+
+		Map<String, Object> phases = new LinkedHashMap<>();
+		for (TestPhase phase : TestPhase.values()) {
+			LatencyHistogram histogram = histograms.get(phase);
+			if (histogram == null) {
+				continue;
+			}
+
+			Map<String, Object> summary = new LinkedHashMap<>();
+			summary.put("count", histogram.getCount());
+			summary.put("totalMs", round(histogram.getTotalMillis()));
+			summary.put("sharePercent", round(share(histogram.getTotalMillis(), wallMillis)));
+			summary.put("meanMs", round(histogram.getMeanMillis()));
+			summary.put("p50Ms", round(histogram.getPercentileMillis(50)));
+			summary.put("p90Ms", round(histogram.getPercentileMillis(90)));
+			summary.put("p99Ms", round(histogram.getPercentileMillis(99)));
+			summary.put("maxMs", round(histogram.getMaxMillis()));
+			phases.put(phase.name(), summary);
+		}
+
+		Map<String, Object> summary = new LinkedHashMap<>();
+		summary.put("tests", testSummaries.size());
+		summary.put("wallClockMs", round(wallMillis));
+		summary.put("testBodyMs", round(bodyMillis));
+		summary.put("explicitWaitMs", round(explicitWaitMillis));
+		summary.put("frameworkOverheadMs", round(wallMillis - applicationMillis));
+		summary.put("frameworkOverheadPercent", round(share(wallMillis - applicationMillis, wallMillis)));
+		summary.put("phases", phases);
+		summary.put("testBreakdowns", testSummaries);
+
+		File summaryFile = new File(TARGET_PATH, SUMMARY_FILE_NAME);
+		try {
+			Files.createDirectories(summaryFile.getParentFile().toPath());
+			Files.writeString(summaryFile.toPath(), new GsonBuilder().setPrettyPrinting().create().toJson(summary), StandardCharsets.UTF_8);
+			frameworkLogger.info("Framework overhead {}% of {} ms in {} tests, test phase summary: {}",
+					summary.get("frameworkOverheadPercent"), summary.get("wallClockMs"), testSummaries.size(), summaryFile.getPath());
+		} catch (IOException e) {
+			frameworkLogger.error("Failed to write test phase summary.", e);
+		}
+
+		histograms.clear();
+		testSummaries.clear();
+		wallClockNanos.reset();
+	}
+
+	/**
+	 * Get the total time of a phase in all the tests
+	 *
+	 * @param phase test phase
+	 * @return total time in milliseconds
+	 */
+	private double getTotalMillis(TestPhase phase) {
+		return Optional.ofNullable(histograms.get(phase)).map(LatencyHistogram::getTotalMillis).orElse(0.0);
+	}
+
+	private static double share(double part, double total) {
+		return total <= 0 ? 0 : part * 100 / total;
+	}
+
+	private static double round(double value) {
+		return Math.round(value * 10) / 10.0;
+	}
+
+	/**
+	 * PhaseTimer - Running timer of a phase, the time of the phases nested in it is excluded
+	 */
+	public static class PhaseTimer implements AutoCloseable {
+		private final TestPhase phase;
+		private final PhaseTimes times;
+		private final long startNanos;
+		private final long nestedNanosAtStart;
+		private boolean stopped = false;
+
+		private PhaseTimer(TestPhase phase, PhaseTimes times) {
+			this.phase = phase;
+			this.times = times;
+			this.startNanos = System.nanoTime();
+			this.nestedNanosAtStart = times == null ? 0 : times.recordedNanos;
+		}
+
+		/**
+		 * Stop the timer and add the time to the phase
+		 */
+		@Override
+		public void close() {
+			if (times == null || stopped) {
+				return;
+			}
+
+			stopped = true;
+			long nestedNanos = times.recordedNanos - nestedNanosAtStart;
+			times.add(phase, Math.max(0, System.nanoTime() - startNanos - nestedNanos));
+		}
+	}
+
+	/**
+	 * PhaseTimes - Time per phase of the test running on the thread
+	 */
+	private static class PhaseTimes {
+		private final long startNanos = System.nanoTime();
+		private final Map<TestPhase, Long> phaseNanos = new EnumMap<>(TestPhase.class);
+		private long recordedNanos = 0;
+		private PhaseTimer bodyTimer = null;
+
+		private void add(TestPhase phase, long nanos) {
+			phaseNanos.merge(phase, nanos, Long::sum);
+			recordedNanos += nanos;
+		}
+	}
+}
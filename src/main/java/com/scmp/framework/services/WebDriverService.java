@@ -4,11 +4,17 @@ import com.scmp.framework.context.RunTimeContext;
 import org.openqa.selenium.Dimension;
 import org.openqa.selenium.MutableCapabilities;
 import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.firefox.GeckoDriverService;
 import org.openqa.selenium.remote.Browser;
+import org.openqa.selenium.remote.HttpCommandExecutor;
 import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.SessionId;
+import org.openqa.selenium.remote.http.ClientConfig;
+import org.openqa.selenium.remote.service.DriverService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +22,13 @@ import org.springframework.stereotype.Component;
 
 import java.net.URI;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import static com.scmp.framework.utils.Constants.*;
 
@@ -25,12 +38,44 @@ import static com.scmp.framework.utils.Constants.*;
 @Component
 public class WebDriverService {
 	private static final Logger frameworkLogger = LoggerFactory.getLogger(WebDriverService.class);
+	// Time for the slot of a closed idle session to be freed, e.g. by the driver reaper
+	private static final Duration IDLE_SESSION_CLOSE_WAIT = Duration.ofSeconds(5);
 	private final ThreadLocal<RemoteWebDriver> remoteWebDriver = new ThreadLocal<>();
+	private final ThreadLocal<WebDriverSessionPool.PooledSession> pooledSession = new ThreadLocal<>();
+	private final ThreadLocal<BrowserContextMultiplexer.ContextSession> contextSession = new ThreadLocal<>();
 	private final RunTimeContext context;
+	private final GridCapacityMonitor capacityMonitor;
+	private final DriverProvisioningService driverProvisioningService;
+	private final WebDriverSessionPool sessionPool;
+	private final DriverReaper driverReaper;
+	private final BrowserContextMultiplexer contextMultiplexer;
+	private final HangWatchdog hangWatchdog;
+	private final LocalProcessTracker processTracker;
+	private final LocalDriverServicePool localDriverServicePool;
+	private final CommandLatencyRecorder latencyRecorder;
+	private final SmartWaitEngine smartWaitEngine;
+	private final DomObserverWait domObserverWait;
+	// Local driver services by session, to kill the driver if the session does not quit
+	private final Map<SessionId, DriverService> localDriverServices = new ConcurrentHashMap<>();
 
 	@Autowired
-	public WebDriverService(RunTimeContext context) {
+	public WebDriverService(RunTimeContext context, GridCapacityMonitor capacityMonitor,
+							DriverProvisioningService driverProvisioningService, WebDriverSessionPool sessionPool,
+							DriverReaper driverReaper, BrowserContextMultiplexer contextMultiplexer, HangWatchdog hangWatchdog,
+							LocalProcessTracker processTracker, LocalDriverServicePool localDriverServicePool,
+							CommandLatencyRecorder latencyRecorder, SmartWaitEngine smartWaitEngine, DomObserverWait domObserverWait) {
 		this.context = context;
+		this.capacityMonitor = capacityMonitor;
+		this.driverProvisioningService = driverProvisioningService;
+		this.sessionPool = sessionPool;
+		this.driverReaper = driverReaper;
+		this.contextMultiplexer = contextMultiplexer;
+		this.hangWatchdog = hangWatchdog;
+		this.processTracker = processTracker;
+		this.localDriverServicePool = localDriverServicePool;
+		this.latencyRecorder = latencyRecorder;
+		this.smartWaitEngine = smartWaitEngine;
+		this.domObserverWait = domObserverWait;
 	}
 
 	/**
@@ -42,6 +87,20 @@ public class WebDriverService {
 		return remoteWebDriver.get();
 	}
 
+	/**
+	 * Get the window handles of the current test, with BROWSER_CONTEXT_MULTIPLEXING only the tabs of its browser context
+	 *
+	 * @return window handles
+	 */
+	public List<String> getWindowHandles() {
+		BrowserContextMultiplexer.ContextSession browserContext = contextSession.get();
+		if (browserContext != null && browserContext.getDriver() == this.getDriver()) {
+			return contextMultiplexer.getWindowHandles(browserContext);
+		}
+
+		return new ArrayList<>(this.getDriver().getWindowHandles());
+	}
+
 	/**
 	 * Set the current WebDriver instance.
 	 *
@@ -59,39 +118,266 @@ public class WebDriverService {
 	 * @throws Exception if an error occurs while starting the WebDriver instance
 	 */
 	public void startDriverInstance(MutableCapabilities browser, Dimension screenDimension) throws Exception {
+		startDriverInstance(browser, screenDimension, false);
+	}
+
+	/**
+	 * Start a WebDriver instance, an idle session of the same capabilities is reused if available,
+	 * e.g. returned with SESSION_POOLING or started ahead with SESSION_PREWARM_COUNT.
+	 *
+	 * @param browser         the browser capabilities (e.g., ChromeOptions, FirefoxOptions)
+	 * @param screenDimension the desired screen dimensions for the browser window
+	 * @param reusable        true if the test can run on a session used by other tests
+	 * @throws Exception if an error occurs while starting the WebDriver instance
+	 */
+	public void startDriverInstance(MutableCapabilities browser, Dimension screenDimension, boolean reusable) throws Exception {
+		boolean pooling = reusable && sessionPool.isEnabled();
+		String fingerprint = sessionPool.getFingerprint(browser, screenDimension);
+		if (reusable && (pooling || context.getFrameworkConfigs().getSessionPrewarmCount() > 0)) {
+			Optional<WebDriverSessionPool.PooledSession> idleSession = sessionPool.borrow(fingerprint, this::quitDriver);
+			if (idleSession.isPresent()) {
+				this.setDriver(idleSession.get().getDriver());
+				if (pooling) {
+					pooledSession.set(idleSession.get());
+				}
+				// The previous test may have resized the window
+				idleSession.get().getDriver().manage().window().setSize(screenDimension);
+				this.watchDriver(idleSession.get().getDriver());
+				return;
+			}
+		}
+
+		RemoteWebDriver currentDriverSession = openDriverSession(browser, screenDimension);
+		this.setDriver(currentDriverSession);
+		this.watchDriver(currentDriverSession);
+
+		if (pooling) {
+			pooledSession.set(new WebDriverSessionPool.PooledSession(fingerprint, currentDriverSession));
+		}
+	}
+
+	/**
+	 * Start the test in a new browser context of a shared Chrome process, with BROWSER_CONTEXT_MULTIPLEXING.
+	 *
+	 * @param browser         the browser capabilities (e.g., ChromeOptions, FirefoxOptions)
+	 * @param screenDimension the desired screen dimensions for the browser window
+	 * @return true if started, false if the test needs a normal session
+	 */
+	public boolean startBrowserContext(MutableCapabilities browser, Dimension screenDimension) {
+		if (!contextMultiplexer.accepts(browser)) {
+			return false;
+		}
+
+		try {
+			BrowserContextMultiplexer.ContextSession session = contextMultiplexer.open((ChromeOptions) browser, screenDimension, getClientConfig());
+			this.setDriver(session.getDriver());
+			contextSession.set(session);
+			hangWatchdog.watch(session.getDriver(), null, session.getHost().getDriverService().getUrl().toString());
+			return true;
+		} catch (Exception e) {
+			frameworkLogger.warn("Failed to open browser context, starting a new session instead.", e);
+			return false;
+		}
+	}
+
+	/**
+	 * Start a WebDriver session ahead of the test and keep it in the pool for the test with the same capabilities.
+	 *
+	 * @param browser         the browser capabilities (e.g., ChromeOptions, FirefoxOptions)
+	 * @param screenDimension the desired screen dimensions for the browser window
+	 * @throws Exception if an error occurs while starting the WebDriver session
+	 */
+	public void prewarmSession(MutableCapabilities browser, Dimension screenDimension) throws Exception {
+		RemoteWebDriver driver = openDriverSession(browser, screenDimension);
+		frameworkLogger.info("Pre-warmed driver session [{}]", driver.getSessionId());
+		sessionPool.addIdleSession(sessionPool.getFingerprint(browser, screenDimension), driver, this::quitDriver);
+	}
+
+	/**
+	 * Open a WebDriver session once there is a free slot on the grid.
+	 *
+	 * @param browser         the browser capabilities (e.g., ChromeOptions, FirefoxOptions)
+	 * @param screenDimension the desired screen dimensions for the browser window
+	 * @return the WebDriver session
+	 * @throws Exception if an error occurs while starting the WebDriver session
+	 */
+	private RemoteWebDriver openDriverSession(MutableCapabilities browser, Dimension screenDimension) throws Exception {
+		RemoteWebDriver currentDriverSession;
+
+		// Wait for a free slot on the grid, the idle sessions hold their slots until they are closed
+		String browserName = browser.getBrowserName();
+		boolean reserved = capacityMonitor.tryAcquire(browserName, Duration.ZERO);
+		while (!reserved && sessionPool.closeOldestIdleSession(this::quitDriver)) {
+			reserved = capacityMonitor.tryAcquire(browserName, IDLE_SESSION_CLOSE_WAIT);
+		}
+		if (!reserved) {
+			capacityMonitor.acquire(browserName);
+		}
+		boolean started = false;
+		try {
+			currentDriverSession = createDriverSession(browser);
+			started = true;
+		} finally {
+			capacityMonitor.release(browserName, started);
+		}
+
+		// Set implicit wait timeout, turned off with the smart wait
+		currentDriverSession.manage().timeouts().implicitlyWait(smartWaitEngine.getImplicitWait());
+
+		// Set screen dimensions
+		currentDriverSession.manage().window().setSize(screenDimension);
+		return currentDriverSession;
+	}
+
+	/**
+	 * Create a remote or local WebDriver session based on the execution mode.
+	 *
+	 * @param browser the browser capabilities (e.g., ChromeOptions, FirefoxOptions)
+	 * @return the WebDriver session
+	 * @throws Exception if an error occurs while starting the WebDriver session
+	 */
+	private RemoteWebDriver createDriverSession(MutableCapabilities browser) throws Exception {
 		RemoteWebDriver currentDriverSession;
 
 		// For Execution Mode
 		if (!context.isLocalExecutionMode()) {
 			// Start a remote WebDriver session
-			currentDriverSession = new RemoteWebDriver(new URI(context.getFrameworkConfigs().getHostUrl()).toURL(), browser);
+			URI hostUri = new URI(context.getFrameworkConfigs().getHostUrl());
+			if (hangWatchdog.isEnabled() || latencyRecorder.isEnabled()) {
+				currentDriverSession = new RemoteWebDriver(
+						new HttpCommandExecutor(Collections.emptyMap(), hostUri.toURL(), getClientConfig()), browser);
+			} else {
+				currentDriverSession = new RemoteWebDriver(hostUri.toURL(), browser);
+			}
+		} else if (localDriverServicePool.isEnabled()) {
+			// Session on a driver service of the local grid, the service keeps running after the session
+			currentDriverSession = localDriverServicePool.newSession(browser, getClientConfig(),
+					() -> sessionPool.closeOldestIdleSession(this::quitDriver));
+			DriverService driverService = localDriverServicePool.getDriverService(currentDriverSession.getSessionId());
+			localDriverServices.put(currentDriverSession.getSessionId(), driverService);
+			processTracker.track(currentDriverSession.getSessionId(), driverService, false);
 		} else {
 			// For Debug Mode, launch local driver
 			if (browser.getBrowserName().equals(Browser.CHROME.browserName())) {
 				frameworkLogger.info("Launching local Chrome Browser");
-				System.setProperty(CHROME_DRIVER_SYSTEM_PROPERTY_NAME, context.getGlobalVariables(CHROME_DRIVER_PATH).toString());
-				currentDriverSession = new ChromeDriver((ChromeOptions) browser);
+				System.setProperty(CHROME_DRIVER_SYSTEM_PROPERTY_NAME, driverProvisioningService.getDriverPath(com.scmp.framework.model.Browser.CHROME));
+				ChromeDriverService driverService = ChromeDriverService.createDefaultService();
+				currentDriverSession = new ChromeDriver(driverService, (ChromeOptions) browser, getClientConfig());
+				localDriverServices.put(currentDriverSession.getSessionId(), driverService);
+				processTracker.track(currentDriverSession.getSessionId(), driverService);
 			} else {
 				frameworkLogger.info("Launching local Firefox Browser");
-				System.setProperty(FIREFOX_DRIVER_SYSTEM_PROPERTY_NAME, context.getGlobalVariables(FIREFOX_DRIVER_PATH).toString());
-				currentDriverSession = new FirefoxDriver((FirefoxOptions) browser);
+				System.setProperty(FIREFOX_DRIVER_SYSTEM_PROPERTY_NAME, driverProvisioningService.getDriverPath(com.scmp.framework.model.Browser.FIREFOX));
+				GeckoDriverService driverService = GeckoDriverService.createDefaultService();
+				currentDriverSession = new FirefoxDriver(driverService, (FirefoxOptions) browser, getClientConfig());
+				localDriverServices.put(currentDriverSession.getSessionId(), driverService);
+				processTracker.track(currentDriverSession.getSessionId(), driverService);
 			}
 		}
 
-		// Set implicit wait timeout
-		currentDriverSession.manage().timeouts().implicitlyWait(Duration.ofSeconds(5));
-		this.setDriver(currentDriverSession);
+		return currentDriverSession;
+	}
 
-		// Set screen dimensions
-		currentDriverSession.manage().window().setSize(screenDimension);
+	/**
+	 * Get the client config of the driver sessions, with the command filters of the hang watchdog and the latency recorder.
+	 *
+	 * @return client config
+	 */
+	private ClientConfig getClientConfig() {
+		ClientConfig clientConfig = hangWatchdog.getClientConfig();
+		if (latencyRecorder.isEnabled()) {
+			clientConfig = clientConfig.withFilter(latencyRecorder.getCommandFilter());
+		}
+
+		return clientConfig;
 	}
 
 	/**
 	 * Stop the current WebDriver instance.
 	 */
 	public void stopWebDriver() {
-		if (this.getDriver() != null) {
-			this.getDriver().quit();
+		hangWatchdog.unwatch();
+		RemoteWebDriver driver = this.getDriver();
+		WebDriverSessionPool.PooledSession session = pooledSession.get();
+		BrowserContextMultiplexer.ContextSession browserContext = contextSession.get();
+		pooledSession.remove();
+		contextSession.remove();
+		if (driver == null) {
+			return;
+		}
+
+		this.setDriver(null);
+		if (browserContext != null && browserContext.getDriver() == driver) {
+			// Dispose the browser context, the Chrome process is kept for the next test
+			domObserverWait.forget(driver.getSessionId());
+			contextMultiplexer.close(browserContext);
+		} else if (session != null && session.getDriver() == driver) {
+			// Reset and keep the session for the next test
+			sessionPool.giveBack(session, this::quitDriver);
+		} else {
+			quitDriver(driver);
+		}
+	}
+
+	/**
+	 * Close the idle sessions in the pool, and the Chrome processes serving the browser contexts.
+	 */
+	public void closeIdleSessions() {
+		sessionPool.closeIdleSessions(this::quitDriver);
+		contextMultiplexer.closeHosts();
+	}
+
+	/**
+	 * Wait for the sessions being quit in background.
+	 *
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void awaitTeardown() throws InterruptedException {
+		driverReaper.awaitPending(context.getFrameworkConfigs().getDriverQuitTimeoutSeconds(), TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Quit a WebDriver session, in background with ASYNC_DRIVER_TEARDOWN.
+	 *
+	 * @param driver the WebDriver session
+	 */
+	private void quitDriver(RemoteWebDriver driver) {
+		String browserName = driver.getCapabilities().getBrowserName();
+		SessionId sessionId = driver.getSessionId();
+		DriverService driverService = sessionId == null ? null : localDriverServices.remove(sessionId);
+		domObserverWait.forget(sessionId);
+		// Record the browser processes spawned so far, the ones left after the quit are killed
+		processTracker.refresh(sessionId);
+		if (driverReaper.isEnabled()) {
+			driverReaper.reap(driver, driverService, () -> {
+				processTracker.reap(sessionId);
+				localDriverServicePool.release(sessionId);
+				capacityMonitor.onSessionClosed(browserName);
+			});
+			return;
+		}
+
+		try {
+			driver.quit();
+		} catch (RuntimeException e) {
+			// The session killed by the watchdog is gone
+			if (!hangWatchdog.isKilled(driver)) {
+				throw e;
+			}
+		} finally {
+			processTracker.reap(sessionId);
+			localDriverServicePool.release(sessionId);
+			capacityMonitor.onSessionClosed(browserName);
 		}
 	}
+
+	/**
+	 * Watch the session of the current test for hangs, with HANG_WATCHDOG.
+	 *
+	 * @param driver the WebDriver session
+	 */
+	private void watchDriver(RemoteWebDriver driver) {
+		DriverService driverService = driver.getSessionId() == null ? null : localDriverServices.get(driver.getSessionId());
+		hangWatchdog.watch(driver, driverService, context.getFrameworkConfigs().getHostUrl());
+	}
 }
\ No newline at end of file
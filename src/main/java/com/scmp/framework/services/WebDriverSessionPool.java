@@ -0,0 +1,332 @@
+package com.scmp.framework.services;
+
+import com.scmp.framework.context.RunTimeContext;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.remote.Augmenter;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * WebDriverSessionPool - Idle driver sessions kept for the next test with the same capabilities fingerprint.
+ * A session is reset before it goes back to the pool, and recycled after SESSION_MAX_REUSE tests
+ * or if it does not respond. Only Chrome sessions are fully reset through CDP, sessions of other browsers are not pooled. At most THREAD_COUNT + SESSION_PREWARM_COUNT sessions are kept idle, the oldest one is closed first.
+ */
+@Component
+public class WebDriverSessionPool {
+	private static final Logger frameworkLogger = LoggerFactory.getLogger(WebDriverSessionPool.class);
+	private static final String CHROME = "chrome";
+
+	private final RunTimeContext context;
+	// Idle sessions in the order they are returned
+	private final LinkedList<PooledSession> idleSessions = new LinkedList<>();
+
+	@Autowired
+	public WebDriverSessionPool(RunTimeContext context) {
+		this.context = context;
+	}
+
+	/**
+	 * Check if the session pooling is enabled
+	 *
+	 * @return true if SESSION_POOLING is enabled
+	 */
+	public boolean isEnabled() {
+		return context.getFrameworkConfigs().isSessionPooling();
+	}
+
+	/**
+	 * Get the fingerprint of the capabilities and the window size, sessions are only shared within the same fingerprint
+	 *
+	 * @param browser         browser capabilities
+	 * @param screenDimension window size
+	 * @return fingerprint
+	 */
+	@NotNull
+	public String getFingerprint(@NotNull MutableCapabilities browser, @NotNull Dimension screenDimension) {
+		return new TreeMap<>(browser.asMap()) + "@" + screenDimension.getWidth() + "x" + screenDimension.getHeight();
+	}
+
+	/**
+	 * Take an idle session of the fingerprint, sessions which do not respond are closed
+	 *
+	 * @param fingerprint capabilities fingerprint
+	 * @param closer      closes the unhealthy sessions
+	 * @return idle session, empty if none
+	 */
+	public Optional<PooledSession> borrow(String fingerprint, Consumer<RemoteWebDriver> closer) {
+		while (true) {
+			PooledSession session = poll(fingerprint);
+			if (session == null) {
+				return Optional.empty();
+			}
+
+			if (isHealthy(session.getDriver())) {
+				frameworkLogger.info("Reuse driver session [{}], used {} times", session.getDriver().getSessionId(), session.getUseCount());
+				session.useCount++;
+				return Optional.of(session);
+			}
+
+			frameworkLogger.warn("Driver session [{}] does not respond, closing it.", session.getDriver().getSessionId());
+			closer.accept(session.getDriver());
+		}
+	}
+
+	/**
+	 * Reset the session and put it back to the pool, the session is closed if it is used up or cannot be reset
+	 *
+	 * @param session session to return
+	 * @param closer  closes the sessions which are not kept
+	 */
+	public void giveBack(@NotNull PooledSession session, Consumer<RemoteWebDriver> closer) {
+		if (session.getUseCount() >= context.getFrameworkConfigs().getSessionMaxReuse() || !reset(session.getDriver())) {
+			closer.accept(session.getDriver());
+			return;
+		}
+
+		addIdleSession(session, closer);
+	}
+
+	/**
+	 * Put a new session to the pool, e.g. a session started ahead of the test
+	 *
+	 * @param fingerprint capabilities fingerprint
+	 * @param driver      driver session
+	 * @param closer      closes the sessions which are not kept
+	 */
+	public void addIdleSession(String fingerprint, RemoteWebDriver driver, Consumer<RemoteWebDriver> closer) {
+		addIdleSession(new PooledSession(fingerprint, driver, 0), closer);
+	}
+
+	/**
+	 * Put the session to the pool, the oldest idle session is closed if the pool is full
+	 *
+	 * @param session idle session
+	 * @param closer  closes the evicted session
+	 */
+	private void addIdleSession(PooledSession session, Consumer<RemoteWebDriver> closer) {
+		int maxIdleSessions = context.getFrameworkConfigs().getThreadCount() + context.getFrameworkConfigs().getSessionPrewarmCount();
+		PooledSession evicted = null;
+		synchronized (idleSessions) {
+			idleSessions.addLast(session);
+			if (idleSessions.size() > maxIdleSessions) {
+				evicted = idleSessions.removeFirst();
+			}
+		}
+
+		if (evicted != null) {
+			closer.accept(evicted.getDriver());
+		}
+	}
+
+	/**
+	 * Close the oldest idle session, e.g. to make room for a new session
+	 *
+	 * @param closer closes the session
+	 * @return true if a session is closed, false if none is idle
+	 */
+	public boolean closeOldestIdleSession(Consumer<RemoteWebDriver> closer) {
+		PooledSession session;
+		synchronized (idleSessions) {
+			session = idleSessions.pollFirst();
+		}
+
+		if (session == null) {
+			return false;
+		}
+
+		frameworkLogger.info("Closing idle driver session [{}] to make room for a new session.", session.getDriver().getSessionId());
+		closer.accept(session.getDriver());
+		return true;
+	}
+
+	/**
+	 * Close all the idle sessions, e.g. at the end of the run
+	 *
+	 * @param closer closes the sessions
+	 */
+	public void closeIdleSessions(Consumer<RemoteWebDriver> closer) {
+		List<PooledSession> sessions;
+		synchronized (idleSessions) {
+			sessions = new ArrayList<>(idleSessions);
+			idleSessions.clear();
+		}
+
+		sessions.forEach(session -> closer.accept(session.getDriver()));
+	}
+
+	/**
+	 * Close the idle sessions on shutdown
+	 */
+	@PreDestroy
+	public void shutdown() {
+		closeIdleSessions(driver -> {
+			try {
+				driver.quit();
+			} catch (Exception e) {
+				frameworkLogger.debug("Failed to quit idle driver session.", e);
+			}
+		});
+	}
+
+	/**
+	 * Take the least recently returned session of the fingerprint
+	 *
+	 * @param fingerprint capabilities fingerprint
+	 * @return idle session, null if none
+	 */
+	private PooledSession poll(String fingerprint) {
+		synchronized (idleSessions) {
+			Iterator<PooledSession> iterator = idleSessions.iterator();
+			while (iterator.hasNext()) {
+				PooledSession session = iterator.next();
+				if (session.getFingerprint().equals(fingerprint)) {
+					iterator.remove();
+					return session;
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Check if the session still responds
+	 *
+	 * @param driver driver session
+	 * @return true if healthy
+	 */
+	private boolean isHealthy(RemoteWebDriver driver) {
+		try {
+			driver.getWindowHandle();
+			return true;
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Reset the browser state through CDP: close the extra tabs, clear all the cookies, and the storage of the origins
+	 * in the history of the tabs, and leave the session on a blank page.
+	 * The sessions without CDP are not reset, the cookies and storage of the other origins cannot be cleared.
+	 *
+	 * @param driver driver session
+	 * @return true if the session is reset
+	 */
+	private boolean reset(RemoteWebDriver driver) {
+		Optional<HasCdp> cdp = getCdp(driver);
+		if (cdp.isEmpty()) {
+			frameworkLogger.debug("Driver session [{}] cannot be fully reset, closing it.", driver.getSessionId());
+			return false;
+		}
+
+		try {
+			Set<String> origins = new HashSet<>();
+			List<String> windowHandles = new ArrayList<>(driver.getWindowHandles());
+			for (int i = windowHandles.size() - 1; i >= 0; i--) {
+				driver.switchTo().window(windowHandles.get(i));
+				origins.addAll(getVisitedOrigins(cdp.get()));
+				if (i > 0) {
+					driver.close();
+				}
+			}
+			driver.switchTo().window(windowHandles.get(0));
+			driver.get("about:blank");
+
+			cdp.get().executeCdpCommand("Network.clearBrowserCookies", Map.of());
+			for (String origin : origins) {
+				cdp.get().executeCdpCommand("Storage.clearDataForOrigin", Map.of("origin", origin, "storageTypes", "all"));
+			}
+			return true;
+		} catch (Exception e) {
+			frameworkLogger.warn("Failed to reset driver session [{}].", driver.getSessionId(), e);
+			return false;
+		}
+	}
+
+	/**
+	 * Get CDP of the Chrome session, remote sessions are augmented with the CDP command of ChromeDriver
+	 *
+	 * @param driver driver session
+	 * @return CDP of the session, empty if not Chrome
+	 */
+	private Optional<HasCdp> getCdp(RemoteWebDriver driver) {
+		if (!CHROME.equals(driver.getCapabilities().getBrowserName())) {
+			return Optional.empty();
+		}
+
+		try {
+			WebDriver cdpDriver = driver instanceof HasCdp ? driver : new Augmenter().augment(driver);
+			return cdpDriver instanceof HasCdp ? Optional.of((HasCdp) cdpDriver) : Optional.empty();
+		} catch (Exception e) {
+			frameworkLogger.debug("Failed to get CDP of driver session [{}].", driver.getSessionId(), e);
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Get the origins in the navigation history of the current tab
+	 *
+	 * @param cdp CDP of the session
+	 * @return http and https origins
+	 */
+	@SuppressWarnings("unchecked")
+	private Set<String> getVisitedOrigins(HasCdp cdp) {
+		Set<String> origins = new HashSet<>();
+		Object entries = cdp.executeCdpCommand("Page.getNavigationHistory", Map.of()).get("entries");
+		if (entries instanceof List) {
+			for (Object entry : (List<Object>) entries) {
+				if (entry instanceof Map) {
+					getOrigin(String.valueOf(((Map<String, Object>) entry).get("url"))).ifPresent(origins::add);
+				}
+			}
+		}
+
+		return origins;
+	}
+
+	private static Optional<String> getOrigin(String url) {
+		try {
+			URI uri = URI.create(url);
+			if (uri.getHost() == null || !("http".equals(uri.getScheme()) || "https".equals(uri.getScheme()))) {
+				return Optional.empty();
+			}
+
+			return Optional.of(uri.getScheme() + "://" + uri.getHost() + (uri.getPort() == -1 ? "" : ":" + uri.getPort()));
+		} catch (IllegalArgumentException e) {
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * PooledSession - A driver session with its fingerprint and the number of tests it has run
+	 */
+	@Getter
+	public static class PooledSession {
+		private final String fingerprint;
+		private final RemoteWebDriver driver;
+		private int useCount;
+
+		public PooledSession(String fingerprint, RemoteWebDriver driver) {
+			this(fingerprint, driver, 1);
+		}
+
+		private PooledSession(String fingerprint, RemoteWebDriver driver, int useCount) {
+			this.fingerprint = fingerprint;
+			this.driver = driver;
+			this.useCount = useCount;
+		}
+	}
+}
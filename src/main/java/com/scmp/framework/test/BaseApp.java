@@ -2,6 +2,7 @@ package com.scmp.framework.test;
 
 import com.scmp.framework.context.ApplicationContextProvider;
 import com.scmp.framework.context.RunTimeContext;
+import com.scmp.framework.services.WebDriverService;
 import com.scmp.framework.testng.model.TestInfo;
 import lombok.Getter;
 import org.openqa.selenium.WebElement;
@@ -15,6 +16,7 @@ import org.springframework.context.ApplicationContext;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import static com.scmp.framework.utils.Constants.TEST_INFO_OBJECT;
@@ -28,6 +30,7 @@ public abstract class BaseApp {
 	@Getter
 	private final RemoteWebDriver driver;
 	private final RunTimeContext runTimeContext;
+	private final WebDriverService webDriverService;
 
 	/**
 	 * Constructor to initialize the RemoteWebDriver and RunTimeContext.
@@ -39,6 +42,7 @@ public abstract class BaseApp {
 
 		ApplicationContext context = ApplicationContextProvider.getApplicationContext();
 		runTimeContext = context.getBean(RunTimeContext.class);
+		webDriverService = context.getBean(WebDriverService.class);
 	}
 
 	/**
@@ -124,12 +128,15 @@ public abstract class BaseApp {
 	}
 
 	/**
-	 * Switches to a browser tab by its sequence number.
+	 * Switches to a browser tab by its sequence number, only the tabs of the test are counted,
+	 * e.g. not the tabs of the other browser contexts with BROWSER_CONTEXT_MULTIPLEXING.
 	 *
 	 * @param tabSequence the sequence number of the tab to switch to
 	 */
 	public void switchToTab(int tabSequence) {
-		ArrayList<String> tabs = new ArrayList<>(driver.getWindowHandles());
+		List<String> tabs = webDriverService.getDriver() == driver
+				? webDriverService.getWindowHandles()
+				: new ArrayList<>(driver.getWindowHandles());
 		driver.switchTo().window(tabs.get(tabSequence));
 	}
 
@@ -2,7 +2,10 @@ package com.scmp.framework.test;
 
 import com.scmp.framework.context.ApplicationContextProvider;
 import com.scmp.framework.context.RunTimeContext;
+import com.scmp.framework.services.DomObserverWait;
+import com.scmp.framework.services.SmartWaitEngine;
 import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.remote.RemoteWebDriver;
 import org.openqa.selenium.support.ui.ExpectedConditions;
@@ -13,6 +16,9 @@ import org.springframework.context.ApplicationContext;
 
 import java.lang.reflect.Field;
 import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * BasePageElement - Abstract base class for common page element actions and utilities.
@@ -21,6 +27,8 @@ public abstract class BasePageElement {
 	private static final Logger frameworkLogger = LoggerFactory.getLogger(BasePageElement.class);
 	private final RemoteWebDriver driver;
 	public final RunTimeContext runTimeContext;
+	private final SmartWaitEngine smartWaitEngine;
+	private final DomObserverWait domObserverWait;
 
 	/**
 	 * Constructor to initialize the RemoteWebDriver and RunTimeContext.
@@ -31,6 +39,8 @@ public abstract class BasePageElement {
 		this.driver = driver;
 		ApplicationContext context = ApplicationContextProvider.getApplicationContext();
 		runTimeContext = context.getBean(RunTimeContext.class);
+		smartWaitEngine = context.getBean(SmartWaitEngine.class);
+		domObserverWait = context.getBean(DomObserverWait.class);
 
 		// Initialize page components
 		Field[] fields = this.getClass().getFields();
@@ -58,6 +68,55 @@ public abstract class BasePageElement {
 		}
 	}
 
+	/**
+	 * Waits until a condition is met, with the smart wait engine if SMART_WAIT is enabled.
+	 *
+	 * @param condition the condition to wait for
+	 * @param seconds   the duration to wait in seconds
+	 * @param <T>       the return type of the condition
+	 * @return the value of the condition
+	 */
+	public <T> T waitUntil(Function<? super WebDriver, T> condition, long seconds) {
+		return waitUntil(condition, Duration.ofSeconds(seconds));
+	}
+
+	private <T> T waitUntil(Function<? super WebDriver, T> condition, Duration timeout) {
+		if (smartWaitEngine.isEnabled()) {
+			return smartWaitEngine.until(driver, condition, timeout);
+		}
+
+		return new WebDriverWait(driver, timeout).until(condition);
+	}
+
+	/**
+	 * Waits until a condition of an element is met, observing the DOM first if EVENT_DRIVEN_WAIT is enabled.
+	 * The condition is then confirmed over WebDriver, polling for the time left if the DOM cannot be observed.
+	 * With SMART_WAIT, the observation counts against the wait budget of the test.
+	 *
+	 * @param condition    the condition to wait for
+	 * @param element      the WebElement to observe, null to look it up by ID
+	 * @param elementId    the ID of the element, null to observe the WebElement
+	 * @param domCondition the condition observed in the DOM
+	 * @param seconds      the duration to wait in seconds
+	 * @param <T>          the return type of the condition
+	 * @return the value of the condition
+	 */
+	private <T> T waitForElementCondition(Function<? super WebDriver, T> condition, WebElement element, String elementId,
+										  DomObserverWait.Condition domCondition, long seconds) {
+		if (!domObserverWait.isEnabled()) {
+			return waitUntil(condition, seconds);
+		}
+
+		Consumer<Duration> observer = timeout -> domObserverWait.await(driver, element, elementId, domCondition, timeout);
+		if (smartWaitEngine.isEnabled()) {
+			return smartWaitEngine.until(driver, condition, Duration.ofSeconds(seconds), observer);
+		}
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		observer.accept(Duration.ofSeconds(seconds));
+		return waitUntil(condition, Duration.ofNanos(Math.max(0, deadline - System.nanoTime())));
+	}
+
 	/**
 	 * Waits for a WebElement to be visible.
 	 *
@@ -77,7 +136,8 @@ public abstract class BasePageElement {
 	 */
 	public boolean waitForVisible(WebElement element, long seconds) {
 		try {
-			new WebDriverWait(driver, Duration.ofSeconds(seconds)).until(ExpectedConditions.visibilityOf(element));
+			waitForElementCondition(ExpectedConditions.visibilityOf(element), element, null,
+					DomObserverWait.Condition.VISIBLE, seconds);
 			return true;
 		} catch (Exception e) {
 			return false;
@@ -103,7 +163,8 @@ public abstract class BasePageElement {
 	 */
 	public boolean waitForElementToBeClickable(WebElement element, long seconds) {
 		try {
-			new WebDriverWait(driver, Duration.ofSeconds(seconds)).until(ExpectedConditions.elementToBeClickable(element));
+			waitForElementCondition(ExpectedConditions.elementToBeClickable(element), element, null,
+					DomObserverWait.Condition.CLICKABLE, seconds);
 			return true;
 		} catch (Exception e) {
 			return false;
@@ -116,8 +177,8 @@ public abstract class BasePageElement {
 	 * @param id the ID of the element to wait for
 	 */
 	public void waitForElementToDisAppear(String id) {
-		WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(15));
-		wait.until(ExpectedConditions.invisibilityOfElementLocated(By.id(id)));
+		waitForElementCondition(ExpectedConditions.invisibilityOfElementLocated(By.id(id)), null, id,
+				DomObserverWait.Condition.INVISIBLE, 15);
 	}
 
 	/**
@@ -128,7 +189,8 @@ public abstract class BasePageElement {
 	 */
 	public boolean waitForElementToDisAppear(WebElement element) {
 		try {
-			new WebDriverWait(driver, Duration.ofSeconds(15)).until(ExpectedConditions.invisibilityOf(element));
+			waitForElementCondition(ExpectedConditions.invisibilityOf(element), element, null,
+					DomObserverWait.Condition.INVISIBLE, 15);
 			return true;
 		} catch (Exception e) {
 			return false;
@@ -165,8 +227,7 @@ public abstract class BasePageElement {
 	 */
 	public boolean isIframeLoaded(WebElement element, int secondToWait) {
 		try {
-			new WebDriverWait(driver, Duration.ofSeconds(secondToWait))
-					.until(ExpectedConditions.frameToBeAvailableAndSwitchToIt(element));
+			waitUntil(ExpectedConditions.frameToBeAvailableAndSwitchToIt(element), secondToWait);
 			return true;
 		} catch (Exception e) {
 			return false;
@@ -0,0 +1,113 @@
+package com.scmp.framework.test;
+
+import com.scmp.framework.context.ApplicationContextProvider;
+import com.scmp.framework.services.SmartWaitEngine;
+import org.jetbrains.annotations.NotNull;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.pagefactory.DefaultElementLocator;
+import org.openqa.selenium.support.pagefactory.ElementLocator;
+import org.openqa.selenium.support.pagefactory.ElementLocatorFactory;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SmartWaitElementLocatorFactory - Locator factory of PageFactory for the sessions with SMART_WAIT.
+ * The implicit wait is turned off with the smart wait, so the @FindBy elements are looked up through the smart wait engine,
+ * for up to the 5 seconds implicit wait of the other sessions, e.g. PageFactory.initElements(new SmartWaitElementLocatorFactory(driver), this).
+ * Without SMART_WAIT, the elements are looked up once with the implicit wait of the session.
+ * A lookup inside a smart wait, e.g. waitForVisible, is tried once and retried by the outer wait.
+ * Pages which check for optional elements can look them up once without waiting, see {@link #withoutWait(WebDriver)}.
+ */
+public class SmartWaitElementLocatorFactory implements ElementLocatorFactory {
+	private final WebDriver driver;
+	private final Duration timeout;
+	private final SmartWaitEngine smartWaitEngine;
+
+	/**
+	 * Constructor with the lookup timeout of the implicit wait
+	 *
+	 * @param driver driver session
+	 */
+	public SmartWaitElementLocatorFactory(WebDriver driver) {
+		this(driver, SmartWaitEngine.DEFAULT_IMPLICIT_WAIT);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param driver  driver session
+	 * @param timeout max time to wait for the elements
+	 */
+	public SmartWaitElementLocatorFactory(WebDriver driver, Duration timeout) {
+		this.driver = driver;
+		this.timeout = timeout;
+		this.smartWaitEngine = ApplicationContextProvider.getApplicationContext().getBean(SmartWaitEngine.class);
+	}
+
+	/**
+	 * Get a factory which looks up the elements once without waiting, e.g. to check if an optional element is displayed
+	 *
+	 * @param driver driver session
+	 * @return locator factory
+	 */
+	public static SmartWaitElementLocatorFactory withoutWait(WebDriver driver) {
+		return new SmartWaitElementLocatorFactory(driver, Duration.ZERO);
+	}
+
+	@Override
+	public ElementLocator createLocator(Field field) {
+		return new SmartWaitElementLocator(new DefaultElementLocator(driver, field));
+	}
+
+	/**
+	 * SmartWaitElementLocator - Retries the lookups of a field until the element is present
+	 */
+	private class SmartWaitElementLocator implements ElementLocator {
+		private final ElementLocator locator;
+
+		private SmartWaitElementLocator(@NotNull ElementLocator locator) {
+			this.locator = locator;
+		}
+
+		@Override
+		public WebElement findElement() {
+			if (!smartWaitEngine.isEnabled() || timeout.isZero()) {
+				return locator.findElement();
+			}
+
+			try {
+				return smartWaitEngine.until(driver, ignored -> locator.findElement(), timeout);
+			} catch (TimeoutException e) {
+				// Same as a lookup with the implicit wait
+				throw new NoSuchElementException("Cannot locate an element using " + locator, e);
+			}
+		}
+
+		@Override
+		public List<WebElement> findElements() {
+			if (!smartWaitEngine.isEnabled() || timeout.isZero()) {
+				return locator.findElements();
+			}
+
+			try {
+				return smartWaitEngine.until(driver, ignored -> {
+					List<WebElement> elements = locator.findElements();
+					return elements.isEmpty() ? null : elements;
+				}, timeout);
+			} catch (TimeoutException e) {
+				return Collections.emptyList();
+			}
+		}
+
+		@Override
+		public String toString() {
+			return locator.toString();
+		}
+	}
+}
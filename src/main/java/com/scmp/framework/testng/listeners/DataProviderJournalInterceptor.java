@@ -0,0 +1,53 @@
+package com.scmp.framework.testng.listeners;
+
+import com.scmp.framework.context.ApplicationContextProvider;
+import com.scmp.framework.executor.ExecutionJournal;
+import com.scmp.framework.executor.TestExecutor;
+import org.testng.IDataProviderInterceptor;
+import org.testng.IDataProviderMethod;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+
+import java.util.Iterator;
+
+/**
+ * DataProviderJournalInterceptor - Records the number of the data provider rows of a test method to the execution journal
+ * once all the rows are read, so that RESUME_FROM can tell if every row of the method was run.
+ * The rows are counted as TestNG reads them, lazy data providers stay lazy.
+ */
+public class DataProviderJournalInterceptor implements IDataProviderInterceptor {
+	private final ExecutionJournal executionJournal;
+
+	public DataProviderJournalInterceptor() {
+		executionJournal = ApplicationContextProvider.getApplicationContext().getBean(ExecutionJournal.class);
+	}
+
+	@Override
+	public Iterator<Object[]> intercept(
+			Iterator<Object[]> original, IDataProviderMethod dataProviderMethod, ITestNGMethod method, ITestContext context) {
+		String className = TestExecutor.getClassKey(method.getConstructorOrMethod().getMethod());
+		String browser = context.getCurrentXmlTest().getParameter("browser");
+
+		return new Iterator<>() {
+			private int rows = 0;
+			private boolean recorded = false;
+
+			@Override
+			public boolean hasNext() {
+				boolean hasNext = original.hasNext();
+				if (!hasNext && !recorded) {
+					recorded = true;
+					executionJournal.recordInvocations(className, method.getMethodName(), browser, rows);
+				}
+				return hasNext;
+			}
+
+			@Override
+			public Object[] next() {
+				Object[] row = original.next();
+				rows++;
+				return row;
+			}
+		};
+	}
+}
@@ -0,0 +1,51 @@
+package com.scmp.framework.testng.listeners;
+
+import com.scmp.framework.context.ApplicationContextProvider;
+import com.scmp.framework.context.RunTimeContext;
+import com.scmp.framework.executor.DurationAwareScheduler;
+import com.scmp.framework.executor.TestExecutor;
+import org.springframework.context.ApplicationContext;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+
+import java.util.List;
+
+/**
+ * DurationAwareMethodInterceptor - Reorders the test methods longest-first, TestNG keeps the
+ * intercepted order when dispatching methods to the thread pool.
+ */
+public class DurationAwareMethodInterceptor implements IMethodInterceptor {
+	private final RunTimeContext runTimeContext;
+	private final DurationAwareScheduler scheduler;
+
+	public DurationAwareMethodInterceptor() {
+		ApplicationContext context = ApplicationContextProvider.getApplicationContext();
+		runTimeContext = context.getBean(RunTimeContext.class);
+		scheduler = context.getBean(DurationAwareScheduler.class);
+	}
+
+	@Override
+	public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+		if (!runTimeContext.getFrameworkConfigs().isDurationAwareScheduling()) {
+			return methods;
+		}
+
+		List<IMethodInstance> orderedMethods = scheduler.sortLongestFirst(methods, this::estimate);
+		scheduler.estimateMakespan(orderedMethods, this::estimate, context.getCurrentXmlTest().getThreadCount());
+
+		return orderedMethods;
+	}
+
+	/**
+	 * Estimate the execution time of a method instance
+	 *
+	 * @param methodInstance TestNG method instance
+	 * @return estimated execution time in milliseconds
+	 */
+	private long estimate(IMethodInstance methodInstance) {
+		ITestNGMethod method = methodInstance.getMethod();
+		return scheduler.estimate(TestExecutor.getClassKey(method.getConstructorOrMethod().getMethod()), method.getMethodName());
+	}
+}
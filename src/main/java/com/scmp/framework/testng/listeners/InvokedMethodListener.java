@@ -2,7 +2,18 @@ package com.scmp.framework.testng.listeners;
 
 import com.scmp.framework.context.ApplicationContextProvider;
 import com.scmp.framework.context.RunTimeContext;
+import com.scmp.framework.executor.ExecutionJournal;
+import com.scmp.framework.executor.TestConcurrencyLimiter;
+import com.scmp.framework.executor.TestDurationHistory;
+import com.scmp.framework.executor.TestExecutor;
+import com.scmp.framework.model.TestPhase;
+import com.scmp.framework.services.CommandLatencyRecorder;
+import com.scmp.framework.services.GridCapacityMonitor;
 import com.scmp.framework.services.ReportService;
+import com.scmp.framework.services.SessionAcquisitionPolicy;
+import com.scmp.framework.services.SessionPrewarmer;
+import com.scmp.framework.services.SmartWaitEngine;
+import com.scmp.framework.services.TestPhaseProfiler;
 import com.scmp.framework.services.WebDriverService;
 import com.scmp.framework.testng.model.TestInfo;
 import org.openqa.selenium.Dimension;
@@ -11,9 +22,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationContext;
 import org.testng.*;
+import org.testng.internal.TestResult;
 
 import java.lang.reflect.Method;
 
+import static com.scmp.framework.utils.Constants.ABORTED_TEST;
+import static com.scmp.framework.utils.Constants.RUN_ABORTED_BY_SUITE;
 import static com.scmp.framework.utils.Constants.TEST_INFO_OBJECT;
 
 public final class InvokedMethodListener implements IInvokedMethodListener {
@@ -22,12 +36,30 @@ public final class InvokedMethodListener implements IInvokedMethodListener {
 	private final WebDriverService webDriverService;
 	private final RunTimeContext runTimeContext;
 	private final ReportService reportService;
+	private final TestDurationHistory durationHistory;
+	private final TestConcurrencyLimiter concurrencyLimiter;
+	private final GridCapacityMonitor capacityMonitor;
+	private final ExecutionJournal executionJournal;
+	private final SessionPrewarmer sessionPrewarmer;
+	private final SessionAcquisitionPolicy sessionAcquisitionPolicy;
+	private final CommandLatencyRecorder latencyRecorder;
+	private final TestPhaseProfiler phaseProfiler;
+	private final SmartWaitEngine smartWaitEngine;
 
 	public InvokedMethodListener() {
 		ApplicationContext context = ApplicationContextProvider.getApplicationContext();
 		webDriverService = context.getBean(WebDriverService.class);
 		runTimeContext = context.getBean(RunTimeContext.class);
 		reportService = context.getBean(ReportService.class);
+		durationHistory = context.getBean(TestDurationHistory.class);
+		concurrencyLimiter = context.getBean(TestConcurrencyLimiter.class);
+		capacityMonitor = context.getBean(GridCapacityMonitor.class);
+		executionJournal = context.getBean(ExecutionJournal.class);
+		sessionPrewarmer = context.getBean(SessionPrewarmer.class);
+		sessionAcquisitionPolicy = context.getBean(SessionAcquisitionPolicy.class);
+		latencyRecorder = context.getBean(CommandLatencyRecorder.class);
+		phaseProfiler = context.getBean(TestPhaseProfiler.class);
+		smartWaitEngine = context.getBean(SmartWaitEngine.class);
 	}
 
 	/**
@@ -39,7 +71,11 @@ public final class InvokedMethodListener implements IInvokedMethodListener {
 		// Clear all runtime variables
 		runTimeContext.clearRunTimeVariables();
 
-		TestInfo testInfo = new TestInfo(method, testResult, runTimeContext);
+		phaseProfiler.startTest();
+		TestInfo testInfo;
+		try (TestPhaseProfiler.PhaseTimer ignored = phaseProfiler.start(TestPhase.TEST_INFO)) {
+			testInfo = new TestInfo(method, testResult, runTimeContext);
+		}
 		// Save TestInfo to runtime memory
 		runTimeContext.setTestLevelVariables(TEST_INFO_OBJECT, testInfo);
 
@@ -49,12 +85,33 @@ public final class InvokedMethodListener implements IInvokedMethodListener {
 			throw new SkipException("Skipped Test - " + testInfo.getTestName());
 		}
 
+		// Skip the remaining tests once a suite is aborted with FAIL_FAST_ON_SETUP_FAILURE
+		Object abortedBySuite = runTimeContext.getGlobalVariables(RUN_ABORTED_BY_SUITE);
+		if (abortedBySuite != null) {
+			runTimeContext.setTestLevelVariables(ABORTED_TEST, true);
+			throw new SkipException("Run aborted by suite [" + abortedBySuite + "] - " + testInfo.getTestName());
+		}
+
 		frameworkLogger.info("Start running test [{}]", testInfo.getMethodName());
+		latencyRecorder.startTest(testInfo.getClassName() + "." + testInfo.getMethodName());
+		smartWaitEngine.startTest();
 		try {
 			if (testInfo.needLaunchBrowser()) {
-				setupDriverForTest(testInfo);
+				// Start the session of the next upcoming test while this test runs
+				sessionPrewarmer.onTestStarted(SessionPrewarmInterceptor.getQueueName(method.getTestMethod().getXmlTest()),
+						method.getTestMethod().getConstructorOrMethod().getMethod());
+				// Wait for the shared thread budget in unified run mode
+				concurrencyLimiter.acquire(testInfo.getBrowserType());
+				// The wait for the permits is not part of the test duration
+				testInfo.restartClock();
+				try (TestPhaseProfiler.PhaseTimer ignored = phaseProfiler.start(TestPhase.SESSION_ACQUISITION)) {
+					setupDriverForTest(testInfo);
+				}
 			}
-			setupReporterForTest(testInfo);
+			try (TestPhaseProfiler.PhaseTimer ignored = phaseProfiler.start(TestPhase.REPORTER_SETUP)) {
+				setupReporterForTest(testInfo);
+			}
+			phaseProfiler.startTestBody();
 		} catch (Exception ex) {
 			frameworkLogger.error("Failed to setup test driver.", ex);
 			reportService.setSetupStatus(false);
@@ -68,10 +125,12 @@ public final class InvokedMethodListener implements IInvokedMethodListener {
 	 */
 	@Override
 	public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+		phaseProfiler.stopTestBody();
 		TestInfo testInfo = (TestInfo) runTimeContext.getTestLevelVariables(TEST_INFO_OBJECT);
 		// Skip afterInvocation if current method is not with Annotation Test, or
 		// Current Test need to be skipped
-		if (!testInfo.isTestMethod() || testInfo.isSkippedTest()) {
+		if (!testInfo.isTestMethod() || testInfo.isSkippedTest()
+				|| runTimeContext.getTestLevelVariables(ABORTED_TEST) != null) {
 			return;
 		}
 
@@ -82,24 +141,66 @@ public final class InvokedMethodListener implements IInvokedMethodListener {
 
 		// If fails to set up test
 		if (!reportService.getSetupStatus()) {
+			latencyRecorder.finishTest();
+			smartWaitEngine.finishTest();
 			if (testInfo.needLaunchBrowser()) {
-				webDriverService.stopWebDriver();
+				try (TestPhaseProfiler.PhaseTimer ignored = phaseProfiler.start(TestPhase.DRIVER_STOP)) {
+					webDriverService.stopWebDriver();
+				}
 			}
+			concurrencyLimiter.release();
+			phaseProfiler.finishTest(testInfo.getClassName() + "." + methodName);
+			recordResult(method, testResult, testInfo);
 			return;
 		}
 
 		try {
-			reportService.endLogTestResults(testResult);
+			latencyRecorder.finishTest().ifPresent(stats -> reportService.logInfoTable(stats.toTable()));
+			smartWaitEngine.finishTest().ifPresent(stats -> reportService.logInfoTable(stats.toTable()));
+			try (TestPhaseProfiler.PhaseTimer ignored = phaseProfiler.start(TestPhase.REPORT_RESULTS)) {
+				reportService.endLogTestResults(testResult);
+			}
 			// Clear all runtime variables
 			runTimeContext.clearRunTimeVariables();
 
 			// Stop driver
 			if (testInfo.needLaunchBrowser()) {
-				webDriverService.stopWebDriver();
+				try (TestPhaseProfiler.PhaseTimer ignored = phaseProfiler.start(TestPhase.DRIVER_STOP)) {
+					webDriverService.stopWebDriver();
+				}
 			}
 		} catch (Exception e) {
 			frameworkLogger.error("Error during afterInvocation", e);
+		} finally {
+			concurrencyLimiter.release();
+			phaseProfiler.finishTest(testInfo.getClassName() + "." + methodName);
 		}
+
+		// Record the duration including driver setup and teardown for scheduling
+		if (testResult.getStatus() != ITestResult.SKIP) {
+			durationHistory.record(TestExecutor.getClassKey(method.getTestMethod().getConstructorOrMethod().getMethod()), methodName, testInfo.getElapsedMillis());
+		}
+		recordResult(method, testResult, testInfo);
+	}
+
+	/**
+	 * Record the test result to the execution journal
+	 *
+	 * @param method     invoked method
+	 * @param testResult test result
+	 * @param testInfo   test metadata for the test case
+	 */
+	private void recordResult(IInvokedMethod method, ITestResult testResult, TestInfo testInfo) {
+		ITestNGMethod testMethod = method.getTestMethod();
+		// Index of the data provider parameters, only exposed by the TestNG implementation
+		int parameterIndex = testResult instanceof TestResult ? ((TestResult) testResult).getParameterIndex() : 0;
+		executionJournal.recordResult(
+				TestExecutor.getClassKey(testMethod.getConstructorOrMethod().getMethod()),
+				testMethod.getMethodName(),
+				testMethod.getXmlTest().getParameter("browser"),
+				parameterIndex,
+				testResult.getStatus(),
+				testInfo.getElapsedMillis());
 	}
 
 	/**
@@ -130,18 +231,37 @@ public final class InvokedMethodListener implements IInvokedMethodListener {
 	private void setupDriverForTest(TestInfo testInfo) throws Exception {
 		MutableCapabilities browserOptions = testInfo.getBrowserOption();
 		Dimension deviceDimension = testInfo.getDeviceDimension();
+		boolean reusable = testInfo.isSessionReusable();
+
+		// Isolated browser context in a shared Chrome process
+		if (testInfo.isContextMultiplexable() && webDriverService.startBrowserContext(browserOptions, deviceDimension)) {
+			return;
+		}
+
+		// Retry with backoff and circuit breaker on the grid
+		if (!runTimeContext.isLocalExecutionMode() && sessionAcquisitionPolicy.isEnabled()) {
+			sessionAcquisitionPolicy.acquire(
+					() -> webDriverService.startDriverInstance(browserOptions, deviceDimension, reusable),
+					webDriverService::stopWebDriver);
+			return;
+		}
 
 		try {
 			// Setup web driver
-			webDriverService.startDriverInstance(browserOptions, deviceDimension);
+			webDriverService.startDriverInstance(browserOptions, deviceDimension, reusable);
 		} catch (Exception ex1) {
 			if (!runTimeContext.isLocalExecutionMode()) {
 				webDriverService.stopWebDriver();
-				// Wait 30 seconds and retry driver setup
-				Thread.sleep(30000);
+				if (capacityMonitor.isEnabled()) {
+					// Retry once the grid reports a free slot
+					capacityMonitor.refresh();
+				} else {
+					// Wait 30 seconds and retry driver setup
+					Thread.sleep(30000);
+				}
 
 				// Setup web driver
-				webDriverService.startDriverInstance(browserOptions, deviceDimension);
+				webDriverService.startDriverInstance(browserOptions, deviceDimension, reusable);
 			} else {
 				throw ex1;
 			}
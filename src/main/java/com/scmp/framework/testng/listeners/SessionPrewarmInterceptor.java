@@ -0,0 +1,54 @@
+package com.scmp.framework.testng.listeners;
+
+import com.scmp.framework.context.ApplicationContextProvider;
+import com.scmp.framework.services.BrowserCapabilityCache;
+import com.scmp.framework.services.SessionPrewarmer;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+import org.testng.xml.XmlTest;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * SessionPrewarmInterceptor - Builds the capability templates of the test methods, and queues them
+ * in the intercepted order for the session pre-warming, registered after the interceptors which reorder the methods.
+ */
+public class SessionPrewarmInterceptor implements IMethodInterceptor {
+	private final SessionPrewarmer sessionPrewarmer;
+	private final BrowserCapabilityCache capabilityCache;
+
+	public SessionPrewarmInterceptor() {
+		sessionPrewarmer = ApplicationContextProvider.getApplicationContext().getBean(SessionPrewarmer.class);
+		capabilityCache = ApplicationContextProvider.getApplicationContext().getBean(BrowserCapabilityCache.class);
+	}
+
+	@Override
+	public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+		XmlTest xmlTest = context.getCurrentXmlTest();
+		List<Method> orderedMethods = methods.stream()
+				.map(methodInstance -> methodInstance.getMethod().getConstructorOrMethod().getMethod())
+				.collect(Collectors.toList());
+		capabilityCache.precompute(orderedMethods, xmlTest.getParameter("browser"));
+
+		if (!sessionPrewarmer.isEnabled()) {
+			return methods;
+		}
+		sessionPrewarmer.enqueue(getQueueName(xmlTest), orderedMethods, xmlTest.getParameter("browser"));
+
+		return methods;
+	}
+
+	/**
+	 * Get the queue name of a TestNG test, the suites of the browsers share the suite and test names
+	 * unless UNIFIED_RUN_MODE is on, so the browser is part of the name
+	 *
+	 * @param xmlTest TestNG test
+	 * @return queue name
+	 */
+	public static String getQueueName(XmlTest xmlTest) {
+		return xmlTest.getSuite().getName() + "/" + xmlTest.getName() + "/" + xmlTest.getParameter("browser");
+	}
+}
@@ -7,9 +7,9 @@ import com.scmp.framework.context.FrameworkConfigs;
 import com.scmp.framework.context.RunTimeContext;
 import com.scmp.framework.services.SlackbotService;
 import com.scmp.framework.testrail.TestRailManager;
+import com.scmp.framework.testrail.TestRailRunResolver;
 import com.scmp.framework.testrail.TestRailStatus;
 import com.scmp.framework.testrail.models.TestRun;
-import com.scmp.framework.testrail.models.TestRunResult;
 import com.scmp.framework.testrail.models.TestRunTest;
 import com.scmp.framework.utils.StringUtils;
 import org.jetbrains.annotations.NotNull;
@@ -25,9 +25,6 @@ import java.util.*;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
-import static com.scmp.framework.utils.Constants.FILTERED_TEST_OBJECT;
-import static com.scmp.framework.utils.Constants.TEST_RUN_OBJECT;
-
 public class SuiteListener implements ISuiteListener {
 
 	private static final Logger frameworkLogger = LoggerFactory.getLogger(SuiteListener.class);
@@ -35,6 +32,7 @@ public class SuiteListener implements ISuiteListener {
 	private final RunTimeContext runTimeContext;
 	private final FrameworkConfigs frameworkConfigs;
 	private final TestRailManager testRailManager;
+	private final TestRailRunResolver testRailRunResolver;
 	private final SlackbotService slackbotService;
 
 	public SuiteListener() {
@@ -43,6 +41,7 @@ public class SuiteListener implements ISuiteListener {
 		ApplicationContext context = ApplicationContextProvider.getApplicationContext();
 		runTimeContext = context.getBean(RunTimeContext.class);
 		testRailManager = context.getBean(TestRailManager.class);
+		testRailRunResolver = context.getBean(TestRailRunResolver.class);
 		frameworkConfigs = context.getBean(FrameworkConfigs.class);
 		slackbotService = context.getBean(SlackbotService.class);
 	}
@@ -94,101 +93,19 @@ public class SuiteListener implements ISuiteListener {
 	}
 
 	/**
-	 * Set up a Test Run in TestRail.
+	 * Set up a Test Run in TestRail, the test run is shared by all suites of the execution.
 	 *
 	 * @param suite the test suite
 	 * @throws IOException if an I/O error occurs
 	 */
 	private void setupTestRunInTestRail(ISuite suite) throws IOException {
-		frameworkLogger.info("Creating Test Run in TestRail...");
-
-		String projectId = frameworkConfigs.getTestRailProjectId();
-		validateProjectId(projectId);
-
-		LocalDate today = LocalDate.now(runTimeContext.getZoneId());
-		String timestamp = String.valueOf(today.minusDays(7).atStartOfDay(runTimeContext.getZoneId()).toEpochSecond());
-		String defaultTestRunName = String.format("Automated Test Run - %s", today);
-		String testRunName = frameworkConfigs.getTestRailTestRunName().isEmpty() ? defaultTestRunName : frameworkConfigs.getTestRailTestRunName().trim();
-
-		if (!frameworkConfigs.isTestRailCreateNewTestRun()) {
-			Optional<TestRun> existingTestRun = findExistingTestRun(projectId, timestamp, testRunName);
-			if (existingTestRun.isPresent()) {
-				useExistingTestRun(existingTestRun.get());
-				return;
-			}
-		}
-
-		createNewTestRun(suite, projectId, testRunName);
-	}
-
-	/**
-	 * Validate the TestRail project ID.
-	 *
-	 * @param projectId the project ID to validate
-	 */
-	private void validateProjectId(String projectId) {
-		if (projectId == null || !Pattern.compile("[0-9]+").matcher(projectId).matches()) {
-			throw new IllegalArgumentException(String.format("Invalid project ID: %s", projectId));
+		Optional<TestRun> testRun = testRailRunResolver.getTestRun();
+		if (testRun.isPresent()) {
+			frameworkLogger.info("Use resolved TestRun, Id: {}, Name: {}", testRun.get().getId(), testRun.get().getName());
+			return;
 		}
-	}
 
-	/**
-	 * Find an existing Test Run in TestRail.
-	 *
-	 * @param projectId   the project ID
-	 * @param timestamp   the timestamp to filter Test Runs
-	 * @param testRunName the name of the Test Run
-	 * @return an optional containing the existing Test Run if found
-	 * @throws IOException if an I/O error occurs
-	 */
-	@NotNull
-	private Optional<TestRun> findExistingTestRun(String projectId, String timestamp, String testRunName) throws IOException {
-		TestRunResult testRunResult = testRailManager.getTestRuns(projectId, timestamp);
-		return testRunResult.getTestRunList().stream()
-				.filter(testRun -> testRun.getName().trim().equalsIgnoreCase(testRunName))
-				.findFirst();
-	}
-
-	/**
-	 * Use an existing Test Run in TestRail.
-	 *
-	 * @param existingTestRun the existing Test Run
-	 * @throws IOException if an I/O error occurs
-	 */
-	private void useExistingTestRun(@NotNull TestRun existingTestRun) throws IOException {
-		frameworkLogger.info("Use existing TestRun, Id: {}, Name: {}", existingTestRun.getId(), existingTestRun.getName());
-		runTimeContext.setGlobalVariables(TEST_RUN_OBJECT, existingTestRun);
-
-		String statusFilter = frameworkConfigs.getTestRailTestStatusFilter().replace(" ", "");
-		List<TestRunTest> matchedTests = testRailManager.getAllTestRunTests(existingTestRun.getId(), statusFilter);
-		runTimeContext.setGlobalVariables(FILTERED_TEST_OBJECT, matchedTests);
-	}
-
-	/**
-	 * Create a new Test Run in TestRail.
-	 *
-	 * @param suite       the test suite
-	 * @param projectId   the project ID
-	 * @param testRunName the name of the Test Run
-	 * @throws IOException if an I/O error occurs
-	 */
-	private void createNewTestRun(ISuite suite, String projectId, String testRunName) throws IOException {
-		List<Integer> testCaseIdList = frameworkConfigs.isTestRailIncludeAllAutomatedTestCases() ?
-				testRailManager.getAllAutomatedTestCases(projectId).stream().map(TestRunTest::getId).collect(Collectors.toList()) :
-				getAllTestRailTestCases(suite);
-
-		if (!testCaseIdList.isEmpty()) {
-			TestRun testRun = testRailManager.addTestRun(projectId, testRunName, testCaseIdList);
-			runTimeContext.setGlobalVariables(TEST_RUN_OBJECT, testRun);
-			if (testRun != null && testRun.getId() > 0) {
-				frameworkLogger.info("Test Run created in TestRail - Id: {}, Name: {}", testRun.getId(), testRun.getName());
-			} else {
-				frameworkLogger.error("Failed to create Test Run in TestRail.");
-				throw new RuntimeException("Failed to create Test Run in TestRail.");
-			}
-		} else {
-			frameworkLogger.warn("No Test Run created as no test cases were found.");
-		}
+		testRailRunResolver.setupTestRun(getAllTestRailTestCases(suite));
 	}
 
 	/**
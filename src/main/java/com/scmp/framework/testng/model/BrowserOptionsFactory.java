@@ -0,0 +1,265 @@
+package com.scmp.framework.testng.model;
+
+import com.scmp.framework.annotations.*;
+import com.scmp.framework.annotations.screens.Device;
+import com.scmp.framework.annotations.screens.DeviceName;
+import com.scmp.framework.context.ApplicationContextProvider;
+import com.scmp.framework.context.RunTimeContext;
+import com.scmp.framework.model.Browser;
+import com.scmp.framework.model.IProxyFactory;
+import com.scmp.framework.services.DriverProvisioningService;
+import net.lightbody.bmp.BrowserMobProxy;
+import net.lightbody.bmp.client.ClientUtil;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.Proxy;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.logging.LogType;
+import org.openqa.selenium.logging.LoggingPreferences;
+import org.openqa.selenium.remote.CapabilityType;
+
+import java.lang.reflect.Method;
+import java.net.Inet4Address;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * BrowserOptionsFactory - Builds the browser options and device dimension of a test method from its annotations and the configs,
+ * without the TestNG invocation, e.g. to start a session ahead of the test.
+ */
+public class BrowserOptionsFactory {
+	// Proxy factories are created once per class
+	private static final Map<Class<?>, IProxyFactory> proxyFactories = new ConcurrentHashMap<>();
+
+	private final RunTimeContext runTimeContext;
+
+	public BrowserOptionsFactory(RunTimeContext runTimeContext) {
+		this.runTimeContext = runTimeContext;
+	}
+
+	/**
+	 * Get testing device dimension.
+	 *
+	 * @param declaredMethod     test method
+	 * @param testMethodMetadata annotation metadata from the test index, null if the test is not indexed
+	 * @return device dimension
+	 */
+	public Dimension getDeviceDimension(Method declaredMethod, TestMethodMetadata testMethodMetadata) {
+		// Check the mobile screen size preference
+		if (testMethodMetadata != null) {
+			return testMethodMetadata.getDeviceWidth() > 0
+					? new Dimension(testMethodMetadata.getDeviceWidth(), testMethodMetadata.getDeviceHeight())
+					: new Dimension(DeviceName.DeskTopHD.width, DeviceName.DeskTopHD.height);
+		}
+
+		Device deviceAnnotationData = declaredMethod.getAnnotation(Device.class);
+		Dimension deviceDimension;
+		if (deviceAnnotationData != null) {
+			int width = deviceAnnotationData.device() == DeviceName.OtherDevice ? deviceAnnotationData.width() : deviceAnnotationData.device().width;
+			int height = deviceAnnotationData.device() == DeviceName.OtherDevice ? deviceAnnotationData.height() : deviceAnnotationData.device().height;
+			deviceDimension = new Dimension(width, height);
+		} else {
+			// If device dimension is not specified, use desktop by default
+			deviceDimension = new Dimension(DeviceName.DeskTopHD.width, DeviceName.DeskTopHD.height);
+		}
+
+		return deviceDimension;
+	}
+
+	/**
+	 * Get Chrome options based on the annotation/configs of each test case.
+	 *
+	 * @param declaredMethod test method
+	 * @return ChromeOptions
+	 */
+	public ChromeOptions getChromeOptions(Method declaredMethod) {
+		ChromeOptions options = new ChromeOptions();
+
+		// If the test is not tagged skip chrome options, use Global_Chrome_Options which has options separated by comma
+		if (declaredMethod.getAnnotation(SkipGlobalChromeOptions.class) == null) {
+			String global_chrome_options = runTimeContext.getFrameworkConfigs().getGlobalChromeOptions();
+
+			// Only add arguments if global_chrome_options has something
+			if (global_chrome_options != null && !global_chrome_options.isEmpty()) {
+				String[] parsedOptions = global_chrome_options.split(",");
+
+				for (String parsedOption : parsedOptions) {
+					options.addArguments(parsedOption);
+				}
+			}
+		}
+
+		// Temporary solution for fixing the bug: https://stackoverflow.com/questions/75678572/java-io-ioexception-invalid-status-code-403-text-forbidden
+		options.addArguments("--remote-allow-origins=*");
+
+		// Get Chrome options/arguments
+		ChromeArguments chromeArguments = declaredMethod.getAnnotation(ChromeArguments.class);
+		if (chromeArguments != null && chromeArguments.options().length > 0) {
+			options.addArguments(chromeArguments.options());
+		}
+
+		// private mode
+		IncognitoPrivateMode privateMode = declaredMethod.getAnnotation(IncognitoPrivateMode.class);
+		if (privateMode != null) {
+			options.addArguments("--incognito");
+		}
+
+		// headless mode
+		HeadlessMode headlessMode = declaredMethod.getAnnotation(HeadlessMode.class);
+		// If headless mode is not specified, use the global headless mode
+		int majorVersion = 0;
+		if (headlessMode == null || headlessMode.status()) {
+			// Get version from config if using remote selenium server
+			if (!runTimeContext.isLocalExecutionMode()) {
+				majorVersion = runTimeContext.getFrameworkConfigs().getRemoteDriverVersion();
+			} else {
+				// Get local driver version
+				String version = ApplicationContextProvider.getApplicationContext()
+						.getBean(DriverProvisioningService.class).getDriverVersion(Browser.CHROME);
+				// Split the version string to get the major version
+				String[] versionParts = version.split("\\.");
+				if (versionParts.length > 0) {
+					majorVersion = Integer.parseInt(versionParts[0]);
+				}
+			}
+
+			// Check if the major version is greater than 109
+			if (majorVersion >= 109) {
+				options.addArguments("--headless=new");
+			} else if (majorVersion >= 96) {
+				options.addArguments("--headless=chrome");
+			} else {
+				/* do nothing */
+			}
+		}
+
+		// Accept untrusted certificates
+		AcceptUntrustedCertificates acceptUntrustedCertificates = declaredMethod.getAnnotation(AcceptUntrustedCertificates.class);
+		// If acceptUntrustedCertificates is not specified, use the global acceptUntrustedCertificates
+		options.setAcceptInsecureCerts(acceptUntrustedCertificates == null || acceptUntrustedCertificates.status());
+
+		// Capture network traffic
+		CaptureNetworkTraffic4Chrome captureNetworkTraffic4Chrome = declaredMethod.getAnnotation(CaptureNetworkTraffic4Chrome.class);
+		if (captureNetworkTraffic4Chrome != null) {
+			LoggingPreferences preferences = new LoggingPreferences();
+			preferences.enable(LogType.PERFORMANCE, Level.ALL);
+			options.setCapability("goog:loggingPrefs", preferences);
+		}
+
+		// Enable proxy
+		CustomProxy customProxy = declaredMethod.getAnnotation(CustomProxy.class);
+		if (customProxy != null) {
+			BrowserMobProxy proxy;
+			Class proxyCls = customProxy.factory();
+			if (IProxyFactory.class.isAssignableFrom(proxyCls)) {
+				try {
+					IProxyFactory proxyObj = getProxyFactory(proxyCls);
+					proxy = proxyObj.getProxy(customProxy.name());
+					if (proxy == null) {
+						throw new RuntimeException("Custom Proxy cannot be null!");
+					}
+
+					Proxy seleniumProxy = ClientUtil.createSeleniumProxy(proxy);
+
+					String hostIp = Inet4Address.getLocalHost().getHostAddress();
+					seleniumProxy.setHttpProxy(hostIp + ":" + proxy.getPort()); // The port generated by server.start();
+					seleniumProxy.setSslProxy(hostIp + ":" + proxy.getPort());
+
+					options.addArguments("--ignore-certificate-errors");
+					options.addArguments("--ignore-urlfetcher-cert-requests");
+
+					options.setCapability(CapabilityType.PROXY, seleniumProxy);
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		}
+
+		// Load default extension
+		String extensionPath = runTimeContext.getDefaultExtensionPath();
+		if (!extensionPath.isEmpty()) {
+			options.addArguments("load-extension=" + extensionPath);
+		}
+
+		return options;
+	}
+
+	/**
+	 * Get the proxy factory, created on first use
+	 *
+	 * @param proxyCls proxy factory class
+	 * @return proxy factory
+	 * @throws ReflectiveOperationException exception when creating the factory
+	 */
+	private static IProxyFactory getProxyFactory(Class<?> proxyCls) throws ReflectiveOperationException {
+		IProxyFactory proxyFactory = proxyFactories.get(proxyCls);
+		if (proxyFactory == null) {
+			proxyFactory = (IProxyFactory) proxyCls.getConstructor().newInstance();
+			IProxyFactory existing = proxyFactories.putIfAbsent(proxyCls, proxyFactory);
+			if (existing != null) {
+				proxyFactory = existing;
+			}
+		}
+
+		return proxyFactory;
+	}
+
+	/**
+	 * Drop the created proxy factories
+	 */
+	public static void clearProxyFactories() {
+		proxyFactories.clear();
+	}
+
+	/**
+	 * Get Firefox options based on the annotation/configs of each test case.
+	 *
+	 * @param declaredMethod test method
+	 * @return FirefoxOptions
+	 */
+	public FirefoxOptions getFirefoxOptions(Method declaredMethod) {
+		FirefoxOptions options = new FirefoxOptions();
+		// Get Firefox options/arguments
+		FirefoxArguments firefoxArguments = declaredMethod.getAnnotation(FirefoxArguments.class);
+		if (firefoxArguments != null && firefoxArguments.options().length > 0) {
+			options.addArguments(firefoxArguments.options());
+		}
+
+		// private mode
+		IncognitoPrivateMode privateMode = declaredMethod.getAnnotation(IncognitoPrivateMode.class);
+		if (privateMode != null) {
+			options.addArguments("-private");
+		}
+
+		// headless mode
+		HeadlessMode headlessMode = declaredMethod.getAnnotation(HeadlessMode.class);
+		// If headless mode is not specified, use the global headless mode
+		if (headlessMode == null || headlessMode.status()) {
+			options.addArguments("--headless=new");
+		}
+
+		// Accept untrusted certificates
+		AcceptUntrustedCertificates acceptUntrustedCertificates = declaredMethod.getAnnotation(AcceptUntrustedCertificates.class);
+		// If acceptUntrustedCertificates is not specified, use the global acceptUntrustedCertificates
+		options.setAcceptInsecureCerts(acceptUntrustedCertificates == null || acceptUntrustedCertificates.status());
+
+		return options;
+	}
+
+	/**
+	 * Get browser options based on the annotation/configs of each test case.
+	 *
+	 * @param declaredMethod test method
+	 * @param browserType    browser of the test
+	 * @return Browser Options
+	 */
+	public MutableCapabilities getBrowserOption(Method declaredMethod, Browser browserType) {
+		return switch (browserType) {
+			case CHROME -> this.getChromeOptions(declaredMethod);
+			case FIREFOX -> this.getFirefoxOptions(declaredMethod);
+			default -> throw new RuntimeException("Unsupported browser: " + browserType);
+		};
+	}
+}
@@ -1,43 +1,32 @@
 package com.scmp.framework.testng.model;
 
 import com.scmp.framework.annotations.*;
-import com.scmp.framework.annotations.screens.Device;
-import com.scmp.framework.annotations.screens.DeviceName;
 import com.scmp.framework.annotations.testrail.TestRailTestCase;
+import com.scmp.framework.context.ApplicationContextProvider;
 import com.scmp.framework.context.RunTimeContext;
 import com.scmp.framework.model.Browser;
-import com.scmp.framework.model.IProxyFactory;
+import com.scmp.framework.services.BrowserCapabilityCache;
 import com.scmp.framework.testng.listeners.RetryAnalyzer;
 import com.scmp.framework.testrail.TestRailDataService;
 import com.scmp.framework.testrail.TestRailStatus;
 import com.scmp.framework.testrail.models.TestRun;
-import com.scmp.framework.testrail.models.TestRunTest;
 import com.scmp.framework.utils.ConfigFileReader;
 import lombok.Getter;
-import net.lightbody.bmp.BrowserMobProxy;
-import net.lightbody.bmp.client.ClientUtil;
 import org.openqa.selenium.Dimension;
 import org.openqa.selenium.MutableCapabilities;
-import org.openqa.selenium.Proxy;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.firefox.FirefoxOptions;
-import org.openqa.selenium.logging.LogType;
-import org.openqa.selenium.logging.LoggingPreferences;
-import org.openqa.selenium.remote.CapabilityType;
 import org.testng.IInvokedMethod;
 import org.testng.IRetryAnalyzer;
 import org.testng.ITestResult;
 import org.testng.annotations.Test;
 
 import java.lang.reflect.Method;
-import java.net.Inet4Address;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.logging.Level;
+import java.util.Set;
 
 import static com.scmp.framework.utils.Constants.*;
 
@@ -49,9 +38,11 @@ public class TestInfo {
 	@Getter
 	private final ITestResult testResult;
 	private final Method declaredMethod;
+	// Annotation metadata from the test index, null if the test is not indexed
+	private final TestMethodMetadata testMethodMetadata;
 	private Browser browserType = null;
 	private TestRailDataService testRailDataService = null;
-	private final LocalDateTime testStartTime;
+	private LocalDateTime testStartTime;
 	private LocalDateTime testEndTime = null;
 	private Boolean isSkippedTest = null;
 	private final RunTimeContext runTimeContext;
@@ -62,17 +53,49 @@ public class TestInfo {
 		this.testResult = testResult;
 		this.declaredMethod = this.testNGInvokedMethod.getTestMethod().getConstructorOrMethod().getMethod();
 		this.testStartTime = LocalDateTime.now(runTimeContext.getZoneId());
+		this.testMethodMetadata = this.findTestMethodMetadata();
 
 		// Init TestRail handler
 		if (this.isTestMethod() && !this.isSkippedTest() && runTimeContext.getFrameworkConfigs().isTestRailUploadTestResult()) {
-			TestRailTestCase testRailCase = this.declaredMethod.getAnnotation(TestRailTestCase.class);
+			Integer testRailCaseId = this.getTestRailCaseId();
 			TestRun testRun = (TestRun) runTimeContext.getGlobalVariables(TEST_RUN_OBJECT);
-			if (testRailCase != null && testRun != null) {
-				this.testRailDataService = new TestRailDataService(testRailCase.id(), testRun);
+			if (testRailCaseId != null && testRun != null) {
+				this.testRailDataService = new TestRailDataService(testRailCaseId, testRun);
 			}
 		}
 	}
 
+	/**
+	 * Find the metadata of the test method from the test index.
+	 *
+	 * @return test method metadata, null if the test is not indexed
+	 */
+	private TestMethodMetadata findTestMethodMetadata() {
+		Object metadataObject = runTimeContext.getGlobalVariables(TEST_METADATA_OBJECT);
+		if (metadataObject instanceof Map<?, ?> metadataMap) {
+			Object metadata = metadataMap.get(TestMethodMetadata.getKey(this.declaredMethod.getDeclaringClass().getName(), this.declaredMethod.getName()));
+			if (metadata instanceof TestMethodMetadata testMethodMetadata) {
+				return testMethodMetadata;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Get the TestRail case id of the test.
+	 *
+	 * @return TestRail case id, null if the test is not annotated with TestRailTestCase
+	 */
+	public Integer getTestRailCaseId() {
+		if (this.testMethodMetadata != null) {
+			return this.testMethodMetadata.getTestRailCaseId();
+		}
+
+		TestRailTestCase testRailTestCase = this.declaredMethod.getAnnotation(TestRailTestCase.class);
+		return testRailTestCase == null ? null : testRailTestCase.id();
+	}
+
 	/**
 	 * Add test result for TestRail.
 	 *
@@ -93,6 +116,22 @@ public class TestInfo {
 		this.testEndTime = LocalDateTime.now(runTimeContext.getZoneId());
 	}
 
+	/**
+	 * Restart the clock of the test, so that the wait for a thread slot is not counted in its duration.
+	 */
+	public void restartClock() {
+		this.testStartTime = LocalDateTime.now(runTimeContext.getZoneId());
+	}
+
+	/**
+	 * Get the elapsed time since the test started.
+	 *
+	 * @return elapsed time in milliseconds
+	 */
+	public long getElapsedMillis() {
+		return Duration.between(this.testStartTime, LocalDateTime.now(runTimeContext.getZoneId())).toMillis();
+	}
+
 	/**
 	 * Upload test results to TestRail.
 	 */
@@ -234,16 +273,20 @@ public class TestInfo {
 		}
 
 		// Override browser type
-		FirefoxOnly firefoxOnly = this.declaredMethod.getAnnotation(FirefoxOnly.class);
-		ChromeOnly chromeOnly = this.declaredMethod.getAnnotation(ChromeOnly.class);
+		boolean firefoxOnly = this.testMethodMetadata != null
+				? this.testMethodMetadata.isFirefoxOnly()
+				: this.declaredMethod.getAnnotation(FirefoxOnly.class) != null;
+		boolean chromeOnly = this.testMethodMetadata != null
+				? this.testMethodMetadata.isChromeOnly()
+				: this.declaredMethod.getAnnotation(ChromeOnly.class) != null;
 		CaptureNetworkTraffic4Chrome captureNetworkTraffic4Chrome = this.declaredMethod.getAnnotation(CaptureNetworkTraffic4Chrome.class);
 
 		// Further update browser type based on annotation
 		if (retryBrowserType != null) {
 			browserType = retryBrowserType;
-		} else if (firefoxOnly != null) {
+		} else if (firefoxOnly) {
 			browserType = Browser.FIREFOX;
-		} else if (chromeOnly != null || captureNetworkTraffic4Chrome != null) {
+		} else if (chromeOnly || captureNetworkTraffic4Chrome != null) {
 			browserType = Browser.CHROME;
 		} else if (configBrowserType == Browser.RANDOM) {
 			browserType = Math.round(Math.random()) == 1 ? Browser.CHROME : Browser.FIREFOX;
@@ -261,19 +304,7 @@ public class TestInfo {
 	 * @return device dimension
 	 */
 	public Dimension getDeviceDimension() {
-		// Check the mobile screen size preference
-		Device deviceAnnotationData = this.declaredMethod.getAnnotation(Device.class);
-		Dimension deviceDimension;
-		if (deviceAnnotationData != null) {
-			int width = deviceAnnotationData.device() == DeviceName.OtherDevice ? deviceAnnotationData.width() : deviceAnnotationData.device().width;
-			int height = deviceAnnotationData.device() == DeviceName.OtherDevice ? deviceAnnotationData.height() : deviceAnnotationData.device().height;
-			deviceDimension = new Dimension(width, height);
-		} else {
-			// If device dimension is not specified, use desktop by default
-			deviceDimension = new Dimension(DeviceName.DeskTopHD.width, DeviceName.DeskTopHD.height);
-		}
-
-		return deviceDimension;
+		return new BrowserOptionsFactory(runTimeContext).getDeviceDimension(this.declaredMethod, this.testMethodMetadata);
 	}
 
 	/**
@@ -282,114 +313,7 @@ public class TestInfo {
 	 * @return ChromeOptions
 	 */
 	public ChromeOptions getChromeOptions() {
-		ChromeOptions options = new ChromeOptions();
-
-		// If the test is not tagged skip chrome options, use Global_Chrome_Options which has options separated by comma
-		if (this.declaredMethod.getAnnotation(SkipGlobalChromeOptions.class) == null) {
-			String global_chrome_options = runTimeContext.getFrameworkConfigs().getGlobalChromeOptions();
-
-			// Only add arguments if global_chrome_options has something
-			if (global_chrome_options != null && !global_chrome_options.isEmpty()) {
-				String[] parsedOptions = global_chrome_options.split(",");
-
-				for (String parsedOption : parsedOptions) {
-					options.addArguments(parsedOption);
-				}
-			}
-		}
-
-		// Temporary solution for fixing the bug: https://stackoverflow.com/questions/75678572/java-io-ioexception-invalid-status-code-403-text-forbidden
-		options.addArguments("--remote-allow-origins=*");
-
-		// Get Chrome options/arguments
-		ChromeArguments chromeArguments = this.declaredMethod.getAnnotation(ChromeArguments.class);
-		if (chromeArguments != null && chromeArguments.options().length > 0) {
-			options.addArguments(chromeArguments.options());
-		}
-
-		// private mode
-		IncognitoPrivateMode privateMode = this.declaredMethod.getAnnotation(IncognitoPrivateMode.class);
-		if (privateMode != null) {
-			options.addArguments("--incognito");
-		}
-
-		// headless mode
-		HeadlessMode headlessMode = this.declaredMethod.getAnnotation(HeadlessMode.class);
-		// If headless mode is not specified, use the global headless mode
-		int majorVersion = 0;
-		if (headlessMode == null || headlessMode.status()) {
-			// Get version from config if using remote selenium server
-			if (!runTimeContext.isLocalExecutionMode()) {
-				majorVersion = runTimeContext.getFrameworkConfigs().getRemoteDriverVersion();
-			} else {
-				// Get local driver version
-				String version = runTimeContext.getGlobalVariables(CHROME_DRIVER_VERSION).toString();
-				// Split the version string to get the major version
-				String[] versionParts = version.split("\\.");
-				if (versionParts.length > 0) {
-					majorVersion = Integer.parseInt(versionParts[0]);
-				}
-			}
-
-			// Check if the major version is greater than 109
-			if (majorVersion >= 109) {
-				options.addArguments("--headless=new");
-			} else if (majorVersion >= 96) {
-				options.addArguments("--headless=chrome");
-			} else {
-				/* do nothing */
-			}
-		}
-
-		// Accept untrusted certificates
-		AcceptUntrustedCertificates acceptUntrustedCertificates = this.declaredMethod.getAnnotation(AcceptUntrustedCertificates.class);
-		// If acceptUntrustedCertificates is not specified, use the global acceptUntrustedCertificates
-		options.setAcceptInsecureCerts(acceptUntrustedCertificates == null || acceptUntrustedCertificates.status());
-
-		// Capture network traffic
-		CaptureNetworkTraffic4Chrome captureNetworkTraffic4Chrome = this.declaredMethod.getAnnotation(CaptureNetworkTraffic4Chrome.class);
-		if (captureNetworkTraffic4Chrome != null) {
-			LoggingPreferences preferences = new LoggingPreferences();
-			preferences.enable(LogType.PERFORMANCE, Level.ALL);
-			options.setCapability("goog:loggingPrefs", preferences);
-		}
-
-		// Enable proxy
-		CustomProxy customProxy = this.declaredMethod.getAnnotation(CustomProxy.class);
-		if (customProxy != null) {
-			BrowserMobProxy proxy;
-			Class proxyCls = customProxy.factory();
-			if (IProxyFactory.class.isAssignableFrom(proxyCls)) {
-				try {
-					IProxyFactory proxyObj = (IProxyFactory) proxyCls.getConstructor().newInstance();
-					proxy = proxyObj.getProxy(customProxy.name());
-					if (proxy == null) {
-						throw new RuntimeException("Custom Proxy cannot be null!");
-					}
-
-					Proxy seleniumProxy = ClientUtil.createSeleniumProxy(proxy);
-
-					String hostIp = Inet4Address.getLocalHost().getHostAddress();
-					seleniumProxy.setHttpProxy(hostIp + ":" + proxy.getPort()); // The port generated by server.start();
-					seleniumProxy.setSslProxy(hostIp + ":" + proxy.getPort());
-
-					options.addArguments("--ignore-certificate-errors");
-					options.addArguments("--ignore-urlfetcher-cert-requests");
-
-					options.setCapability(CapabilityType.PROXY, seleniumProxy);
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-			}
-		}
-
-		// Load default extension
-		String extensionPath = runTimeContext.getDefaultExtensionPath();
-		if (!extensionPath.isEmpty()) {
-			options.addArguments("load-extension=" + extensionPath);
-		}
-
-		return options;
+		return (ChromeOptions) getCapabilityCache().getBrowserOption(this.declaredMethod, Browser.CHROME);
 	}
 
 	/**
@@ -398,32 +322,7 @@ public class TestInfo {
 	 * @return FirefoxOptions
 	 */
 	public FirefoxOptions getFirefoxOptions() {
-		FirefoxOptions options = new FirefoxOptions();
-		// Get Firefox options/arguments
-		FirefoxArguments firefoxArguments = this.declaredMethod.getAnnotation(FirefoxArguments.class);
-		if (firefoxArguments != null && firefoxArguments.options().length > 0) {
-			options.addArguments(firefoxArguments.options());
-		}
-
-		// private mode
-		IncognitoPrivateMode privateMode = this.declaredMethod.getAnnotation(IncognitoPrivateMode.class);
-		if (privateMode != null) {
-			options.addArguments("-private");
-		}
-
-		// headless mode
-		HeadlessMode headlessMode = this.declaredMethod.getAnnotation(HeadlessMode.class);
-		// If headless mode is not specified, use the global headless mode
-		if (headlessMode == null || headlessMode.status()) {
-			options.addArguments("--headless=new");
-		}
-
-		// Accept untrusted certificates
-		AcceptUntrustedCertificates acceptUntrustedCertificates = this.declaredMethod.getAnnotation(AcceptUntrustedCertificates.class);
-		// If acceptUntrustedCertificates is not specified, use the global acceptUntrustedCertificates
-		options.setAcceptInsecureCerts(acceptUntrustedCertificates == null || acceptUntrustedCertificates.status());
-
-		return options;
+		return (FirefoxOptions) getCapabilityCache().getBrowserOption(this.declaredMethod, Browser.FIREFOX);
 	}
 
 	/**
@@ -432,12 +331,11 @@ public class TestInfo {
 	 * @return Browser Options
 	 */
 	public MutableCapabilities getBrowserOption() {
-		Browser browserType = this.getBrowserType();
-		return switch (browserType) {
-			case CHROME -> this.getChromeOptions();
-			case FIREFOX -> this.getFirefoxOptions();
-			default -> throw new RuntimeException("Unsupported browser: " + browserType);
-		};
+		return getCapabilityCache().getBrowserOption(this.declaredMethod, this.getBrowserType());
+	}
+
+	private BrowserCapabilityCache getCapabilityCache() {
+		return ApplicationContextProvider.getApplicationContext().getBean(BrowserCapabilityCache.class);
 	}
 
 	/**
@@ -482,15 +380,12 @@ public class TestInfo {
 	 * @return true if the test is in the TestRail test list, false otherwise
 	 */
 	public boolean isInTestRailTestList() {
-		Object filteredTestsObject = runTimeContext.getGlobalVariables(FILTERED_TEST_OBJECT);
-		if (filteredTestsObject instanceof List) {
-			List<TestRunTest> filteredTests = (List<TestRunTest>) filteredTestsObject;
+		Object filteredCaseIdsObject = runTimeContext.getGlobalVariables(FILTERED_TEST_CASE_IDS);
+		if (filteredCaseIdsObject instanceof Set) {
+			Set<Integer> filteredCaseIds = (Set<Integer>) filteredCaseIdsObject;
 
-			TestRailTestCase testRailTestCase = this.declaredMethod.getAnnotation(TestRailTestCase.class);
-			if (testRailTestCase == null) return false;
-			Optional<TestRunTest> result = filteredTests.parallelStream().filter(test -> test.getCaseId() == testRailTestCase.id()).findFirst();
-
-			return result.isPresent();
+			Integer testRailCaseId = this.getTestRailCaseId();
+			return testRailCaseId != null && filteredCaseIds.contains(testRailCaseId);
 		}
 
 		return true;
@@ -509,12 +404,38 @@ public class TestInfo {
 		return this.isSkippedTest;
 	}
 
+	/**
+	 * Check if the test can run on a browser session used by other tests,
+	 * private mode, custom proxy and network capture need a new session.
+	 *
+	 * @return true if the session can be reused, false otherwise
+	 */
+	public boolean isSessionReusable() {
+		return this.declaredMethod.getAnnotation(IncognitoPrivateMode.class) == null
+				&& this.declaredMethod.getAnnotation(CustomProxy.class) == null
+				&& this.declaredMethod.getAnnotation(CaptureNetworkTraffic4Chrome.class) == null;
+	}
+
+	/**
+	 * Check if the test can run in a browser context of a shared Chrome process,
+	 * Chrome arguments apply to the whole process.
+	 *
+	 * @return true if the test can share the Chrome process, false otherwise
+	 */
+	public boolean isContextMultiplexable() {
+		return this.isSessionReusable() && this.declaredMethod.getAnnotation(ChromeArguments.class) == null;
+	}
+
 	/**
 	 * Check if the browser needs to be launched for the test.
 	 *
 	 * @return true if the browser needs to be launched, false otherwise
 	 */
 	public boolean needLaunchBrowser() {
+		if (this.testMethodMetadata != null) {
+			return this.testMethodMetadata.isLaunchBrowser();
+		}
+
 		LaunchBrowser launchBrowser = this.declaredMethod.getAnnotation(LaunchBrowser.class);
 		return launchBrowser == null || launchBrowser.status();
 	}
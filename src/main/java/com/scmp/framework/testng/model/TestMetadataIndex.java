@@ -0,0 +1,29 @@
+package com.scmp.framework.testng.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * TestMetadataIndex - Index of the test methods generated at compile time by
+ * {@link com.scmp.framework.processor.TestMetadataIndexProcessor}, loaded with ServiceLoader.
+ */
+public interface TestMetadataIndex {
+
+	/**
+	 * Get the metadata of all the test methods in the index
+	 *
+	 * @return test method metadata list
+	 */
+	List<TestMethodMetadata> getTestMethods();
+
+	/**
+	 * Get the top-level classes compiled together with the index, a test class compiled without it
+	 * means the index was generated by a partial compilation and is incomplete
+	 *
+	 * @return binary names of the compiled classes, empty for the indexes generated before they were recorded
+	 */
+	default Set<String> getCompiledClasses() {
+		return Collections.emptySet();
+	}
+}
@@ -0,0 +1,108 @@
+package com.scmp.framework.testng.model;
+
+import com.scmp.framework.annotations.ChromeOnly;
+import com.scmp.framework.annotations.FirefoxOnly;
+import com.scmp.framework.annotations.LaunchBrowser;
+import com.scmp.framework.annotations.RetryCount;
+import com.scmp.framework.annotations.screens.Device;
+import com.scmp.framework.annotations.screens.DeviceName;
+import com.scmp.framework.annotations.testrail.TestRailTestCase;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * TestMethodMetadata - Annotation metadata of a test method,
+ * it can be cached so that the test methods do not need to be scanned on every run.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestMethodMetadata {
+	private String className;
+	private String methodName;
+	private String[] groups;
+	private String[] dependsOnMethods;
+	private Integer testRailCaseId;
+	private boolean launchBrowser;
+	private boolean chromeOnly;
+	private boolean firefoxOnly;
+	private Integer maxRetryCount;
+	// 0 if the test is not annotated with Device
+	private int deviceWidth;
+	private int deviceHeight;
+
+	/**
+	 * Build the key of the test method
+	 *
+	 * @param className  full class name
+	 * @param methodName method name
+	 * @return key of the test method
+	 */
+	public static String getKey(String className, String methodName) {
+		return className + "#" + methodName;
+	}
+
+	/**
+	 * Get the key of the test method
+	 *
+	 * @return key of the test method
+	 */
+	public String getKey() {
+		return getKey(this.className, this.methodName);
+	}
+
+	/**
+	 * Read the metadata from the annotations of a test method
+	 *
+	 * @param method test method
+	 * @return test method metadata
+	 */
+	@NotNull
+	public static TestMethodMetadata from(@NotNull Method method) {
+		TestMethodMetadata metadata = new TestMethodMetadata();
+		metadata.setClassName(method.getDeclaringClass().getName());
+		metadata.setMethodName(method.getName());
+
+		// Groups from both class level and method level
+		Set<String> groups = new LinkedHashSet<>();
+		Test classLevelTest = method.getDeclaringClass().getAnnotation(Test.class);
+		if (classLevelTest != null) {
+			groups.addAll(Set.of(classLevelTest.groups()));
+		}
+
+		Test test = method.getAnnotation(Test.class);
+		if (test != null) {
+			groups.addAll(Set.of(test.groups()));
+			metadata.setDependsOnMethods(test.dependsOnMethods());
+		} else {
+			metadata.setDependsOnMethods(new String[0]);
+		}
+		metadata.setGroups(groups.toArray(new String[0]));
+
+		TestRailTestCase testRailTestCase = method.getAnnotation(TestRailTestCase.class);
+		metadata.setTestRailCaseId(testRailTestCase == null ? null : testRailTestCase.id());
+
+		LaunchBrowser launchBrowser = method.getAnnotation(LaunchBrowser.class);
+		metadata.setLaunchBrowser(launchBrowser == null || launchBrowser.status());
+		metadata.setChromeOnly(method.getAnnotation(ChromeOnly.class) != null);
+		metadata.setFirefoxOnly(method.getAnnotation(FirefoxOnly.class) != null);
+
+		RetryCount retryCount = method.getAnnotation(RetryCount.class);
+		metadata.setMaxRetryCount(retryCount == null ? null : retryCount.maxRetryCount());
+
+		Device device = method.getAnnotation(Device.class);
+		if (device != null) {
+			metadata.setDeviceWidth(device.device() == DeviceName.OtherDevice ? device.width() : device.device().width);
+			metadata.setDeviceHeight(device.device() == DeviceName.OtherDevice ? device.height() : device.device().height);
+		}
+
+		return metadata;
+	}
+}
@@ -0,0 +1,216 @@
+package com.scmp.framework.testrail;
+
+import com.scmp.framework.context.FrameworkConfigs;
+import com.scmp.framework.context.RunTimeContext;
+import com.scmp.framework.testrail.models.TestRun;
+import com.scmp.framework.testrail.models.TestRunResult;
+import com.scmp.framework.testrail.models.TestRunTest;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static com.scmp.framework.utils.Constants.*;
+
+/**
+ * TestRailRunResolver - Resolves the TestRail test run of the execution once for all the suites,
+ * and indexes the case ids of the tests selected by TESTRAIL_TEST_STATUS_FILTER.
+ */
+@Component
+public class TestRailRunResolver {
+	private static final Logger frameworkLogger = LoggerFactory.getLogger(TestRailRunResolver.class);
+
+	private final RunTimeContext runTimeContext;
+	private final FrameworkConfigs frameworkConfigs;
+	private final TestRailManager testRailManager;
+
+	@Autowired
+	public TestRailRunResolver(RunTimeContext runTimeContext, FrameworkConfigs frameworkConfigs, TestRailManager testRailManager) {
+		this.runTimeContext = runTimeContext;
+		this.frameworkConfigs = frameworkConfigs;
+		this.testRailManager = testRailManager;
+	}
+
+	/**
+	 * Clear the test run resolved by the previous execution
+	 */
+	public synchronized void reset() {
+		runTimeContext.removeGlobalVariables(TEST_RUN_OBJECT);
+		runTimeContext.removeGlobalVariables(FILTERED_TEST_OBJECT);
+		runTimeContext.removeGlobalVariables(FILTERED_TEST_CASE_IDS);
+	}
+
+	/**
+	 * Get the resolved test run
+	 *
+	 * @return test run, empty if not resolved yet
+	 */
+	public Optional<TestRun> getTestRun() {
+		return Optional.ofNullable((TestRun) runTimeContext.getGlobalVariables(TEST_RUN_OBJECT));
+	}
+
+	/**
+	 * Get the case ids of the tests to run in the existing test run
+	 *
+	 * @return case ids, null if the tests are not filtered by an existing test run
+	 */
+	public Set<Integer> getFilteredCaseIds() {
+		if (!(runTimeContext.getGlobalVariables(FILTERED_TEST_CASE_IDS) instanceof Set<?> filteredCaseIds)) {
+			return null;
+		}
+
+		return filteredCaseIds.stream()
+				.filter(Integer.class::isInstance)
+				.map(Integer.class::cast)
+				.collect(Collectors.toUnmodifiableSet());
+	}
+
+	/**
+	 * Use the test run by id, e.g. the test run of the resumed execution
+	 *
+	 * @param testRunId test run id
+	 * @throws IOException if an I/O error occurs
+	 */
+	public synchronized void useTestRun(int testRunId) throws IOException {
+		TestRun testRun = testRailManager.getTestRun(String.valueOf(testRunId));
+		if (testRun == null || testRun.getId() <= 0) {
+			throw new RuntimeException("TestRun not found in TestRail, Id: " + testRunId);
+		}
+
+		frameworkLogger.info("Use TestRun of resumed execution, Id: {}, Name: {}", testRun.getId(), testRun.getName());
+		runTimeContext.setGlobalVariables(TEST_RUN_OBJECT, testRun);
+	}
+
+	/**
+	 * Find the existing test run by TESTRAIL_TEST_RUN_NAME, unless TESTRAIL_CREATE_NEW_TEST_RUN is set
+	 *
+	 * @return existing test run, empty if not found
+	 * @throws IOException if an I/O error occurs
+	 */
+	public synchronized Optional<TestRun> resolveExistingTestRun() throws IOException {
+		Optional<TestRun> resolvedTestRun = getTestRun();
+		if (resolvedTestRun.isPresent() || frameworkConfigs.isTestRailCreateNewTestRun()) {
+			return resolvedTestRun;
+		}
+
+		String projectId = frameworkConfigs.getTestRailProjectId();
+		validateProjectId(projectId);
+
+		LocalDate today = LocalDate.now(runTimeContext.getZoneId());
+		String timestamp = String.valueOf(today.minusDays(7).atStartOfDay(runTimeContext.getZoneId()).toEpochSecond());
+		Optional<TestRun> existingTestRun = findExistingTestRun(projectId, timestamp, getTestRunName());
+		if (existingTestRun.isPresent()) {
+			useExistingTestRun(existingTestRun.get());
+		}
+
+		return existingTestRun;
+	}
+
+	/**
+	 * Set up the test run, use the existing one or create a new one with the test cases
+	 *
+	 * @param testCaseIds case ids of the tests in the execution
+	 * @throws IOException if an I/O error occurs
+	 */
+	public synchronized void setupTestRun(@NotNull List<Integer> testCaseIds) throws IOException {
+		frameworkLogger.info("Creating Test Run in TestRail...");
+		if (resolveExistingTestRun().isPresent()) {
+			return;
+		}
+
+		createNewTestRun(frameworkConfigs.getTestRailProjectId(), getTestRunName(), testCaseIds);
+	}
+
+	/**
+	 * Get the test run name, default to "Automated Test Run - date"
+	 *
+	 * @return test run name
+	 */
+	private String getTestRunName() {
+		LocalDate today = LocalDate.now(runTimeContext.getZoneId());
+		String defaultTestRunName = String.format("Automated Test Run - %s", today);
+		return frameworkConfigs.getTestRailTestRunName().isEmpty() ? defaultTestRunName : frameworkConfigs.getTestRailTestRunName().trim();
+	}
+
+	/**
+	 * Validate the TestRail project ID.
+	 *
+	 * @param projectId the project ID to validate
+	 */
+	private void validateProjectId(String projectId) {
+		if (projectId == null || !Pattern.compile("[0-9]+").matcher(projectId).matches()) {
+			throw new IllegalArgumentException(String.format("Invalid project ID: %s", projectId));
+		}
+	}
+
+	/**
+	 * Find an existing Test Run in TestRail.
+	 *
+	 * @param projectId   the project ID
+	 * @param timestamp   the timestamp to filter Test Runs
+	 * @param testRunName the name of the Test Run
+	 * @return an optional containing the existing Test Run if found
+	 * @throws IOException if an I/O error occurs
+	 */
+	@NotNull
+	private Optional<TestRun> findExistingTestRun(String projectId, String timestamp, String testRunName) throws IOException {
+		TestRunResult testRunResult = testRailManager.getTestRuns(projectId, timestamp);
+		return testRunResult.getTestRunList().stream()
+				.filter(testRun -> testRun.getName().trim().equalsIgnoreCase(testRunName))
+				.findFirst();
+	}
+
+	/**
+	 * Use an existing Test Run in TestRail.
+	 *
+	 * @param existingTestRun the existing Test Run
+	 * @throws IOException if an I/O error occurs
+	 */
+	private void useExistingTestRun(@NotNull TestRun existingTestRun) throws IOException {
+		frameworkLogger.info("Use existing TestRun, Id: {}, Name: {}", existingTestRun.getId(), existingTestRun.getName());
+
+		String statusFilter = frameworkConfigs.getTestRailTestStatusFilter().replace(" ", "");
+		List<TestRunTest> matchedTests = testRailManager.getAllTestRunTests(existingTestRun.getId(), statusFilter);
+		Set<Integer> caseIds = matchedTests.stream().map(TestRunTest::getCaseId).collect(Collectors.toUnmodifiableSet());
+		frameworkLogger.info("{} test cases matched status filter [{}]", caseIds.size(), statusFilter);
+
+		runTimeContext.setGlobalVariables(FILTERED_TEST_OBJECT, matchedTests);
+		runTimeContext.setGlobalVariables(FILTERED_TEST_CASE_IDS, caseIds);
+		runTimeContext.setGlobalVariables(TEST_RUN_OBJECT, existingTestRun);
+	}
+
+	/**
+	 * Create a new Test Run in TestRail.
+	 *
+	 * @param projectId   the project ID
+	 * @param testRunName the name of the Test Run
+	 * @param testCaseIds case ids of the tests in the execution
+	 * @throws IOException if an I/O error occurs
+	 */
+	private void createNewTestRun(String projectId, String testRunName, List<Integer> testCaseIds) throws IOException {
+		validateProjectId(projectId);
+		List<Integer> testCaseIdList = frameworkConfigs.isTestRailIncludeAllAutomatedTestCases() ?
+				testRailManager.getAllAutomatedTestCases(projectId).stream().map(TestRunTest::getId).collect(Collectors.toList()) :
+				testCaseIds.stream().distinct().sorted().collect(Collectors.toList());
+
+		if (!testCaseIdList.isEmpty()) {
+			TestRun testRun = testRailManager.addTestRun(projectId, testRunName, testCaseIdList);
+			if (testRun != null && testRun.getId() > 0) {
+				runTimeContext.setGlobalVariables(TEST_RUN_OBJECT, testRun);
+				frameworkLogger.info("Test Run created in TestRail - Id: {}, Name: {}", testRun.getId(), testRun.getName());
+			} else {
+				frameworkLogger.error("Failed to create Test Run in TestRail.");
+				throw new RuntimeException("Failed to create Test Run in TestRail.");
+			}
+		} else {
+			frameworkLogger.warn("No Test Run created as no test cases were found.");
+		}
+	}
+}
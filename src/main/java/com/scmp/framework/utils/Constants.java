@@ -27,4 +27,8 @@ public class Constants {
 	public static final String TEST_INFO_OBJECT = "TEST_INFO_OBJECT";
 	public static final String TEST_RUN_OBJECT = "TEST_RUN_OBJECT";
 	public static final String FILTERED_TEST_OBJECT = "FILTERED_TEST_OBJECT";
+	public static final String FILTERED_TEST_CASE_IDS = "FILTERED_TEST_CASE_IDS";
+	public static final String TEST_METADATA_OBJECT = "TEST_METADATA_OBJECT";
+	public static final String RUN_ABORTED_BY_SUITE = "RUN_ABORTED_BY_SUITE";
+	public static final String ABORTED_TEST = "ABORTED_TEST";
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.scmp.framework.utils;
+
+import org.openqa.selenium.remote.SessionId;
+import org.openqa.selenium.remote.http.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * RemoteSessionUtils - Utility class for the sessions on a remote server, e.g. the grid.
+ */
+public class RemoteSessionUtils {
+	private static final Logger frameworkLogger = LoggerFactory.getLogger(RemoteSessionUtils.class);
+	private static final Duration DELETE_TIMEOUT = Duration.ofSeconds(30);
+
+	/**
+	 * Delete the session on the server without the driver, e.g. the driver is hung or failed to quit,
+	 * so that the slot of the session is freed without waiting for the session timeout of the server.
+	 *
+	 * @param serverUrl url of the server, e.g. the grid
+	 * @param sessionId session id
+	 * @return true if the server responded to the delete request
+	 */
+	public static boolean deleteSession(String serverUrl, SessionId sessionId) {
+		if (serverUrl == null || serverUrl.isEmpty() || sessionId == null) {
+			return false;
+		}
+
+		ClientConfig clientConfig = ClientConfig.defaultConfig()
+				.baseUri(URI.create(serverUrl))
+				.readTimeout(DELETE_TIMEOUT);
+		try (HttpClient client = HttpClient.Factory.createDefault().createClient(clientConfig)) {
+			HttpResponse response = client.execute(new HttpRequest(HttpMethod.DELETE, "/session/" + sessionId));
+			frameworkLogger.warn("Deleted remote session [{}], status {}.", sessionId, response.getStatus());
+			return true;
+		} catch (Exception e) {
+			frameworkLogger.error("Failed to delete remote session [{}].", sessionId, e);
+			return false;
+		}
+	}
+}
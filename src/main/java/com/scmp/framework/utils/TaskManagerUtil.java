@@ -3,99 +3,52 @@ package com.scmp.framework.utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
+/**
+ * TaskManagerUtil - Finds and kills the processes of the machine through ProcessHandle, without spawning a shell.
+ */
 public class TaskManagerUtil {
 	private static final Logger frameworkLogger = LoggerFactory.getLogger(TaskManagerUtil.class);
 
+	/**
+	 * Find the processes whose command line contains the process name
+	 *
+	 * @param processName process name, e.g. chromedriver
+	 * @return process ids
+	 */
 	public static List<String> findProcess(String processName) {
-		List<String> processList = new ArrayList<String>();
-		BufferedReader br = null;
-		try {
-			// For windows
-			if (System.getProperty("os.name").contains("Windows")) {
-				String command = "tasklist /FI \"IMAGENAME eq " + processName + "\"";
-				Process proc = CommandPrompt.executeCommand(command);
-
-				br = new BufferedReader(new InputStreamReader(proc.getInputStream()));
-				String line = null;
-				while ((line = br.readLine()) != null) {
-					frameworkLogger.info(line);
-					if (line.contains(processName)) {
-						line = line.replaceAll("\\s+", " ");
-						String[] list = line.split(" ");
-						processList.add(list[1]);
-					}
-				}
-			}
-			// For Mac
-			else {
-				String command =
-						"ps aux | grep \"" + processName + "\" | grep -v 'grep' | awk '{print $2}'";
-				Process proc = CommandPrompt.executeCommand(command);
-
-				br = new BufferedReader(new InputStreamReader(proc.getInputStream()));
-				String line = null;
-				while ((line = br.readLine()) != null) {
-					frameworkLogger.info(line);
-					processList.add(line);
-				}
-			}
-
-			return processList;
-		} catch (Exception e) {
-			frameworkLogger.error("Ops!", e);
-			return processList;
-		} finally {
-			if (br != null) {
-				try {
-					br.close();
-				} catch (Exception ex) {
-				}
-			}
-		}
+		long currentPid = ProcessHandle.current().pid();
+		return ProcessHandle.allProcesses()
+				.filter(process -> process.pid() != currentPid)
+				.filter(process -> process.info().commandLine()
+						.or(() -> process.info().command())
+						.map(commandLine -> commandLine.contains(processName))
+						.orElse(false))
+				.map(process -> String.valueOf(process.pid()))
+				.collect(Collectors.toList());
 	}
 
+	/**
+	 * Kill the process and the processes spawned by it
+	 *
+	 * @param processID process id
+	 */
 	public static void killProcess(String processID) {
-		BufferedReader br = null;
 		try {
-			String command;
-			// For windows
-			if (System.getProperty("os.name").contains("Windows")) {
-				command = "Taskkill /F /PID " + processID;
-			}
-			// For MAC
-			else {
-				command = "kill " + processID;
-			}
-
-			Process proc = CommandPrompt.executeCommand(command);
-
-			br = new BufferedReader(new InputStreamReader(proc.getInputStream()));
-			String line = null;
-			while ((line = br.readLine()) != null) {
-				frameworkLogger.info(line);
-
-				BufferedReader in = new BufferedReader(new InputStreamReader(proc.getInputStream()));
-				String string_Temp = in.readLine();
-				while (string_Temp != null) {
-					frameworkLogger.info(string_Temp);
-					string_Temp = in.readLine();
-				}
+			Optional<ProcessHandle> process = ProcessHandle.of(Long.parseLong(processID.trim()));
+			if (process.isEmpty()) {
+				frameworkLogger.info("Process {} is not running.", processID);
+				return;
 			}
 
+			process.get().descendants().forEach(ProcessHandle::destroyForcibly);
+			process.get().destroyForcibly();
+			frameworkLogger.info("Killed process {}.", processID);
 		} catch (Exception e) {
 			frameworkLogger.error("Ops!", e);
-		} finally {
-			if (br != null) {
-				try {
-					br.close();
-				} catch (Exception ex) {
-				}
-			}
 		}
 	}
 }
@@ -1,5 +1,6 @@
 package com.github.test.demo.pom;
 
+import com.scmp.framework.test.SmartWaitElementLocatorFactory;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.remote.RemoteWebDriver;
 import org.openqa.selenium.support.CacheLookup;
@@ -27,7 +28,7 @@ public class GoogleHome extends BasePage {
 
 	public GoogleHome(RemoteWebDriver driver) {
 		super(driver);
-		PageFactory.initElements(driver, this);
+		PageFactory.initElements(new SmartWaitElementLocatorFactory(driver), this);
 		URL = runTimeContext.getURL();
 	}
 
@@ -0,0 +1,116 @@
+package com.scmp.framework.executor;
+
+import com.scmp.framework.context.FrameworkConfigs;
+import com.scmp.framework.context.RunTimeContext;
+import org.testng.ITestResult;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+public class ExecutionJournalTest {
+	private static final String BROWSER = "chrome";
+	private static final String CLASS_NAME = JournalFixture.class.getName();
+
+	@Test
+	public void partialDataProviderRowsAreRunAgain() throws Exception {
+		File journalFile = writeJournal(journal -> {
+			pass(journal, "search", 0);
+			journal.recordInvocations(CLASS_NAME, "allRowsPassed", BROWSER, 3);
+			pass(journal, "allRowsPassed", 0);
+			pass(journal, "allRowsPassed", 1);
+			pass(journal, "allRowsPassed", 2);
+			// Interrupted after the second row
+			journal.recordInvocations(CLASS_NAME, "interruptedRows", BROWSER, 3);
+			pass(journal, "interruptedRows", 0);
+			pass(journal, "interruptedRows", 1);
+			// Interrupted before the rows were all read
+			pass(journal, "rowsNotCounted", 0);
+		});
+
+		Set<String> remaining = resume(journalFile);
+
+		assertEquals(remaining, Set.of("login", "checkout", "interruptedRows", "rowsNotCounted"));
+	}
+
+	@Test
+	public void retriedRowsUseTheLatestResult() throws Exception {
+		File journalFile = writeJournal(journal -> {
+			journal.recordInvocations(CLASS_NAME, "allRowsPassed", BROWSER, 3);
+			pass(journal, "allRowsPassed", 0);
+			journal.recordResult(CLASS_NAME, "allRowsPassed", BROWSER, 1, ITestResult.FAILURE, 10);
+			pass(journal, "allRowsPassed", 1);
+			pass(journal, "allRowsPassed", 2);
+			journal.recordResult(CLASS_NAME, "search", BROWSER, 0, ITestResult.FAILURE, 10);
+		});
+
+		Set<String> remaining = resume(journalFile);
+
+		assertEquals(remaining, Set.of("login", "checkout", "search", "interruptedRows", "rowsNotCounted"));
+	}
+
+	@Test
+	public void dependenciesOfRemainingMethodsAreIncluded() throws Exception {
+		File journalFile = writeJournal(journal -> {
+			pass(journal, "login", 0);
+			journal.recordResult(CLASS_NAME, "checkout", BROWSER, 0, ITestResult.FAILURE, 10);
+			pass(journal, "search", 0);
+		});
+
+		Set<String> remaining = resume(journalFile);
+
+		assertEquals(remaining, Set.of("login", "checkout", "allRowsPassed", "interruptedRows", "rowsNotCounted"));
+	}
+
+	private static void pass(ExecutionJournal journal, String methodName, int parameterIndex) {
+		journal.recordResult(CLASS_NAME, methodName, BROWSER, parameterIndex, ITestResult.SUCCESS, 10);
+	}
+
+	private static File writeJournal(JournalWriter journalWriter) throws Exception {
+		File journalFile = File.createTempFile("execution-journal", ".jsonl");
+		journalFile.deleteOnExit();
+
+		ExecutionJournal journal = new ExecutionJournal(createContext(journalFile.getPath(), ""));
+		journal.open();
+		journalWriter.write(journal);
+		journal.close();
+		return journalFile;
+	}
+
+	private static Set<String> resume(File journalFile) throws Exception {
+		ExecutionJournal journal = new ExecutionJournal(createContext("", journalFile.getPath()));
+		journal.open();
+		try {
+			Map<String, List<Method>> methods = Map.of(CLASS_NAME, Arrays.stream(JournalFixture.class.getDeclaredMethods())
+					.filter(method -> method.isAnnotationPresent(Test.class))
+					.toList());
+			return journal.excludeCompleted(methods, BROWSER).getOrDefault(CLASS_NAME, List.of()).stream()
+					.map(Method::getName)
+					.collect(Collectors.toSet());
+		} finally {
+			journal.close();
+		}
+	}
+
+	private static RunTimeContext createContext(String journalPath, String resumeFrom) {
+		FrameworkConfigs configs = mock(FrameworkConfigs.class);
+		when(configs.getExecutionJournalPath()).thenReturn(journalPath);
+		when(configs.getResumeFrom()).thenReturn(resumeFrom);
+		RunTimeContext context = mock(RunTimeContext.class);
+		when(context.getFrameworkConfigs()).thenReturn(configs);
+		return context;
+	}
+
+	/**
+	 * JournalWriter - Writes the journal of the interrupted execution
+	 */
+	private interface JournalWriter {
+		void write(ExecutionJournal journal);
+	}
+}
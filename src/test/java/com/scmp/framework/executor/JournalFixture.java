@@ -0,0 +1,38 @@
+package com.scmp.framework.executor;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * JournalFixture - Test methods resumed by ExecutionJournalTest, not run by itself
+ */
+public class JournalFixture {
+	@DataProvider
+	public Object[][] rows() {
+		return new Object[][]{{1}, {2}, {3}};
+	}
+
+	@Test
+	public void login() {
+	}
+
+	@Test(dependsOnMethods = "login")
+	public void checkout() {
+	}
+
+	@Test
+	public void search() {
+	}
+
+	@Test(dataProvider = "rows")
+	public void allRowsPassed(int row) {
+	}
+
+	@Test(dataProvider = "rows")
+	public void interruptedRows(int row) {
+	}
+
+	@Test(dataProvider = "rows")
+	public void rowsNotCounted(int row) {
+	}
+}
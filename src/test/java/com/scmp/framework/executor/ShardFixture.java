@@ -0,0 +1,48 @@
+package com.scmp.framework.executor;
+
+import org.testng.annotations.Test;
+
+/**
+ * ShardFixture - Test methods sharded by TestSharderTest, not run by itself
+ */
+public class ShardFixture {
+	@Test
+	public void login() {
+	}
+
+	@Test(dependsOnMethods = "login")
+	public void checkout() {
+	}
+
+	@Test(dependsOnMethods = "checkout")
+	public void logout() {
+	}
+
+	@Test
+	public void search() {
+	}
+
+	@Test
+	public void filter() {
+	}
+
+	@Test
+	public void sort() {
+	}
+
+	@Test
+	public void share() {
+	}
+
+	@Test
+	public void bookmark() {
+	}
+
+	@Test
+	public void comment() {
+	}
+
+	@Test
+	public void subscribe() {
+	}
+}
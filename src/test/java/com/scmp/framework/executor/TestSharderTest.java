@@ -0,0 +1,104 @@
+package com.scmp.framework.executor;
+
+import com.scmp.framework.context.FrameworkConfigs;
+import com.scmp.framework.context.RunTimeContext;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.*;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.*;
+
+public class TestSharderTest {
+	private static final int SHARD_TOTAL = 3;
+	private static final String CLASS_NAME = ShardFixture.class.getName();
+
+	@DataProvider
+	public Object[][] strategies() {
+		return new Object[][]{{TestSharder.STRATEGY_HASH}, {TestSharder.STRATEGY_DURATION}};
+	}
+
+	@Test(dataProvider = "strategies")
+	public void shardsAreDisjointAndComplete(String strategy) throws Exception {
+		Map<String, List<Method>> methods = getFixtureMethods();
+		Set<String> allKeys = toKeys(methods);
+		Set<String> shardedKeys = new HashSet<>();
+
+		for (int shardIndex = 0; shardIndex < SHARD_TOTAL; shardIndex++) {
+			for (String key : toKeys(createSharder(strategy, shardIndex).shard(methods))) {
+				assertTrue(shardedKeys.add(key), key + " is selected by more than one shard");
+			}
+		}
+
+		assertEquals(shardedKeys, allKeys);
+	}
+
+	@Test(dataProvider = "strategies")
+	public void dependentMethodsStayOnTheSameShard(String strategy) throws Exception {
+		Map<String, List<Method>> methods = getFixtureMethods();
+		Set<String> chain = Set.of(CLASS_NAME + "#login", CLASS_NAME + "#checkout", CLASS_NAME + "#logout");
+
+		int shardsWithChain = 0;
+		for (int shardIndex = 0; shardIndex < SHARD_TOTAL; shardIndex++) {
+			Set<String> keys = toKeys(createSharder(strategy, shardIndex).shard(methods));
+			long chainMethods = chain.stream().filter(keys::contains).count();
+			assertTrue(chainMethods == 0 || chainMethods == chain.size(), "dependsOnMethods chain is split: " + keys);
+			if (chainMethods > 0) {
+				shardsWithChain++;
+			}
+		}
+
+		assertEquals(shardsWithChain, 1);
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void durationStrategyNeedsPinnedHistory() throws Exception {
+		TestSharder sharder = createSharder(TestSharder.STRATEGY_DURATION, 0, "");
+		sharder.shard(getFixtureMethods());
+	}
+
+	private TestSharder createSharder(String strategy, int shardIndex) throws Exception {
+		File historyFile = File.createTempFile("test-durations", ".properties");
+		historyFile.deleteOnExit();
+		return createSharder(strategy, shardIndex, historyFile.getPath());
+	}
+
+	private TestSharder createSharder(String strategy, int shardIndex, String historyPath) {
+		FrameworkConfigs configs = mock(FrameworkConfigs.class);
+		when(configs.getShardIndex()).thenReturn(shardIndex);
+		when(configs.getShardTotal()).thenReturn(SHARD_TOTAL);
+		when(configs.getShardStrategy()).thenReturn(strategy);
+		when(configs.getTestDurationHistoryPath()).thenReturn(historyPath);
+		RunTimeContext context = mock(RunTimeContext.class);
+		when(context.getFrameworkConfigs()).thenReturn(configs);
+
+		TestDurationHistory durationHistory = mock(TestDurationHistory.class);
+		when(durationHistory.getHistoryFile()).thenReturn(new File(historyPath));
+		when(durationHistory.getDigest()).thenReturn("digest");
+
+		// Distinct durations per method, the same on every node
+		DurationAwareScheduler scheduler = mock(DurationAwareScheduler.class);
+		when(scheduler.estimate(anyString(), anyString()))
+				.thenAnswer(invocation -> (long) Math.abs(invocation.getArgument(1, String.class).hashCode() % 1000));
+
+		return new TestSharder(context, scheduler, durationHistory);
+	}
+
+	private static Map<String, List<Method>> getFixtureMethods() {
+		List<Method> methods = Arrays.stream(ShardFixture.class.getDeclaredMethods())
+				.filter(method -> method.isAnnotationPresent(Test.class))
+				.toList();
+		return Map.of(CLASS_NAME, methods);
+	}
+
+	private static Set<String> toKeys(Map<String, List<Method>> methods) {
+		Set<String> keys = new HashSet<>();
+		methods.forEach((className, classMethods) -> classMethods.forEach(method -> keys.add(className + "#" + method.getName())));
+		return keys;
+	}
+}